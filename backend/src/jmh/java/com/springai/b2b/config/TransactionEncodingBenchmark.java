@@ -0,0 +1,147 @@
+package com.springai.b2b.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.springai.b2b.dto.TransactionResponse;
+import com.springai.b2b.entity.B2BTransaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing and reading a page of {@code rows} transactions in each {@code encoding} the API
+ * negotiates, with the mappers {@link HttpMessageConverterConfig} registers:
+ * <ul>
+ *     <li>{@code full}: every {@link TransactionResponse} field, including the insight and notes texts</li>
+ *     <li>{@code sparse}: the maps {@code ?fields=id,transactionId,status,totalAmount,currency,updatedAt} returns</li>
+ * </ul>
+ * Payload sizes are printed once per fork. The database side of sparse fieldsets, which skips
+ * reading the large columns, needs PostgreSQL and is not part of this comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionEncodingBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    String encoding;
+
+    @Param({"100", "1000"})
+    int rows;
+
+    private ObjectMapper mapper;
+    private List<TransactionResponse> full;
+    private List<Map<String, Object>> sparse;
+    private byte[] fullBytes;
+    private byte[] sparseBytes;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        HttpMessageConverterConfig config = new HttpMessageConverterConfig();
+        mapper = switch (encoding) {
+            case "smile" -> config.smileHttpMessageConverter(builder()).getObjectMapper();
+            case "cbor" -> config.cborHttpMessageConverter(builder()).getObjectMapper();
+            default -> builder().build();
+        };
+
+        full = new ArrayList<>(rows);
+        sparse = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            TransactionResponse transaction = transaction(i);
+            full.add(transaction);
+            // Same value types as the tuple projection in TransactionProjectionService
+            Map<String, Object> fields = new LinkedHashMap<>();
+            fields.put("id", transaction.getId());
+            fields.put("transactionId", transaction.getTransactionId());
+            fields.put("status", transaction.getStatus());
+            fields.put("totalAmount", transaction.getTotalAmount());
+            fields.put("currency", transaction.getCurrency());
+            fields.put("updatedAt", transaction.getUpdatedAt());
+            sparse.add(fields);
+        }
+        fullBytes = mapper.writeValueAsBytes(full);
+        sparseBytes = mapper.writeValueAsBytes(sparse);
+        System.out.printf("%s payload for %d rows: %d bytes full, %d bytes sparse%n",
+                encoding, rows, fullBytes.length, sparseBytes.length);
+    }
+
+    @Benchmark
+    public byte[] writeFull() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(full);
+    }
+
+    @Benchmark
+    public byte[] writeSparse() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(sparse);
+    }
+
+    @Benchmark
+    public List<TransactionResponse> readFull() throws IOException {
+        return mapper.readValue(fullBytes, new TypeReference<>() {
+        });
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> readSparse() throws IOException {
+        return mapper.readValue(sparseBytes, new TypeReference<>() {
+        });
+    }
+
+    // What Boot's auto-configured builder applies with this project's spring.jackson settings
+    private static Jackson2ObjectMapperBuilder builder() {
+        return new Jackson2ObjectMapperBuilder().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    private static TransactionResponse transaction(int i) {
+        BigDecimal unitPrice = new BigDecimal("12.50").add(BigDecimal.valueOf(i % 20, 1));
+        LocalDateTime createdAt = LocalDateTime.of(2026, 1, 1, 9, 0).plusMinutes(i);
+        return TransactionResponse.builder()
+                .id((long) i)
+                .transactionId("TXN-2026-" + (100000 + i))
+                .buyerCompany("Buyer " + (i % 7))
+                .sellerCompany("Seller " + (i % 5))
+                .buyerCompanyId((long) (i % 7))
+                .sellerCompanyId((long) (100 + i % 5))
+                .productName("Industrial steel bolts M" + (8 + i % 4))
+                .productDescription("Zinc plated, grade 8.8, box of 100")
+                .quantity(100 + i % 50)
+                .unitPrice(unitPrice)
+                .totalAmount(unitPrice.multiply(BigDecimal.valueOf(100 + i % 50)))
+                .currency("USD")
+                .reportingAmount(unitPrice.multiply(BigDecimal.valueOf(100 + i % 50)))
+                .status(B2BTransaction.TransactionStatus.values()[i % B2BTransaction.TransactionStatus.values().length])
+                .paymentTerms("Net 30")
+                .deliveryDate(createdAt.plusDays(14))
+                .notes("Deliver to dock 3 between 8:00 and 16:00; call ahead.")
+                .aiInsights("Unit price is within the usual range for this product. The buyer has completed "
+                        + "similar orders on Net 30 terms without delays; no duplicate or risk indicators were found. "
+                        + "Consider consolidating the next delivery with open orders from the same seller.")
+                .riskScore(i % 100)
+                .createdAt(createdAt)
+                .updatedAt(createdAt.plusHours(1))
+                .build();
+    }
+}
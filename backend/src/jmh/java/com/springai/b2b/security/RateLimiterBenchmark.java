@@ -0,0 +1,105 @@
+package com.springai.b2b.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one quota check against {@code keys} live buckets, with keys shaped like the ones
+ * {@link RateLimitFilter} builds (rule index plus user id or company name):
+ * <ul>
+ *     <li>{@code acquire}: a single {@link RateLimiter#tryAcquire}</li>
+ *     <li>{@code checkThenAcquire}: what the filter does for a request limited per user and per company,
+ *     peeking at both buckets before taking from either</li>
+ *     <li>{@code contended}: the same from four threads sharing the map</li>
+ * </ul>
+ * The target is under 1µs per check at 100k keys. Limits are high enough that checks succeed, so
+ * the CAS path is measured rather than the early rejection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    private static final long EMISSION_INTERVAL_NANOS = 1_000;
+    private static final int BURST = 1_000_000;
+
+    @Param({"1000", "100000"})
+    int keys;
+
+    private RateLimiter limiter;
+    private Key[] userKeys;
+    private Key[] companyKeys;
+
+    @Setup
+    public void setUp() {
+        limiter = new RateLimiter();
+        userKeys = new Key[keys];
+        companyKeys = new Key[keys];
+        for (int i = 0; i < keys; i++) {
+            userKeys[i] = new Key(0, (long) i);
+            companyKeys[i] = new Key(2, "company " + (i % Math.max(1, keys / 10)));
+            limiter.tryAcquire(userKeys[i], EMISSION_INTERVAL_NANOS, BURST);
+            limiter.tryAcquire(companyKeys[i], EMISSION_INTERVAL_NANOS, BURST);
+        }
+        System.out.printf("%d buckets%n", limiter.size());
+    }
+
+    @Benchmark
+    public long acquire(Cursor cursor) {
+        return limiter.tryAcquire(userKeys[cursor.next(keys)], EMISSION_INTERVAL_NANOS, BURST);
+    }
+
+    @Benchmark
+    public long checkThenAcquire(Cursor cursor) {
+        return checkBoth(cursor.next(keys));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long contended(Cursor cursor) {
+        return checkBoth(cursor.next(keys));
+    }
+
+    private long checkBoth(int i) {
+        long wait = Math.max(limiter.waitNanos(userKeys[i], EMISSION_INTERVAL_NANOS, BURST),
+                limiter.waitNanos(companyKeys[i], EMISSION_INTERVAL_NANOS, BURST));
+        if (wait > 0) {
+            return wait;
+        }
+        return limiter.tryAcquire(userKeys[i], EMISSION_INTERVAL_NANOS, BURST)
+                + limiter.tryAcquire(companyKeys[i], EMISSION_INTERVAL_NANOS, BURST);
+    }
+
+    // Same shape as RateLimitFilter's private BucketKey
+    private record Key(int rule, Object subject) {
+    }
+
+    // Spreads lookups over the whole map instead of hitting one hot bucket
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private long state = System.nanoTime() | 1;
+
+        int next(int bound) {
+            state ^= state << 13;
+            state ^= state >>> 7;
+            state ^= state << 17;
+            return (int) ((state >>> 1) % bound);
+        }
+    }
+}
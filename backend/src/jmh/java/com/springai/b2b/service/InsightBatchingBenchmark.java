@@ -0,0 +1,147 @@
+package com.springai.b2b.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springai.b2b.config.StubAiConfig;
+import com.springai.b2b.entity.B2BTransaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Wall time and model calls for generating insights for {@code transactions} escalated orders
+ * against the stub chat model, which sleeps {@code latencyMs} per call:
+ * <ul>
+ *     <li>{@code unbatched}: one call per transaction, as before InsightBatcher</li>
+ *     <li>{@code batched}: an upload split into {@code insights.batch.max-size} prompts</li>
+ *     <li>{@code coalesced}: concurrent single creates grouped within {@code insights.batch.window-ms}</li>
+ * </ul>
+ * The {@code modelCalls} counter totals the model calls of each iteration; divide by the
+ * iteration's operation count for calls per upload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsightBatchingBenchmark {
+
+    @Param({"10", "50"})
+    int transactions;
+
+    @Param("50")
+    long latencyMs;
+
+    private final AtomicLong calls = new AtomicLong();
+    private AIInsightService insightService;
+    private InsightBatcher batcher;
+    private List<B2BTransaction> escalated;
+
+    @Setup
+    public void setUp() {
+        ChatModel stub = new StubAiConfig().stubChatModel(latencyMs);
+        ChatModel counting = new ChatModel() {
+            @Override
+            public ChatResponse call(Prompt prompt) {
+                calls.incrementAndGet();
+                return stub.call(prompt);
+            }
+        };
+
+        TransactionHistoryRetriever historyRetriever = mock(TransactionHistoryRetriever.class);
+        when(historyRetriever.similarTransactionsContext(any())).thenReturn("");
+        TransactionStatisticsService statisticsService = mock(TransactionStatisticsService.class);
+        when(statisticsService.priceContext(any())).thenReturn("");
+
+        insightService = new AIInsightService(ChatClient.builder(counting), new ObjectMapper(),
+                historyRetriever, statisticsService, new SimpleMeterRegistry());
+        batcher = new InsightBatcher(insightService, 10, 20, 4);
+
+        escalated = new ArrayList<>(transactions);
+        for (int i = 0; i < transactions; i++) {
+            escalated.add(B2BTransaction.builder()
+                    .transactionId("bench-" + i)
+                    .buyerCompany("Buyer " + (i % 7))
+                    .sellerCompany("Seller " + (i % 5))
+                    .productName("Industrial steel bolts M" + (8 + i % 4))
+                    .quantity(100 + i)
+                    .unitPrice(new BigDecimal("12.50"))
+                    .totalAmount(new BigDecimal("12.50").multiply(BigDecimal.valueOf(100 + i)))
+                    .currency("USD")
+                    .paymentTerms("Net 30")
+                    .build());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        batcher.shutdown();
+    }
+
+    @Benchmark
+    public List<String> unbatched(ModelCalls modelCalls) {
+        long before = calls.get();
+        List<String> insights = new ArrayList<>(escalated.size());
+        for (B2BTransaction transaction : escalated) {
+            insights.add(insightService.generateAIInsights(transaction));
+        }
+        modelCalls.modelCalls += calls.get() - before;
+        return insights;
+    }
+
+    @Benchmark
+    public List<String> batched(ModelCalls modelCalls) {
+        long before = calls.get();
+        List<String> insights = batcher.generateAll(escalated);
+        modelCalls.modelCalls += calls.get() - before;
+        return insights;
+    }
+
+    @Benchmark
+    public List<String> coalesced(ModelCalls modelCalls) {
+        long before = calls.get();
+        List<CompletableFuture<String>> futures = escalated.stream().map(batcher::submit).toList();
+        List<String> insights = futures.stream().map(CompletableFuture::join).toList();
+        modelCalls.modelCalls += calls.get() - before;
+        return insights;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ModelCalls {
+
+        public long modelCalls;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            modelCalls = 0;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.springai.b2b.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springai.b2b.config.StubAiConfig;
+import com.springai.b2b.entity.B2BTransaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cost of grounding insight prompts in similar past transactions: the latency of the vector
+ * lookup, uncached and cached, over {@code history} stored transactions, and the prompt size with
+ * and without the retrieved context. Prompt sizes are counted with the cl100k tokenizer and
+ * printed once per fork; model latency needs a real model and is published at runtime as
+ * {@code insights.model.latency}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsightRetrievalBenchmark {
+
+    @Param({"1000", "10000"})
+    int history;
+
+    private TransactionHistoryRetriever uncached;
+    private TransactionHistoryRetriever cached;
+    private AIInsightService insightService;
+    private B2BTransaction transaction;
+    private String context;
+
+    @Setup
+    public void setUp() {
+        EmbeddingModel embeddingModel = new StubAiConfig().stubEmbeddingModel(256);
+        SimpleVectorStore vectorStore = SimpleVectorStore.builder(embeddingModel).build();
+        uncached = new TransactionHistoryRetriever(vectorStore, true, 5, 0, 10_000);
+        cached = new TransactionHistoryRetriever(vectorStore, true, 5, 600, 10_000);
+        for (int i = 0; i < history; i++) {
+            uncached.store(transaction(i));
+        }
+
+        TransactionStatisticsService statisticsService = mock(TransactionStatisticsService.class);
+        when(statisticsService.priceContext(any())).thenReturn("");
+        insightService = new AIInsightService(ChatClient.builder(new StubAiConfig().stubChatModel(0)),
+                new ObjectMapper(), uncached, statisticsService, new SimpleMeterRegistry());
+
+        transaction = transaction(history);
+        context = uncached.similarTransactionsContext(transaction);
+        System.out.printf("Prompt tokens: %d with history (%d rows), %d without%n",
+                AIInsightService.TOKENIZER.estimate(insightService.buildPrompt(transaction, context).getContents()),
+                context.lines().count(),
+                AIInsightService.TOKENIZER.estimate(insightService.buildPrompt(transaction, "").getContents()));
+    }
+
+    @Benchmark
+    public String retrieval() {
+        return uncached.similarTransactionsContext(transaction);
+    }
+
+    @Benchmark
+    public String cachedRetrieval() {
+        return cached.similarTransactionsContext(transaction);
+    }
+
+    @Benchmark
+    public Prompt promptWithHistory() {
+        return insightService.buildPrompt(transaction, context);
+    }
+
+    @Benchmark
+    public Prompt promptWithoutHistory() {
+        return insightService.buildPrompt(transaction, "");
+    }
+
+    private static B2BTransaction transaction(int i) {
+        BigDecimal unitPrice = new BigDecimal("12.50").add(BigDecimal.valueOf(i % 20, 1));
+        return B2BTransaction.builder()
+                .transactionId("bench-" + i)
+                .buyerCompany("Buyer " + (i % 7))
+                .sellerCompany("Seller " + (i % 5))
+                .productName("Industrial steel bolts M" + (8 + i % 4))
+                .productDescription("Zinc plated, grade 8.8, box of 100")
+                .quantity(100 + i % 50)
+                .unitPrice(unitPrice)
+                .totalAmount(unitPrice.multiply(BigDecimal.valueOf(100 + i % 50)))
+                .currency("USD")
+                .paymentTerms("Net 30")
+                .status(B2BTransaction.TransactionStatus.COMPLETED)
+                .build();
+    }
+}
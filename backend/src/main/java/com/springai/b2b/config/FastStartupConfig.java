@@ -0,0 +1,42 @@
+package com.springai.b2b.config;
+
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Startup tuning for the {@code fast-startup} profile. Spring AI's model clients and the pgvector
+ * store are made lazy, so they are built on the first insight or similarity request instead of
+ * during context refresh; the services that use them inject {@code @Lazy} proxies. Marking the
+ * definitions here rather than enabling global lazy initialization keeps the startup DDL and
+ * background jobs running eagerly.
+ */
+@Configuration
+@Profile("fast-startup")
+public class FastStartupConfig {
+
+    private static final String SPRING_AI_PACKAGE = "org.springframework.ai.";
+
+    @Bean
+    public static BeanFactoryPostProcessor lazySpringAiBeans() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                if (isSpringAiBean(definition)) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    private static boolean isSpringAiBean(BeanDefinition definition) {
+        String source = definition.getBeanClassName();
+        if (definition instanceof AnnotatedBeanDefinition annotated && annotated.getFactoryMethodMetadata() != null) {
+            source = annotated.getFactoryMethodMetadata().getDeclaringClassName();
+        }
+        return source != null && source.startsWith(SPRING_AI_PACKAGE);
+    }
+}
@@ -0,0 +1,67 @@
+package com.springai.b2b.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The JDBC pool behind JPA, declared here because Boot's {@code DataSourceAutoConfiguration} backs
+ * off as soon as the R2DBC starter provides a {@code ConnectionFactory}, taking
+ * {@link DataSourceProperties} with it. Connection settings come from {@link JdbcConnectionDetails}:
+ * {@code spring.datasource.*} by default, or a Testcontainers {@code @ServiceConnection} in tests.
+ * With {@code datasource.routing.enabled} the pool is built by {@link DataSourceRoutingConfig} instead.
+ */
+@Configuration
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class JdbcDataSourceConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(JdbcConnectionDetails.class)
+    public JdbcConnectionDetails jdbcConnectionDetails(DataSourceProperties properties) {
+        return new JdbcConnectionDetails() {
+            @Override
+            public String getUsername() {
+                return properties.determineUsername();
+            }
+
+            @Override
+            public String getPassword() {
+                return properties.determinePassword();
+            }
+
+            @Override
+            public String getJdbcUrl() {
+                return properties.determineUrl();
+            }
+
+            @Override
+            public String getDriverClassName() {
+                return properties.determineDriverClassName();
+            }
+        };
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "datasource.routing", name = "enabled", havingValue = "false", matchIfMissing = true)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(JdbcConnectionDetails connectionDetails) {
+        return hikari(connectionDetails);
+    }
+
+    static HikariDataSource hikari(JdbcConnectionDetails connectionDetails) {
+        return DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(connectionDetails.getDriverClassName())
+                .url(connectionDetails.getJdbcUrl())
+                .username(connectionDetails.getUsername())
+                .password(connectionDetails.getPassword())
+                .build();
+    }
+}
@@ -0,0 +1,59 @@
+package com.springai.b2b.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Validated at bind time, so a misconfigured rule fails startup with the offending property named
+@Data
+@Validated
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    @Positive
+    private long idleEvictionMs = 600000;
+    private List<@Valid Rule> rules = new ArrayList<>();
+
+    // Names tag the rate_limit.rejected counter, so two rules sharing one would be indistinguishable
+    @AssertTrue(message = "rate limit rule names must be unique")
+    public boolean isRuleNamesUnique() {
+        return rules.stream().map(Rule::getName).distinct().count() == rules.size();
+    }
+
+    /**
+     * For each scope the first rule whose method, path and role match a request applies, so list
+     * specific rules (e.g. for ADMIN) before general ones.
+     */
+    @Data
+    public static class Rule {
+        @NotBlank
+        private String name;
+        @NotNull
+        private Scope scope = Scope.PRINCIPAL;
+        // Any method when blank
+        private String method;
+        @NotBlank
+        private String path = "/**";
+        // Any authenticated user when blank
+        private String role;
+        @Positive
+        private double permitsPerSecond;
+        @Min(1)
+        private int burst = 1;
+    }
+
+    public enum Scope {
+        PRINCIPAL,
+        COMPANY
+    }
+}
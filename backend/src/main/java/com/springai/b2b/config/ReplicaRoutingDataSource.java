@@ -0,0 +1,229 @@
+package com.springai.b2b.config;
+
+import com.springai.b2b.security.UserPrincipal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes read-only transactions to a healthy replica and everything else to the primary. A replica
+ * is healthy while its replay lag stays within {@code max-lag-ms}; after a read-write transaction
+ * commits, reads stay on the primary for {@code stickiness-ms} so they see their own writes. The
+ * window is kept per user and per client address: registration, password reset and the login that
+ * follows them run without a user, and are matched by the address they come from.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long maxLagMs;
+    private final long stickinessMs;
+    private final Map<String, Long> stickyUntil = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryRoutes;
+    private final Counter replicaRoutes;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    long maxLagMs, long stickinessMs, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.maxLagMs = maxLagMs;
+        this.stickinessMs = stickinessMs;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicas.forEach((name, dataSource) -> {
+            Replica replica = new Replica(name, dataSource);
+            this.replicas.add(replica);
+            targets.put(name, dataSource);
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagMs)
+                    .tag("replica", name)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("replica", name)
+                    .register(meterRegistry);
+        });
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        this.primaryRoutes = Counter.builder("datasource.routing").tag("target", "primary").register(meterRegistry);
+        this.replicaRoutes = Counter.builder("datasource.routing").tag("target", "replica").register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        checkReplicas();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            primaryRoutes.increment();
+            return PRIMARY;
+        }
+
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            stickToPrimaryAfterCommit();
+            primaryRoutes.increment();
+            return PRIMARY;
+        }
+
+        long now = System.currentTimeMillis();
+        for (String key : stickyKeys()) {
+            if (stickyUntil.getOrDefault(key, 0L) > now) {
+                primaryRoutes.increment();
+                return PRIMARY;
+            }
+        }
+
+        Replica replica = nextHealthyReplica();
+        if (replica == null) {
+            primaryRoutes.increment();
+            return PRIMARY;
+        }
+        replicaRoutes.increment();
+        return replica.name;
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.routing.health-check-interval-ms:2000}")
+    public void checkReplicas() {
+        String primaryLsn = null;
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT pg_current_wal_lsn()::text")) {
+            resultSet.next();
+            primaryLsn = resultSet.getString(1);
+        } catch (SQLException e) {
+            log.debug("Could not read primary WAL position: {}", e.getMessage());
+        }
+
+        for (Replica replica : replicas) {
+            long lagMs = measureLag(replica, primaryLsn);
+            boolean healthy = lagMs >= 0 && lagMs <= maxLagMs;
+            if (healthy != replica.healthy) {
+                log.info("Replica {} is now {} (lag {} ms)", replica.name, healthy ? "in rotation" : "out of rotation", lagMs);
+            }
+            replica.lagMs = lagMs;
+            replica.healthy = healthy;
+        }
+
+        long now = System.currentTimeMillis();
+        stickyUntil.values().removeIf(until -> until <= now);
+    }
+
+    public void close() {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.debug("Could not close replica {}: {}", replica.name, e.getMessage());
+                }
+            }
+        }
+    }
+
+    // -1 when the replica cannot be reached. A server that is not in recovery (e.g. a second local
+    // instance used for testing) reports no lag.
+    private long measureLag(Replica replica, String primaryLsn) {
+        try (Connection connection = replica.dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT pg_is_in_recovery(), pg_wal_lsn_diff(?::pg_lsn, pg_last_wal_replay_lsn()), "
+                             + "EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000")) {
+            statement.setQueryTimeout(2);
+            statement.setString(1, primaryLsn);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                if (!resultSet.getBoolean(1)) {
+                    return 0;
+                }
+                BigDecimal bytesBehind = resultSet.getBigDecimal(2);
+                if (bytesBehind != null && bytesBehind.signum() <= 0) {
+                    return 0;
+                }
+                BigDecimal replayAgeMs = resultSet.getBigDecimal(3);
+                return replayAgeMs != null ? replayAgeMs.longValue() : Long.MAX_VALUE;
+            }
+        } catch (SQLException e) {
+            log.debug("Replica {} health check failed: {}", replica.name, e.getMessage());
+            return -1;
+        }
+    }
+
+    private Replica nextHealthyReplica() {
+        int size = replicas.size();
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), size));
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    // Read-write transactions are assumed to write; the window starts when the transaction commits
+    private void stickToPrimaryAfterCommit() {
+        if (stickinessMs <= 0 || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                long until = System.currentTimeMillis() + stickinessMs;
+                stickyKeys().forEach(key -> stickyUntil.put(key, until));
+            }
+        });
+    }
+
+    // Clients behind one address share a window; that only sends a few more reads to the primary
+    private static List<String> stickyKeys() {
+        List<String> keys = new ArrayList<>(2);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            keys.add("user:" + principal.getId());
+        }
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            keys.add("client:" + attributes.getRequest().getRemoteAddr());
+        }
+        return keys;
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+        private volatile long lagMs = -1;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.springai.b2b.config;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Deterministic local stand-ins for the OpenAI chat and embedding models, activated with the
+ * {@code stub-ai} profile so insight batching, streaming and retrieval can be exercised and
+ * measured without network calls or an API key.
+ */
+@Configuration
+@Profile("stub-ai")
+public class StubAiConfig {
+
+    private static final Pattern BATCH_REF = Pattern.compile("(?m)^\\[(\\d+)] ");
+
+    @Bean
+    @Primary
+    public ChatModel stubChatModel(@Value("${stub-ai.latency-ms:200}") long latencyMs) {
+        return new ChatModel() {
+            @Override
+            public ChatResponse call(Prompt prompt) {
+                sleep(latencyMs);
+                return response(reply(prompt.getContents()));
+            }
+
+            @Override
+            public Flux<ChatResponse> stream(Prompt prompt) {
+                String[] words = reply(prompt.getContents()).split("(?<= )");
+                return Flux.fromArray(words)
+                        .delayElements(Duration.ofMillis(Math.max(1, latencyMs / Math.max(1, words.length))))
+                        .map(this::response);
+            }
+
+            private ChatResponse response(String text) {
+                return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+            }
+        };
+    }
+
+    @Bean
+    @Primary
+    public EmbeddingModel stubEmbeddingModel(@Value("${spring.ai.vectorstore.pgvector.dimensions:1536}") int dimensions) {
+        return new EmbeddingModel() {
+            @Override
+            public EmbeddingResponse call(EmbeddingRequest request) {
+                List<Embedding> embeddings = new ArrayList<>();
+                List<String> inputs = request.getInstructions();
+                for (int i = 0; i < inputs.size(); i++) {
+                    embeddings.add(new Embedding(embed(inputs.get(i)), i));
+                }
+                return new EmbeddingResponse(embeddings);
+            }
+
+            @Override
+            public float[] embed(Document document) {
+                return embed(document.getText());
+            }
+
+            @Override
+            public int dimensions() {
+                return dimensions;
+            }
+
+            // Hashed bag-of-words, so texts sharing words land close together under cosine distance
+            private float[] embed(String text) {
+                float[] vector = new float[dimensions];
+                for (String token : text.toLowerCase(Locale.ROOT).split("\\W+")) {
+                    if (!token.isEmpty()) {
+                        vector[Math.floorMod(fnv1a(token), dimensions)] += 1f;
+                    }
+                }
+                return vector;
+            }
+        };
+    }
+
+    private static String reply(String prompt) {
+        Matcher refs = BATCH_REF.matcher(prompt);
+        if (prompt.contains("JSON array")) {
+            StringBuilder json = new StringBuilder("[");
+            while (refs.find()) {
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                json.append("{\"ref\": ").append(refs.group(1))
+                        .append(", \"insights\": \"Stub insight for transaction ").append(refs.group(1)).append(".\"}");
+            }
+            return json.append(']').toString();
+        }
+        return "Stub insight: low risk, pricing in line with history, proceed under the stated payment terms.";
+    }
+
+    // 32-bit FNV-1a over the UTF-8 bytes
+    private static int fnv1a(String token) {
+        int h = 0x811c9dc5;
+        for (byte b : token.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x01000193;
+        }
+        return h;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.springai.b2b.controller;
+
+import com.springai.b2b.dto.BatchJobResponse;
+import com.springai.b2b.dto.InsightRegenerationRequest;
+import com.springai.b2b.service.BatchJobService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.function.Function;
+
+@RestController
+@RequestMapping("/batch-jobs")
+@PreAuthorize("hasRole('ADMIN')")
+@RequiredArgsConstructor
+public class BatchJobController {
+
+    private final BatchJobService batchJobService;
+
+    @PostMapping("/insights")
+    public ResponseEntity<BatchJobResponse> regenerateInsights(@Valid @RequestBody InsightRegenerationRequest request) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(batchJobService.startInsightRegeneration(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<List<BatchJobResponse>> getJobs() {
+        return ResponseEntity.ok(batchJobService.getJobs());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<BatchJobResponse> getJob(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(batchJobService.getJob(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping("/{id}/pause")
+    public ResponseEntity<BatchJobResponse> pause(@PathVariable Long id) {
+        return changeStatus(id, batchJobService::pause);
+    }
+
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<BatchJobResponse> resume(@PathVariable Long id) {
+        return changeStatus(id, batchJobService::resume);
+    }
+
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<BatchJobResponse> cancel(@PathVariable Long id) {
+        return changeStatus(id, batchJobService::cancel);
+    }
+
+    private ResponseEntity<BatchJobResponse> changeStatus(Long id, Function<Long, BatchJobResponse> action) {
+        try {
+            return ResponseEntity.ok(action.apply(id));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.springai.b2b.controller;
+
+import com.springai.b2b.dto.CompanyResponse;
+import com.springai.b2b.dto.TransactionResponse;
+import com.springai.b2b.service.CompanyDirectoryService;
+import com.springai.b2b.service.TransactionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/companies")
+@RequiredArgsConstructor
+public class CompanyController {
+
+    private final CompanyDirectoryService companyDirectoryService;
+    private final TransactionService transactionService;
+
+    @GetMapping
+    public ResponseEntity<List<CompanyResponse>> getCompanies() {
+        return ResponseEntity.ok(companyDirectoryService.getCompanies());
+    }
+
+    @GetMapping("/{id}/transactions")
+    public ResponseEntity<List<TransactionResponse>> getCompanyTransactions(@PathVariable Long id) {
+        return ResponseEntity.ok(transactionService.getTransactionsByCompany(id));
+    }
+
+    @PostMapping("/{id}/aliases")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> addAlias(@PathVariable Long id, @RequestBody Map<String, String> alias) {
+        try {
+            companyDirectoryService.addAlias(id, alias.getOrDefault("name", ""));
+            return ResponseEntity.status(HttpStatus.CREATED).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.springai.b2b.controller;
+
+import com.springai.b2b.dto.FxRatesResponse;
+import com.springai.b2b.service.FxRateService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/fx/rates")
+@RequiredArgsConstructor
+public class FxRateController {
+
+    private final FxRateService fxRateService;
+
+    @GetMapping
+    public ResponseEntity<FxRatesResponse> getRates() {
+        return ResponseEntity.ok(toResponse(fxRateService.current()));
+    }
+
+    @PutMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<FxRatesResponse> updateRates(@RequestBody Map<String, BigDecimal> rates) {
+        try {
+            return ResponseEntity.ok(toResponse(fxRateService.importRates(rates, "api")));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/reload")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<FxRatesResponse> reloadRates() {
+        try {
+            return ResponseEntity.ok(toResponse(fxRateService.importFile()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private FxRatesResponse toResponse(FxRateService.FxSnapshot snapshot) {
+        return FxRatesResponse.builder()
+                .version(snapshot.version())
+                .reportingCurrency(snapshot.reportingCurrency())
+                .rates(snapshot.rates())
+                .build();
+    }
+}
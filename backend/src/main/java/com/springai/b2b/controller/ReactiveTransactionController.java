@@ -0,0 +1,58 @@
+package com.springai.b2b.controller;
+
+import com.springai.b2b.dto.TransactionResponse;
+import com.springai.b2b.dto.TransactionSearchResponse;
+import com.springai.b2b.entity.B2BTransaction;
+import com.springai.b2b.service.ReactiveTransactionQueryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Non-blocking counterparts of the read endpoints in {@link TransactionController}. The request
+ * thread is released as soon as the query is issued; {@code Accept: application/x-ndjson} streams
+ * the list one row per line, requesting more rows from the database as the client consumes them.
+ */
+@RestController
+@RequestMapping("/reactive/transactions")
+@RequiredArgsConstructor
+public class ReactiveTransactionController {
+
+    private final ReactiveTransactionQueryService queryService;
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<TransactionResponse> getTransactions(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return queryService.getTransactions(from, to);
+    }
+
+    @GetMapping("/search")
+    public Mono<ResponseEntity<TransactionSearchResponse>> searchTransactions(
+            @RequestParam String q,
+            @RequestParam(required = false) B2BTransaction.TransactionStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return queryService.searchTransactions(q, status, from, to, cursor, Math.max(1, Math.min(limit, 100)))
+                    .map(ResponseEntity::ok);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<TransactionResponse>> getTransactionById(@PathVariable Long id) {
+        return queryService.getTransactionById(id)
+                .map(ResponseEntity::ok)
+                .onErrorResume(RuntimeException.class, e -> Mono.just(ResponseEntity.notFound().build()));
+    }
+}
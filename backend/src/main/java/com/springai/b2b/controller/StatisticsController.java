@@ -0,0 +1,39 @@
+package com.springai.b2b.controller;
+
+import com.springai.b2b.dto.PriceAnomalyResponse;
+import com.springai.b2b.dto.PriceStatisticsResponse;
+import com.springai.b2b.service.TransactionStatisticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+
+@RestController
+@RequestMapping("/statistics")
+@RequiredArgsConstructor
+public class StatisticsController {
+
+    private final TransactionStatisticsService statisticsService;
+
+    @GetMapping("/products")
+    public ResponseEntity<PriceStatisticsResponse> getProductStatistics(@RequestParam String name) {
+        return statisticsService.productStatistics(name)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/products/check")
+    public ResponseEntity<PriceAnomalyResponse> checkUnitPrice(@RequestParam String name, @RequestParam BigDecimal unitPrice) {
+        return statisticsService.checkUnitPrice(name, unitPrice)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/counterparties")
+    public ResponseEntity<PriceStatisticsResponse> getCounterpartyStatistics(@RequestParam String name) {
+        return statisticsService.counterpartyStatistics(name)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
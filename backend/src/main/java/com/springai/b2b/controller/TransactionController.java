@@ -1,15 +1,34 @@
 package com.springai.b2b.controller;
 
+import com.springai.b2b.dto.BulkStatusUpdateRequest;
+import com.springai.b2b.dto.BulkStatusUpdateResponse;
+import com.springai.b2b.dto.DuplicateTransactionResponse;
 import com.springai.b2b.dto.TransactionRequest;
 import com.springai.b2b.dto.TransactionResponse;
+import com.springai.b2b.dto.TransactionSearchResponse;
+import com.springai.b2b.dto.TransactionSummaryResponse;
 import com.springai.b2b.entity.B2BTransaction;
+import com.springai.b2b.service.DuplicateTransactionException;
+import com.springai.b2b.service.InvalidStatusTransitionException;
+import com.springai.b2b.service.TransactionProjectionService;
 import com.springai.b2b.service.TransactionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -20,32 +39,171 @@ public class TransactionController {
 
     private final TransactionService transactionService;
 
+    @Value("${insights.stream.timeout-ms:120000}")
+    private long insightStreamTimeoutMs;
+
     @PostMapping
-    public ResponseEntity<TransactionResponse> createTransaction(@Valid @RequestBody TransactionRequest request) {
+    public ResponseEntity<?> createTransaction(
+            @Valid @RequestBody TransactionRequest request,
+            @RequestParam(defaultValue = "false") boolean allowDuplicates) {
         try {
-            TransactionResponse response = transactionService.createTransaction(request);
+            TransactionResponse response = transactionService.createTransaction(request, allowDuplicates);
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (DuplicateTransactionException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(DuplicateTransactionResponse.of(e));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<?> createTransactions(
+            @Valid @RequestBody List<@Valid TransactionRequest> requests,
+            @RequestParam(defaultValue = "false") boolean allowDuplicates) {
+        try {
+            List<TransactionResponse> responses = transactionService.createTransactions(requests, allowDuplicates);
+            return ResponseEntity.status(HttpStatus.CREATED).body(responses);
+        } catch (DuplicateTransactionException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(DuplicateTransactionResponse.of(e));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @GetMapping
-    public ResponseEntity<List<TransactionResponse>> getAllTransactions() {
-        List<TransactionResponse> transactions = transactionService.getAllTransactions();
-        return ResponseEntity.ok(transactions);
+    public ResponseEntity<List<TransactionResponse>> getAllTransactions(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            @RequestParam(defaultValue = "createdAt") String sort,
+            WebRequest webRequest) {
+        if (from == null && to == null && !includeArchived) {
+            // Checked before loading anything, so an unchanged list costs one aggregate query
+            String eTag = transactionService.getTransactionsETag(sort);
+            if (webRequest.checkNotModified(eTag)) {
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .eTag(eTag)
+                    .body("value".equals(sort)
+                            ? transactionService.getTransactionsByValue()
+                            : transactionService.getAllTransactions());
+        }
+        return ResponseEntity.ok(transactionService.getTransactions(from, to, includeArchived));
+    }
+
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getTransactionFields(
+            @RequestParam String fields,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "createdAt") String sort) {
+        try {
+            return ResponseEntity.ok(transactionService.getTransactionFields(
+                    TransactionProjectionService.parseFields(fields), from, to, "value".equals(sort)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<TransactionSummaryResponse> getTransactionSummary() {
+        return ResponseEntity.ok(transactionService.getTransactionSummary());
+    }
+
+    @GetMapping("/at-risk")
+    public ResponseEntity<List<TransactionResponse>> getAtRiskTransactions(
+            @RequestParam(defaultValue = "${sla.at-risk-hours:48}") int withinHours,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(transactionService.getAtRiskTransactions(
+                Math.max(0, withinHours), Math.max(1, Math.min(limit, 500))));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<TransactionSearchResponse> searchTransactions(
+            @RequestParam String q,
+            @RequestParam(required = false) B2BTransaction.TransactionStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(transactionService.searchTransactions(
+                    q, status, from, to, cursor, Math.max(1, Math.min(limit, 100))));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<TransactionResponse> getTransactionById(@PathVariable Long id) {
+    public ResponseEntity<TransactionResponse> getTransactionById(@PathVariable Long id, WebRequest webRequest) {
         try {
+            String eTag = transactionService.getTransactionETag(id);
+            if (eTag != null && webRequest.checkNotModified(eTag)) {
+                return null;
+            }
             TransactionResponse response = transactionService.getTransactionById(id);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .eTag(eTag)
+                    .body(response);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
 
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getTransactionFieldsById(@PathVariable Long id, @RequestParam String fields) {
+        List<String> selected;
+        try {
+            selected = TransactionProjectionService.parseFields(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(transactionService.getTransactionFieldsById(id, selected));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping(value = "/{id}/insights/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamTransactionInsights(@PathVariable Long id) {
+        Flux<String> tokens;
+        try {
+            tokens = transactionService.streamTransactionInsights(id);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+
+        SseEmitter emitter = new SseEmitter(insightStreamTimeoutMs);
+        Disposable subscription = tokens.subscribe(
+                token -> {
+                    try {
+                        emitter.send(SseEmitter.event().name("token").data(token));
+                    } catch (IOException e) {
+                        // Client went away; failing here cancels the upstream generation
+                        throw new UncheckedIOException(e);
+                    }
+                },
+                emitter::completeWithError,
+                () -> {
+                    try {
+                        emitter.send(SseEmitter.event().name("done").data(""));
+                        emitter.complete();
+                    } catch (IOException e) {
+                        emitter.completeWithError(e);
+                    }
+                });
+
+        emitter.onCompletion(subscription::dispose);
+        emitter.onTimeout(subscription::dispose);
+        emitter.onError(e -> subscription.dispose());
+
+        return ResponseEntity.ok(emitter);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<TransactionResponse> updateTransaction(
             @PathVariable Long id,
@@ -68,11 +226,23 @@ public class TransactionController {
             );
             TransactionResponse response = transactionService.updateTransactionStatus(id, status);
             return ResponseEntity.ok(response);
+        } catch (InvalidStatusTransitionException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    @PatchMapping("/status")
+    public ResponseEntity<BulkStatusUpdateResponse> bulkUpdateTransactionStatus(
+            @Valid @RequestBody BulkStatusUpdateRequest request) {
+        try {
+            return ResponseEntity.ok(transactionService.bulkUpdateStatus(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteTransaction(@PathVariable Long id) {
         try {
@@ -0,0 +1,35 @@
+package com.springai.b2b.controller;
+
+import com.springai.b2b.dto.RegisterRequest;
+import com.springai.b2b.dto.UserProvisioningResult;
+import com.springai.b2b.service.AuthService;
+import com.springai.b2b.service.DuplicateUserException;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/users")
+@RequiredArgsConstructor
+public class UserController {
+
+    private final AuthService authService;
+
+    @PostMapping("/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<UserProvisioningResult>> provisionUsers(
+            @Valid @RequestBody List<@Valid RegisterRequest> requests) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(authService.provisionUsers(requests));
+        } catch (DuplicateUserException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.springai.b2b.dto;
+
+import com.springai.b2b.entity.BatchJob;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchJobResponse {
+
+    private Long id;
+    private String type;
+    private BatchJob.Status status;
+    private boolean dryRun;
+    private Integer minRiskScore;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private int chunkSize;
+    private long totalRows;
+    private int plannedChunks;
+    private boolean planned;
+    private int completedChunks;
+    private int failedChunks;
+    private long processedRows;
+    private long updatedRows;
+    private long failedRows;
+    private long modelCalls;
+    private double percentComplete;
+    private String lastError;
+    private String createdBy;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,37 @@
+package com.springai.b2b.dto;
+
+import com.springai.b2b.entity.B2BTransaction;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Either {@code ids} or {@code filter} selects the transactions to move to {@code status}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusUpdateRequest {
+
+    @NotNull(message = "Target status is required")
+    private B2BTransaction.TransactionStatus status;
+
+    private List<Long> ids;
+
+    private Filter filter;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Filter {
+        private B2BTransaction.TransactionStatus status;
+        private LocalDateTime from;
+        private LocalDateTime to;
+        // nextAfterId of the previous response, to continue a filter that matched more than one request may change
+        private Long afterId;
+    }
+}
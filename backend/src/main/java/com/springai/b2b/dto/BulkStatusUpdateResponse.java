@@ -0,0 +1,41 @@
+package com.springai.b2b.dto;
+
+import com.springai.b2b.entity.B2BTransaction;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusUpdateResponse {
+
+    private B2BTransaction.TransactionStatus status;
+    private int updatedCount;
+    // Set when a filter matched more transactions than one request may change
+    private boolean hasMore;
+    // Pass back as filter.afterId for the next page; rows left unchanged would otherwise be matched again
+    private Long nextAfterId;
+    private List<Result> results;
+
+    public enum Outcome {
+        UPDATED,
+        UNCHANGED,
+        INVALID_TRANSITION,
+        NOT_FOUND,
+        CONFLICT
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private Long id;
+        private B2BTransaction.TransactionStatus previousStatus;
+        private Outcome outcome;
+    }
+}
@@ -0,0 +1,17 @@
+package com.springai.b2b.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompanyResponse {
+
+    private Long id;
+    private String name;
+    private List<String> aliases;
+}
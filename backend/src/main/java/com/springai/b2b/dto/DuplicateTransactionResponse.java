@@ -0,0 +1,40 @@
+package com.springai.b2b.dto;
+
+import com.springai.b2b.service.DuplicateDetectionService;
+import com.springai.b2b.service.DuplicateTransactionException;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The 409 body for a rejected duplicate, so the client can show or open the order it repeats and
+ * resubmit with {@code allowDuplicates=true} if the repeat is intended.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DuplicateTransactionResponse {
+
+    private String error;
+    private DuplicateDetectionService.Kind kind;
+    // Position of the rejected order in the request; always 0 for a single create
+    private int index;
+    // Id of the stored transaction it repeats, or null when it repeats an earlier item of the batch
+    private Long duplicateOf;
+    private Integer duplicateOfIndex;
+    // Estimated product-name similarity; 1.0 for exact repeats
+    private double similarity;
+
+    public static DuplicateTransactionResponse of(DuplicateTransactionException e) {
+        return DuplicateTransactionResponse.builder()
+                .error(e.getMessage())
+                .kind(e.getKind())
+                .index(e.getIndex())
+                .duplicateOf(e.getDuplicateOf())
+                .duplicateOfIndex(e.getDuplicateOfIndex())
+                .similarity(e.getSimilarity())
+                .build();
+    }
+}
@@ -0,0 +1,20 @@
+package com.springai.b2b.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FxRatesResponse {
+
+    private long version;
+    private String reportingCurrency;
+    private Map<String, BigDecimal> rates;
+}
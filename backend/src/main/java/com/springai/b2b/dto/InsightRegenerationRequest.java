@@ -0,0 +1,34 @@
+package com.springai.b2b.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Selects the transactions whose AI insights are regenerated. {@code minRiskScore} defaults to
+ * {@code risk.llm-threshold}, so rows that only ever carried a rule-based summary are left alone;
+ * rows scored before risk scoring existed are always included.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InsightRegenerationRequest {
+
+    private boolean dryRun;
+
+    @Min(value = 0, message = "Minimum risk score must be between 0 and 100")
+    @Max(value = 100, message = "Minimum risk score must be between 0 and 100")
+    private Integer minRiskScore;
+
+    private LocalDateTime from;
+
+    private LocalDateTime to;
+
+    @Min(value = 1, message = "Chunk size must be at least 1")
+    @Max(value = 10000, message = "Chunk size must be at most 10000")
+    private Integer chunkSize;
+}
@@ -0,0 +1,23 @@
+package com.springai.b2b.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceAnomalyResponse {
+
+    private String key;
+    private double unitPrice;
+    private double percentile;
+
+    @JsonProperty("zScore")
+    private double zScore;
+
+    private boolean unusual;
+}
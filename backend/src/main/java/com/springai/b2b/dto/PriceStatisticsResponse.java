@@ -0,0 +1,26 @@
+package com.springai.b2b.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceStatisticsResponse {
+
+    private String key;
+    private long orders;
+    private long failedOrders;
+    private long count;
+    private double mean;
+    private double stdDev;
+    private Double min;
+    private Double max;
+    private Double p10;
+    private Double p50;
+    private Double p90;
+    private Double p99;
+}
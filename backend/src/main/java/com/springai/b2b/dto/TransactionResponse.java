@@ -19,17 +19,22 @@ public class TransactionResponse {
     private String transactionId;
     private String buyerCompany;
     private String sellerCompany;
+    private Long buyerCompanyId;
+    private Long sellerCompanyId;
     private String productName;
     private String productDescription;
     private Integer quantity;
     private BigDecimal unitPrice;
     private BigDecimal totalAmount;
     private String currency;
+    private BigDecimal reportingAmount;
     private B2BTransaction.TransactionStatus status;
     private String paymentTerms;
     private LocalDateTime deliveryDate;
     private String notes;
     private String aiInsights;
+    private Integer riskScore;
+    private Long duplicateOf;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
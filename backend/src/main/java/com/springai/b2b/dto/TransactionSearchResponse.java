@@ -0,0 +1,18 @@
+package com.springai.b2b.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionSearchResponse {
+
+    private List<TransactionResponse> results;
+    private String nextCursor;
+}
@@ -0,0 +1,32 @@
+package com.springai.b2b.dto;
+
+import com.springai.b2b.entity.B2BTransaction;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionSummaryResponse {
+
+    private String reportingCurrency;
+    private long count;
+    private long unconvertedCount;
+    private BigDecimal totalAmount;
+    private List<StatusTotal> byStatus;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StatusTotal {
+        private B2BTransaction.TransactionStatus status;
+        private long count;
+        private BigDecimal totalAmount;
+    }
+}
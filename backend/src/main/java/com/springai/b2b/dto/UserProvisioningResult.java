@@ -0,0 +1,24 @@
+package com.springai.b2b.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserProvisioningResult {
+
+    private String username;
+    private String email;
+    private Long id;
+    private Status status;
+
+    public enum Status {
+        CREATED,
+        DUPLICATE_USERNAME,
+        DUPLICATE_EMAIL
+    }
+}
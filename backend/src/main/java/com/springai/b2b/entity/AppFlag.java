@@ -0,0 +1,25 @@
+package com.springai.b2b.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "app_flags")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppFlag {
+
+    @Id
+    @Column(name = "name")
+    private String name;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,38 @@
+package com.springai.b2b.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Who read or changed which transaction. Rows are appended in batches by
+ * {@link com.springai.b2b.service.AuditLogService} and never updated.
+ */
+@Entity
+@Table(name = "audit_log")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditLogEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "action", nullable = false)
+    private String action;
+
+    @Column(name = "transaction_id", nullable = false)
+    private Long transactionId;
+}
@@ -12,6 +12,11 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+/**
+ * Stored in a table range-partitioned by month on {@code created_at} (see
+ * {@link com.springai.b2b.service.TransactionPartitionService}); the database primary key is
+ * {@code (id, created_at)} and {@code transaction_id} is unique together with {@code created_at}.
+ */
 @Entity
 @Table(name = "b2b_transactions")
 @Data
@@ -25,7 +30,7 @@ public class B2BTransaction {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "transaction_id", unique = true, nullable = false)
+    @Column(name = "transaction_id", nullable = false)
     private String transactionId;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -38,6 +43,13 @@ public class B2BTransaction {
     @Column(name = "seller_company")
     private String sellerCompany;
 
+    // References companies(id); the foreign keys are added by CompanyDirectoryService
+    @Column(name = "buyer_company_id")
+    private Long buyerCompanyId;
+
+    @Column(name = "seller_company_id")
+    private Long sellerCompanyId;
+
     @Column(name = "product_name")
     private String productName;
 
@@ -57,6 +69,13 @@ public class B2BTransaction {
     @Builder.Default
     private String currency = "USD";
 
+    // totalAmount converted into the reporting currency with FX rate version fxRateVersion
+    @Column(name = "reporting_amount", precision = 19, scale = 2)
+    private BigDecimal reportingAmount;
+
+    @Column(name = "fx_rate_version")
+    private Long fxRateVersion;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "status")
     @Builder.Default
@@ -68,12 +87,23 @@ public class B2BTransaction {
     @Column(name = "delivery_date")
     private LocalDateTime deliveryDate;
 
+    // Set once the delivery date passes while the order is still open; cleared when the date changes
+    @Column(name = "sla_escalated_at")
+    private LocalDateTime slaEscalatedAt;
+
     @Column(name = "notes", columnDefinition = "TEXT")
     private String notes;
 
     @Column(name = "ai_insights", columnDefinition = "TEXT")
     private String aiInsights;
 
+    @Column(name = "risk_score")
+    private Integer riskScore;
+
+    // Set when the order was accepted although it looked like a resubmission of this transaction
+    @Column(name = "duplicate_of_id")
+    private Long duplicateOf;
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,114 @@
+package com.springai.b2b.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A resumable job over {@code b2b_transactions}. The job row holds the filter, the keyset cursor
+ * up to which chunks have been planned and the aggregated progress; the work itself is tracked
+ * per chunk in {@link BatchJobChunk}.
+ */
+@Entity
+@Table(name = "batch_jobs")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "type", nullable = false)
+    private String type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    @Builder.Default
+    private Status status = Status.RUNNING;
+
+    @Column(name = "dry_run", nullable = false)
+    private Boolean dryRun;
+
+    @Column(name = "min_risk_score")
+    private Integer minRiskScore;
+
+    @Column(name = "created_from")
+    private LocalDateTime createdFrom;
+
+    @Column(name = "created_to")
+    private LocalDateTime createdTo;
+
+    @Column(name = "chunk_size", nullable = false)
+    private Integer chunkSize;
+
+    @Column(name = "max_id", nullable = false)
+    private Long maxId;
+
+    @Column(name = "plan_cursor", nullable = false)
+    @Builder.Default
+    private Long planCursor = 0L;
+
+    @Column(name = "planned", nullable = false)
+    @Builder.Default
+    private Boolean planned = false;
+
+    @Column(name = "total_rows", nullable = false)
+    private Long totalRows;
+
+    @Column(name = "total_chunks", nullable = false)
+    @Builder.Default
+    private Integer totalChunks = 0;
+
+    @Column(name = "completed_chunks", nullable = false)
+    @Builder.Default
+    private Integer completedChunks = 0;
+
+    @Column(name = "failed_chunks", nullable = false)
+    @Builder.Default
+    private Integer failedChunks = 0;
+
+    @Column(name = "processed_rows", nullable = false)
+    @Builder.Default
+    private Long processedRows = 0L;
+
+    @Column(name = "updated_rows", nullable = false)
+    @Builder.Default
+    private Long updatedRows = 0L;
+
+    @Column(name = "failed_rows", nullable = false)
+    @Builder.Default
+    private Long failedRows = 0L;
+
+    @Column(name = "model_calls", nullable = false)
+    @Builder.Default
+    private Long modelCalls = 0L;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_by", nullable = false)
+    private String createdBy;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public enum Status {
+        RUNNING,
+        PAUSED,
+        COMPLETED,
+        CANCELLED
+    }
+}
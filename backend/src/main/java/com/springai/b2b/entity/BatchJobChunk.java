@@ -0,0 +1,71 @@
+package com.springai.b2b.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One keyset range {@code [start_id, end_id]} of a {@link BatchJob}. A chunk is the unit workers
+ * claim and the checkpoint a job resumes from: DONE chunks are never revisited, and RUNNING chunks
+ * whose lease has expired are picked up again by any node.
+ */
+@Entity
+@Table(name = "batch_job_chunks",
+        uniqueConstraints = @UniqueConstraint(name = "uk_batch_job_chunks_job_chunk", columnNames = {"job_id", "chunk_no"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchJobChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    @Column(name = "chunk_no", nullable = false)
+    private Integer chunkNo;
+
+    @Column(name = "start_id", nullable = false)
+    private Long startId;
+
+    @Column(name = "end_id", nullable = false)
+    private Long endId;
+
+    @Column(name = "row_count", nullable = false)
+    private Integer rowCount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    @Builder.Default
+    private Status status = Status.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public enum Status {
+        PENDING,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+}
@@ -0,0 +1,38 @@
+package com.springai.b2b.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Short-lived log of events fanned out to other nodes; rows are written by
+ * {@link com.springai.b2b.service.ClusterEventBus} and pruned after the retention window.
+ */
+@Entity
+@Table(name = "cluster_events")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "origin_node", nullable = false)
+    private String originNode;
+
+    @Column(name = "type", nullable = false)
+    private String type;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,40 @@
+package com.springai.b2b.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A counterparty in the company directory. {@code canonicalName} is the normalized key produced by
+ * {@link com.springai.b2b.service.CompanyDirectoryService#canonicalize(String)}; {@code name} is
+ * the spelling it was first seen with. {@code mergedInto} is set once the company has been merged
+ * into another; its row stays so transactions that still reference it keep resolving.
+ */
+@Entity
+@Table(name = "companies")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Company {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "canonical_name", nullable = false, unique = true)
+    private String canonicalName;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @Column(name = "merged_into")
+    private Long mergedInto;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,36 @@
+package com.springai.b2b.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Maps a canonicalized spelling to a company. Every company has an alias for its own canonical
+ * name, so lookups only ever go through this table.
+ */
+@Entity
+@Table(name = "company_aliases")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompanyAlias {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "alias", nullable = false, unique = true)
+    private String alias;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "company_id", nullable = false)
+    private Company company;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,45 @@
+package com.springai.b2b.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One currency's rate within a rate-set version: one unit of {@code currency} is worth
+ * {@code rate} units of the reporting currency. Versions are immutable; updates add a new version.
+ */
+@Entity
+@Table(name = "fx_rates", uniqueConstraints = @UniqueConstraint(columnNames = {"version", "currency"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FxRate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Column(name = "currency", nullable = false, length = 3)
+    private String currency;
+
+    @Column(name = "reporting_currency", nullable = false, length = 3)
+    private String reportingCurrency;
+
+    @Column(name = "rate", nullable = false, precision = 20, scale = 10)
+    private BigDecimal rate;
+
+    @Column(name = "source")
+    private String source;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,57 @@
+package com.springai.b2b.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Which transactions the {@code price_statistics} rows include: every id up to {@code watermarkId}
+ * except the {@code gapIds}, which had not committed when the watermark passed them, plus every
+ * change in {@code cluster_events} up to {@code clusterEventId}. {@code contributions} holds what
+ * recently changed orders added, so changes replayed past that id apply as differences.
+ */
+@Entity
+@Table(name = "price_statistics_checkpoint")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceStatisticsCheckpoint {
+
+    public static final String ID = "transactions";
+
+    @Id
+    @Column(name = "id")
+    private String id;
+
+    @Column(name = "watermark_id", nullable = false)
+    private Long watermarkId;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "gap_ids")
+    private Long[] gapIds;
+
+    @Column(name = "cluster_event_id")
+    private Long clusterEventId;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "contributions", columnDefinition = "jsonb")
+    private List<TrackedOrder> contributions;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    /**
+     * Keys as the statistics store them; {@code deleted} orders contribute nothing.
+     */
+    public record TrackedOrder(long id, boolean deleted, String product, String buyer, String seller,
+                               Double unitPrice, boolean failed) {
+    }
+}
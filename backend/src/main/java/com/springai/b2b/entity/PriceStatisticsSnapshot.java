@@ -0,0 +1,67 @@
+package com.springai.b2b.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "price_statistics")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceStatisticsSnapshot {
+
+    @Id
+    @Column(name = "id")
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "scope", nullable = false)
+    private Scope scope;
+
+    @Column(name = "stat_key", nullable = false)
+    private String statKey;
+
+    @Column(name = "orders")
+    private Long orders;
+
+    @Column(name = "failed_orders")
+    private Long failedOrders;
+
+    @Column(name = "sample_count")
+    private Long sampleCount;
+
+    @Column(name = "mean")
+    private Double mean;
+
+    @Column(name = "m2")
+    private Double m2;
+
+    @Column(name = "min_value")
+    private Double minValue;
+
+    @Column(name = "max_value")
+    private Double maxValue;
+
+    @Column(name = "digest", columnDefinition = "bytea")
+    private byte[] digest;
+
+    @Column(name = "removed_digest", columnDefinition = "bytea")
+    private byte[] removedDigest;
+
+    @Column(name = "watermark_id")
+    private Long watermarkId;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public enum Scope {
+        PRODUCT,
+        COUNTERPARTY
+    }
+}
@@ -0,0 +1,4 @@
+package com.springai.b2b.event;
+
+public record CompanyDirectoryChangedEvent(long companyId) {
+}
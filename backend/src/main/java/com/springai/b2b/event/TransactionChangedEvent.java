@@ -0,0 +1,82 @@
+package com.springai.b2b.event;
+
+import com.springai.b2b.entity.B2BTransaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record TransactionChangedEvent(
+        Type type,
+        Long id,
+        String transactionId,
+        Long userId,
+        String productName,
+        BigDecimal unitPrice,
+        Integer quantity,
+        String buyerCompany,
+        String sellerCompany,
+        B2BTransaction.TransactionStatus status,
+        LocalDateTime deliveryDate,
+        String previousProductName,
+        String previousBuyerCompany,
+        String previousSellerCompany,
+        BigDecimal previousUnitPrice,
+        B2BTransaction.TransactionStatus previousStatus
+) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        STATUS_CHANGED,
+        DELETED
+    }
+
+    public static TransactionChangedEvent created(B2BTransaction transaction) {
+        return of(Type.CREATED, transaction, null, null, null, null, null);
+    }
+
+    public static TransactionChangedEvent updated(B2BTransaction transaction, BigDecimal previousUnitPrice) {
+        return updated(transaction, transaction.getProductName(), transaction.getBuyerCompany(),
+                transaction.getSellerCompany(), previousUnitPrice);
+    }
+
+    public static TransactionChangedEvent updated(B2BTransaction transaction, String previousProductName,
+                                                  String previousBuyerCompany, String previousSellerCompany,
+                                                  BigDecimal previousUnitPrice) {
+        return of(Type.UPDATED, transaction, previousProductName, previousBuyerCompany, previousSellerCompany,
+                previousUnitPrice, transaction.getStatus());
+    }
+
+    public static TransactionChangedEvent statusChanged(B2BTransaction transaction, B2BTransaction.TransactionStatus previousStatus) {
+        return of(Type.STATUS_CHANGED, transaction, transaction.getProductName(), transaction.getBuyerCompany(),
+                transaction.getSellerCompany(), transaction.getUnitPrice(), previousStatus);
+    }
+
+    public static TransactionChangedEvent deleted(B2BTransaction transaction) {
+        return of(Type.DELETED, transaction, transaction.getProductName(), transaction.getBuyerCompany(),
+                transaction.getSellerCompany(), transaction.getUnitPrice(), transaction.getStatus());
+    }
+
+    private static TransactionChangedEvent of(Type type, B2BTransaction transaction, String previousProductName,
+                                              String previousBuyerCompany, String previousSellerCompany,
+                                              BigDecimal previousUnitPrice, B2BTransaction.TransactionStatus previousStatus) {
+        return new TransactionChangedEvent(
+                type,
+                transaction.getId(),
+                transaction.getTransactionId(),
+                transaction.getUser().getId(),
+                transaction.getProductName(),
+                transaction.getUnitPrice(),
+                transaction.getQuantity(),
+                transaction.getBuyerCompany(),
+                transaction.getSellerCompany(),
+                transaction.getStatus(),
+                transaction.getDeliveryDate(),
+                previousProductName,
+                previousBuyerCompany,
+                previousSellerCompany,
+                previousUnitPrice,
+                previousStatus
+        );
+    }
+}
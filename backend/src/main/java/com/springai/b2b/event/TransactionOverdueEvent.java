@@ -0,0 +1,19 @@
+package com.springai.b2b.event;
+
+import com.springai.b2b.entity.B2BTransaction;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published once per order when its delivery date passes while it is still open.
+ */
+public record TransactionOverdueEvent(
+        Long id,
+        String transactionId,
+        Long userId,
+        LocalDateTime deliveryDate,
+        B2BTransaction.TransactionStatus status
+) {
+
+    public static final String TYPE = "OVERDUE";
+}
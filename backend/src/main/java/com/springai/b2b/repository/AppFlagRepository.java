@@ -0,0 +1,30 @@
+package com.springai.b2b.repository;
+
+import com.springai.b2b.entity.AppFlag;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface AppFlagRepository extends JpaRepository<AppFlag, String> {
+
+    // Native updates without declared query spaces would evict the whole second-level cache
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "app_flags"))
+    @Query(value = "INSERT INTO app_flags (name, created_at) VALUES (?1, now()) ON CONFLICT (name) DO NOTHING",
+            nativeQuery = true)
+    int claim(String name);
+
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "app_flags"))
+    @Query(value = "INSERT INTO app_flags (name, created_at) SELECT ?1, now() WHERE EXISTS (SELECT 1 FROM users) "
+            + "ON CONFLICT (name) DO NOTHING", nativeQuery = true)
+    int claimIfUsersExist(String name);
+}
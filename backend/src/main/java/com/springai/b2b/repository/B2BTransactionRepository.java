@@ -2,11 +2,17 @@ package com.springai.b2b.repository;
 
 import com.springai.b2b.entity.B2BTransaction;
 import com.springai.b2b.entity.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,7 +23,10 @@ public interface B2BTransactionRepository extends JpaRepository<B2BTransaction,
 
     List<B2BTransaction> findByUser(User user);
 
-    List<B2BTransaction> findByUserOrderByCreatedAtDesc(User user);
+    // Bounded below on the partition key, so only the partitions from createdAt onwards are scanned
+    List<B2BTransaction> findByUserAndCreatedAtGreaterThanEqual(User user, LocalDateTime createdAt, Sort sort);
+
+    List<B2BTransaction> findByUserAndCreatedAtGreaterThanEqualOrderByCreatedAtDesc(User user, LocalDateTime createdAt);
 
     List<B2BTransaction> findByStatus(B2BTransaction.TransactionStatus status);
 
@@ -26,6 +35,75 @@ public interface B2BTransactionRepository extends JpaRepository<B2BTransaction,
     @Query("SELECT t FROM B2BTransaction t WHERE t.user = ?1 AND t.createdAt BETWEEN ?2 AND ?3")
     List<B2BTransaction> findByUserAndDateRange(User user, LocalDateTime startDate, LocalDateTime endDate);
 
-    @Query("SELECT t FROM B2BTransaction t WHERE t.buyerCompany = ?1 OR t.sellerCompany = ?1")
-    List<B2BTransaction> findByCompany(String companyName);
+    List<B2BTransaction> findByUserAndCreatedAtBetweenOrderByCreatedAtDesc(User user, LocalDateTime startDate, LocalDateTime endDate);
+
+    // Also matches companies merged into this one whose transactions have not been moved over yet
+    @Query("SELECT t FROM B2BTransaction t WHERE (t.buyerCompanyId IN (SELECT c.id FROM Company c WHERE c.id = ?1 OR c.mergedInto = ?1) "
+            + "OR t.sellerCompanyId IN (SELECT c.id FROM Company c WHERE c.id = ?1 OR c.mergedInto = ?1)) "
+            + "ORDER BY t.createdAt DESC")
+    List<B2BTransaction> findByCompanyId(Long companyId);
+
+    @Query("SELECT t FROM B2BTransaction t WHERE (t.buyerCompanyId IN (SELECT c.id FROM Company c WHERE c.id = ?1 OR c.mergedInto = ?1) "
+            + "OR t.sellerCompanyId IN (SELECT c.id FROM Company c WHERE c.id = ?1 OR c.mergedInto = ?1)) AND t.user = ?2 "
+            + "ORDER BY t.createdAt DESC")
+    List<B2BTransaction> findByCompanyIdAndUser(Long companyId, User user);
+
+    List<B2BTransaction> findByIdBetweenOrderByIdAsc(Long startId, Long endId);
+
+    @Query("SELECT t.status AS status, count(t) AS count, count(t.reportingAmount) AS convertedCount, "
+            + "sum(t.reportingAmount) AS total FROM B2BTransaction t WHERE t.user = ?1 GROUP BY t.status")
+    List<StatusTotalView> summarizeByStatus(User user);
+
+    // Bumped by statement triggers on b2b_transactions, see TransactionPartitionService
+    @Query(value = "SELECT coalesce((SELECT version FROM transaction_list_versions WHERE user_id = ?1), 0)", nativeQuery = true)
+    long findListVersion(Long userId);
+
+    @Query("SELECT t.user.id AS userId, t.updatedAt AS updatedAt, t.fxRateVersion AS fxRateVersion "
+            + "FROM B2BTransaction t WHERE t.id = ?1")
+    Optional<VersionView> findVersionById(Long id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE B2BTransaction t SET t.aiInsights = ?2, t.updatedAt = ?3 WHERE t.id = ?1")
+    int updateAiInsights(Long id, String aiInsights, LocalDateTime updatedAt);
+
+    @Query("SELECT t.id AS id, t.productName AS productName, t.unitPrice AS unitPrice, t.buyerCompany AS buyerCompany, "
+            + "t.sellerCompany AS sellerCompany, t.status AS status FROM B2BTransaction t WHERE t.id > ?1 ORDER BY t.id")
+    List<StatisticsView> findStatisticsViewsAfter(Long id, Limit limit);
+
+    @Query("SELECT t.id AS id, t.productName AS productName, t.unitPrice AS unitPrice, t.buyerCompany AS buyerCompany, "
+            + "t.sellerCompany AS sellerCompany, t.status AS status FROM B2BTransaction t WHERE t.id IN ?1")
+    List<StatisticsView> findStatisticsViewsByIdIn(Collection<Long> ids);
+
+    interface StatusTotalView {
+        B2BTransaction.TransactionStatus getStatus();
+
+        Long getCount();
+
+        Long getConvertedCount();
+
+        BigDecimal getTotal();
+    }
+
+    interface VersionView {
+        Long getUserId();
+
+        LocalDateTime getUpdatedAt();
+
+        Long getFxRateVersion();
+    }
+
+    interface StatisticsView {
+        Long getId();
+
+        String getProductName();
+
+        BigDecimal getUnitPrice();
+
+        String getBuyerCompany();
+
+        String getSellerCompany();
+
+        B2BTransaction.TransactionStatus getStatus();
+    }
 }
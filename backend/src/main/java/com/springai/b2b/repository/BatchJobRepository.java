@@ -0,0 +1,13 @@
+package com.springai.b2b.repository;
+
+import com.springai.b2b.entity.BatchJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BatchJobRepository extends JpaRepository<BatchJob, Long> {
+
+    List<BatchJob> findTop50ByOrderByIdDesc();
+}
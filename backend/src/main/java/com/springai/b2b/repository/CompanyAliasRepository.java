@@ -0,0 +1,21 @@
+package com.springai.b2b.repository;
+
+import com.springai.b2b.entity.CompanyAlias;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CompanyAliasRepository extends JpaRepository<CompanyAlias, Long> {
+
+    @Query("SELECT a.alias AS alias, a.company.id AS companyId FROM CompanyAlias a")
+    List<AliasView> findAllViews();
+
+    interface AliasView {
+        String getAlias();
+
+        Long getCompanyId();
+    }
+}
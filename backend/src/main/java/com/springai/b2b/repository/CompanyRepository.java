@@ -0,0 +1,16 @@
+package com.springai.b2b.repository;
+
+import com.springai.b2b.entity.Company;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CompanyRepository extends JpaRepository<Company, Long> {
+
+    // Companies merged into another keep their row but lose every alias
+    @Query("SELECT c FROM Company c WHERE EXISTS (SELECT a FROM CompanyAlias a WHERE a.company = c) ORDER BY c.name")
+    List<Company> findActive();
+}
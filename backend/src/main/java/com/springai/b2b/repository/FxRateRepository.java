@@ -0,0 +1,17 @@
+package com.springai.b2b.repository;
+
+import com.springai.b2b.entity.FxRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FxRateRepository extends JpaRepository<FxRate, Long> {
+
+    List<FxRate> findByVersion(Long version);
+
+    @Query("SELECT max(r.version) FROM FxRate r")
+    Long findLatestVersion();
+}
@@ -0,0 +1,9 @@
+package com.springai.b2b.repository;
+
+import com.springai.b2b.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+}
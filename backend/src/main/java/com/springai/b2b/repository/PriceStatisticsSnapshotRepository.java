@@ -0,0 +1,9 @@
+package com.springai.b2b.repository;
+
+import com.springai.b2b.entity.PriceStatisticsSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PriceStatisticsSnapshotRepository extends JpaRepository<PriceStatisticsSnapshot, String> {
+}
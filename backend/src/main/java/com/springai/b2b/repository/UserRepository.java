@@ -1,14 +1,21 @@
 package com.springai.b2b.repository;
 
 import com.springai.b2b.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
 
     Optional<User> findByEmail(String email);
@@ -18,4 +25,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByUsername(String username);
 
     boolean existsByEmail(String email);
+
+    @Query("SELECT u.username FROM User u WHERE u.username IN ?1")
+    List<String> findExistingUsernames(Collection<String> usernames);
+
+    @Query("SELECT u.email FROM User u WHERE u.email IN ?1")
+    List<String> findExistingEmails(Collection<String> emails);
 }
@@ -0,0 +1,131 @@
+package com.springai.b2b.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the delegate's hashing on a fixed-size pool with a bounded queue, so a login storm queues
+ * (and eventually sheds) work instead of pinning every request thread on BCrypt. Time spent
+ * waiting in the queue and hashing is recorded separately.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+    private final Timer queueTimer;
+    private final Timer matchTimer;
+    private final Timer encodeTimer;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long timeoutMs,
+                                  MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.timeoutMs = timeoutMs;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("password-hash-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.queueTimer = Timer.builder("auth.password.queue").description("Time spent waiting for a hashing thread")
+                .register(meterRegistry);
+        this.matchTimer = Timer.builder("auth.password.hash").tag("operation", "matches").register(meterRegistry);
+        this.encodeTimer = Timer.builder("auth.password.hash").tag("operation", "encode").register(meterRegistry);
+        this.rejected = Counter.builder("auth.password.rejected").description("Hashing requests shed under load")
+                .register(meterRegistry);
+        meterRegistry.gauge("auth.password.queue.size", executor, e -> e.getQueue().size());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword), encodeTimer);
+    }
+
+    /**
+     * Encodes several passwords on the hashing pool, with at most one task per hashing thread queued
+     * at a time, so a large batch takes turns with logins instead of filling the queue they share.
+     * Each hash is bounded by the same timeout as {@link #encode}; on failure the rest are cancelled.
+     */
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        List<String> hashes = new ArrayList<>(rawPasswords.size());
+        int window = executor.getCorePoolSize();
+        for (int from = 0; from < rawPasswords.size(); from += window) {
+            List<Future<String>> futures = new ArrayList<>(window);
+            try {
+                for (CharSequence rawPassword : rawPasswords.subList(from, Math.min(from + window, rawPasswords.size()))) {
+                    futures.add(submit(() -> delegate.encode(rawPassword), encodeTimer));
+                }
+                for (Future<String> future : futures) {
+                    hashes.add(await(future));
+                }
+            } catch (RuntimeException e) {
+                futures.forEach(future -> future.cancel(true));
+                throw e;
+            }
+        }
+        return hashes;
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword), matchTimer);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T run(Callable<T> task, Timer hashTimer) {
+        return await(submit(task, hashTimer));
+    }
+
+    private <T> Future<T> submit(Callable<T> task, Timer hashTimer) {
+        long submitted = System.nanoTime();
+        try {
+            return executor.submit(() -> {
+                queueTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                return hashTimer.recordCallable(task);
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException("Password hashing queue is full");
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new PasswordHashingBusyException("Password hashing timed out");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Interrupted while waiting for password hashing");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.springai.b2b.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+public class PasswordHashingBusyException extends AuthenticationServiceException {
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,175 @@
+package com.springai.b2b.security;
+
+import com.springai.b2b.config.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Per-user and per-company request quotas, applied after {@link JwtAuthenticationFilter} so the
+ * principal is known. Unauthenticated requests are not limited here. Rejected requests get a 429
+ * with {@code Retry-After} in whole seconds.
+ */
+@Component
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitProperties properties;
+    private final List<CompiledRule> rules;
+    private final RateLimiter limiter = new RateLimiter();
+    private final MeterRegistry meterRegistry;
+    private final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("rate-limit-evictor").daemon().factory());
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.rules = IntStream.range(0, properties.getRules().size())
+                .mapToObj(index -> CompiledRule.of(index, properties.getRules().get(index)))
+                .toList();
+
+        Gauge.builder("rate_limit.buckets", limiter, RateLimiter::size).register(meterRegistry);
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(properties.getIdleEvictionMs());
+        evictor.scheduleWithFixedDelay(() -> limiter.evictIdle(idleNanos),
+                properties.getIdleEvictionMs(), properties.getIdleEvictionMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        evictor.shutdownNow();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || rules.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserPrincipal principal)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Set<String> roles = principal.getRoles();
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        List<Limit> limits = new ArrayList<>(2);
+        boolean principalMatched = false;
+        boolean companyMatched = false;
+        for (CompiledRule rule : rules) {
+            boolean principalScope = rule.scope() == RateLimitProperties.Scope.PRINCIPAL;
+            if ((principalScope ? principalMatched : companyMatched) || !rule.matches(request.getMethod(), path, roles)) {
+                continue;
+            }
+
+            Object subject;
+            if (principalScope) {
+                principalMatched = true;
+                subject = principal.getId();
+            } else {
+                companyMatched = true;
+                if (!StringUtils.hasText(principal.getCompanyName())) {
+                    continue;
+                }
+                subject = principal.getCompanyName().strip().toLowerCase(Locale.ROOT);
+            }
+            limits.add(new Limit(rule, new BucketKey(rule.index(), subject)));
+        }
+
+        // Every scope is checked before any token is taken, so a request the company quota rejects
+        // does not also use up the user's quota
+        long waitNanos = 0;
+        CompiledRule limitedBy = null;
+        for (Limit limit : limits) {
+            long wait = limiter.waitNanos(limit.key(), limit.rule().emissionIntervalNanos(), limit.rule().burst());
+            if (wait > waitNanos) {
+                waitNanos = wait;
+                limitedBy = limit.rule();
+            }
+        }
+        for (int i = 0; limitedBy == null && i < limits.size(); i++) {
+            Limit limit = limits.get(i);
+            long wait = limiter.tryAcquire(limit.key(), limit.rule().emissionIntervalNanos(), limit.rule().burst());
+            if (wait > 0) {
+                // A concurrent request took the last token in between; give back the ones already taken
+                for (Limit acquired : limits.subList(0, i)) {
+                    limiter.release(acquired.key(), acquired.rule().emissionIntervalNanos());
+                }
+                waitNanos = wait;
+                limitedBy = limit.rule();
+            }
+        }
+
+        if (limitedBy != null) {
+            Counter.builder("rate_limit.rejected").tag("rule", limitedBy.name()).register(meterRegistry).increment();
+            log.debug("Rate limited user {} on {} {} by rule {}", principal.getId(), request.getMethod(),
+                    request.getRequestURI(), limitedBy.name());
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER,
+                    String.valueOf(Math.max(1, (waitNanos + 999_999_999) / 1_000_000_000)));
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private record BucketKey(int rule, Object subject) {
+    }
+
+    private record Limit(CompiledRule rule, BucketKey key) {
+    }
+
+    private record CompiledRule(int index, String name, RateLimitProperties.Scope scope, String method,
+                                PathPattern path, String role, long emissionIntervalNanos, int burst) {
+
+        static CompiledRule of(int index, RateLimitProperties.Rule rule) {
+            if (rule.getPermitsPerSecond() <= 0 || rule.getBurst() < 1) {
+                throw new IllegalArgumentException("Rate limit rule " + rule.getName()
+                        + " needs permits-per-second > 0 and burst >= 1");
+            }
+            return new CompiledRule(
+                    index,
+                    rule.getName(),
+                    rule.getScope(),
+                    StringUtils.hasText(rule.getMethod()) ? rule.getMethod().toUpperCase(Locale.ROOT) : null,
+                    PathPatternParser.defaultInstance.parse(rule.getPath()),
+                    StringUtils.hasText(rule.getRole()) ? rule.getRole() : null,
+                    (long) (1_000_000_000 / rule.getPermitsPerSecond()),
+                    rule.getBurst());
+        }
+
+        boolean matches(String requestMethod, PathContainer requestPath, Set<String> roles) {
+            return (method == null || method.equals(requestMethod))
+                    && path.matches(requestPath)
+                    && (role == null || roles.contains(role));
+        }
+    }
+}
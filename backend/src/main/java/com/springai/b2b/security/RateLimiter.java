@@ -0,0 +1,76 @@
+package com.springai.b2b.security;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets kept as a single "theoretical arrival time" per key (GCRA), so acquiring is one
+ * map lookup plus a CAS loop with no locks; {@link ConcurrentHashMap} stripes the inserts. A bucket
+ * whose arrival time is in the past is full again, which is what makes idle eviction safe.
+ */
+public class RateLimiter {
+
+    private final ConcurrentHashMap<Object, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * @param emissionIntervalNanos nanoseconds per token, i.e. 1e9 / refill rate per second
+     * @param burst                 bucket capacity
+     * @return 0 when a token was taken, otherwise the nanoseconds until one is available
+     */
+    public long tryAcquire(Object key, long emissionIntervalNanos, int burst) {
+        long now = System.nanoTime();
+        AtomicLong arrival = buckets.get(key);
+        if (arrival == null) {
+            arrival = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        long tolerance = emissionIntervalNanos * burst;
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, now) + emissionIntervalNanos;
+            long wait = next - tolerance - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Like {@link #tryAcquire} but without taking the token, so a request limited by several
+     * buckets can check all of them before consuming from any. Does not create a bucket.
+     */
+    public long waitNanos(Object key, long emissionIntervalNanos, int burst) {
+        AtomicLong arrival = buckets.get(key);
+        if (arrival == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        return Math.max(0, Math.max(arrival.get(), now) + emissionIntervalNanos - emissionIntervalNanos * burst - now);
+    }
+
+    /**
+     * Gives back a token taken by {@link #tryAcquire} for a request that was rejected by another bucket.
+     */
+    public void release(Object key, long emissionIntervalNanos) {
+        AtomicLong arrival = buckets.get(key);
+        if (arrival != null) {
+            arrival.addAndGet(-emissionIntervalNanos);
+        }
+    }
+
+    /**
+     * Drops buckets that have been full for at least {@code idleNanos}.
+     */
+    public int evictIdle(long idleNanos) {
+        long cutoff = System.nanoTime() - idleNanos;
+        int before = buckets.size();
+        buckets.values().removeIf(arrival -> arrival.get() - cutoff < 0);
+        return before - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,244 @@
+package com.springai.b2b.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springai.b2b.entity.B2BTransaction;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Slf4j
+public class AIInsightService {
+
+    static final String INSIGHTS_UNAVAILABLE = "AI insights unavailable. Please configure your OpenAI API key.";
+    static final TokenCountEstimator TOKENIZER = new JTokkitTokenCountEstimator();
+
+    private final ChatClient.Builder chatClientBuilder;
+    private final ObjectMapper objectMapper;
+    private final TransactionHistoryRetriever historyRetriever;
+    private final TransactionStatisticsService statisticsService;
+    private final MeterRegistry meterRegistry;
+
+    // Resolved on the first insight request, which lets the fast-startup profile defer the OpenAI client
+    public AIInsightService(@Lazy ChatClient.Builder chatClientBuilder,
+                            ObjectMapper objectMapper,
+                            TransactionHistoryRetriever historyRetriever,
+                            TransactionStatisticsService statisticsService,
+                            MeterRegistry meterRegistry) {
+        this.chatClientBuilder = chatClientBuilder;
+        this.objectMapper = objectMapper;
+        this.historyRetriever = historyRetriever;
+        this.statisticsService = statisticsService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public String generateAIInsights(B2BTransaction transaction) {
+        try {
+            String history = historyRetriever.similarTransactionsContext(transaction);
+            Prompt prompt = buildPrompt(transaction, history);
+            ChatClient chatClient = chatClientBuilder.build();
+            long start = System.nanoTime();
+            ChatResponse response = chatClient.prompt(prompt).call().chatResponse();
+            recordUsage(transaction.getTransactionId(), prompt.getContents(), !history.isEmpty(), response,
+                    System.nanoTime() - start);
+            return response.getResult().getOutput().getText();
+        } catch (Exception e) {
+            return INSIGHTS_UNAVAILABLE;
+        }
+    }
+
+    public Flux<String> streamAIInsights(B2BTransaction transaction) {
+        return Flux.defer(() -> {
+            ChatClient chatClient = chatClientBuilder.build();
+            return chatClient.prompt(buildPrompt(transaction, historyRetriever.similarTransactionsContext(transaction)))
+                    .stream().content();
+        });
+    }
+
+    Prompt buildPrompt(B2BTransaction transaction, String history) {
+        String priceContext = statisticsService.priceContext(transaction);
+
+        String promptText = """
+            Analyze this B2B transaction in 3-4 sentences covering risk, pricing and key recommendations.
+
+            Transaction: {quantity} x {product} at {unitPrice} {currency} (total {totalAmount} {currency}), \
+            buyer {buyer}, seller {seller}, payment terms {paymentTerms}
+            {priceContext}{history}""";
+
+        PromptTemplate promptTemplate = new PromptTemplate(promptText);
+        Prompt prompt = promptTemplate.create(Map.of(
+                "buyer", transaction.getBuyerCompany(),
+                "seller", transaction.getSellerCompany(),
+                "product", transaction.getProductName(),
+                "quantity", transaction.getQuantity().toString(),
+                "unitPrice", transaction.getUnitPrice().toString(),
+                "totalAmount", transaction.getTotalAmount().toString(),
+                "currency", transaction.getCurrency(),
+                "paymentTerms", transaction.getPaymentTerms() != null ? transaction.getPaymentTerms() : "N/A",
+                "priceContext", priceContext,
+                "history", history.isEmpty() ? "" : """
+
+                    Similar past transactions for this product and counterparty (quantity @ unit price, parties, terms, outcome):
+                    %s
+                    Compare against this history instead of giving generic pricing commentary.
+                    """.formatted(history)
+        ));
+
+        return prompt;
+    }
+
+    /**
+     * Publishes {@code insights.prompt.tokens} and {@code insights.model.latency}, tagged with
+     * whether retrieved history was included, so the cost and benefit of retrieval can be compared.
+     * Token counts come from the model's usage report, or from the cl100k tokenizer when the model
+     * reports none (as the stub models do).
+     */
+    private void recordUsage(String subject, String promptText, boolean withHistory, ChatResponse response, long latencyNanos) {
+        String retrieval = withHistory ? "included" : "none";
+        Usage usage = response.getMetadata() != null ? response.getMetadata().getUsage() : null;
+        Integer reported = usage != null ? usage.getPromptTokens() : null;
+        int promptTokens = reported != null && reported > 0 ? reported : TOKENIZER.estimate(promptText);
+
+        DistributionSummary.builder("insights.prompt.tokens").tag("history", retrieval).register(meterRegistry)
+                .record(promptTokens);
+        Timer.builder("insights.model.latency").tag("history", retrieval).register(meterRegistry)
+                .record(latencyNanos, TimeUnit.NANOSECONDS);
+        log.debug("Insight for {}: {} prompt tokens, history {}, {} ms", subject,
+                promptTokens, retrieval, TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+    }
+
+    /**
+     * Generates insights for several transactions with a single model call. The model is asked for
+     * a JSON array keyed by position; any transaction missing from a parsable reply, or every
+     * transaction when the reply cannot be parsed, falls back to an individual call. Each
+     * transaction carries the same price and history context a single call would give it.
+     */
+    public List<String> generateAIInsights(List<B2BTransaction> transactions) {
+        if (transactions.isEmpty()) {
+            return List.of();
+        }
+        if (transactions.size() == 1) {
+            return List.of(generateAIInsights(transactions.get(0)));
+        }
+
+        long start = System.nanoTime();
+        Map<Integer, String> byRef = Map.of();
+        try {
+            List<String> histories = transactions.stream().map(historyRetriever::similarTransactionsContext).toList();
+            String prompt = buildBatchPrompt(transactions, histories);
+            ChatClient chatClient = chatClientBuilder.build();
+            long callStart = System.nanoTime();
+            ChatResponse response = chatClient.prompt().user(prompt).call().chatResponse();
+            recordUsage(transactions.size() + " transactions", prompt, histories.stream().anyMatch(h -> !h.isEmpty()),
+                    response, System.nanoTime() - callStart);
+            byRef = parseBatchResponse(response.getResult().getOutput().getText());
+        } catch (Exception e) {
+            log.warn("Batched insight request for {} transactions failed, falling back to single calls: {}",
+                    transactions.size(), e.getMessage());
+        }
+
+        List<String> insights = new ArrayList<>(transactions.size());
+        int fallbacks = 0;
+        for (int i = 0; i < transactions.size(); i++) {
+            String insight = byRef.get(i + 1);
+            if (insight == null || insight.isBlank()) {
+                insight = generateAIInsights(transactions.get(i));
+                fallbacks++;
+            }
+            insights.add(insight);
+        }
+
+        log.debug("Generated insights for {} transactions with {} model call(s) in {} ms",
+                transactions.size(), 1 + fallbacks, (System.nanoTime() - start) / 1_000_000);
+        return insights;
+    }
+
+    String buildBatchPrompt(List<B2BTransaction> transactions, List<String> histories) {
+        StringBuilder prompt = new StringBuilder("""
+                Analyze each of the following B2B transactions and provide brief insights for each one.
+
+                For every transaction cover:
+                1. Risk assessment
+                2. Pricing analysis
+                3. Key recommendations
+
+                Keep each analysis concise (3-4 sentences).
+
+                Respond ONLY with a JSON array containing one object per transaction, in the form
+                [{"ref": 1, "insights": "..."}, {"ref": 2, "insights": "..."}]
+
+                Transactions:
+                """);
+
+        // Transactions for the same product and counterparties usually retrieve the same history,
+        // which is written out once and referenced from the others
+        Map<String, Integer> historyRefs = new HashMap<>();
+        for (int i = 0; i < transactions.size(); i++) {
+            B2BTransaction transaction = transactions.get(i);
+            prompt.append('[').append(i + 1).append("] ")
+                    .append("Buyer: ").append(transaction.getBuyerCompany())
+                    .append(" | Seller: ").append(transaction.getSellerCompany())
+                    .append(" | Product: ").append(transaction.getProductName())
+                    .append(" | Quantity: ").append(transaction.getQuantity())
+                    .append(" | Unit Price: ").append(transaction.getUnitPrice()).append(' ').append(transaction.getCurrency())
+                    .append(" | Total Amount: ").append(transaction.getTotalAmount()).append(' ').append(transaction.getCurrency())
+                    .append(" | Payment Terms: ").append(transaction.getPaymentTerms() != null ? transaction.getPaymentTerms() : "N/A")
+                    .append('\n');
+
+            String priceContext = statisticsService.priceContext(transaction);
+            if (!priceContext.isEmpty()) {
+                prompt.append("    ").append(priceContext).append('\n');
+            }
+            String history = histories.get(i);
+            if (!history.isEmpty()) {
+                Integer sameAs = historyRefs.putIfAbsent(history, i + 1);
+                if (sameAs != null) {
+                    prompt.append("    Similar past transactions: as for [").append(sameAs).append("]\n");
+                } else {
+                    prompt.append("    Similar past transactions (quantity @ unit price, parties, terms, outcome):\n")
+                            .append(history.strip().indent(6));
+                }
+            }
+        }
+        if (!historyRefs.isEmpty()) {
+            prompt.append("\nCompare each transaction against its own history instead of giving generic pricing commentary.\n");
+        }
+        return prompt.toString();
+    }
+
+    private Map<Integer, String> parseBatchResponse(String content) throws Exception {
+        String json = content.strip();
+        int start = json.indexOf('[');
+        int end = json.lastIndexOf(']');
+        if (start < 0 || end <= start) {
+            throw new IllegalArgumentException("No JSON array in model response");
+        }
+
+        JsonNode root = objectMapper.readTree(json.substring(start, end + 1));
+        Map<Integer, String> byRef = new HashMap<>();
+        for (JsonNode node : root) {
+            if (node.hasNonNull("ref") && node.hasNonNull("insights")) {
+                byRef.put(node.get("ref").asInt(), node.get("insights").asText());
+            }
+        }
+        return byRef;
+    }
+}
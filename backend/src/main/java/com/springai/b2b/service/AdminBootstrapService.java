@@ -0,0 +1,54 @@
+package com.springai.b2b.service;
+
+import com.springai.b2b.repository.AppFlagRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Decides, once per database, which registration becomes the first admin. The decision is a
+ * single-row insert into {@code app_flags} that only one transaction can win; after that it is
+ * answered from memory without touching the database.
+ */
+@Service
+@RequiredArgsConstructor
+public class AdminBootstrapService {
+
+    static final String ADMIN_BOOTSTRAPPED = "admin_bootstrapped";
+
+    private final AppFlagRepository appFlagRepository;
+    private final AtomicBoolean bootstrapped = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        // Databases created before the flag existed already have their admin
+        appFlagRepository.claimIfUsersExist(ADMIN_BOOTSTRAPPED);
+        bootstrapped.set(appFlagRepository.existsById(ADMIN_BOOTSTRAPPED));
+    }
+
+    /**
+     * Must be called inside the registration transaction so a failed registration releases the claim.
+     */
+    public boolean claimFirstAdmin() {
+        if (bootstrapped.get()) {
+            return false;
+        }
+
+        if (appFlagRepository.claim(ADMIN_BOOTSTRAPPED) == 0) {
+            bootstrapped.set(true);
+            return false;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bootstrapped.set(true);
+            }
+        });
+        return true;
+    }
+}
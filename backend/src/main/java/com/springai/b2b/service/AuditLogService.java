@@ -0,0 +1,268 @@
+package com.springai.b2b.service;
+
+import com.springai.b2b.event.TransactionChangedEvent;
+import com.springai.b2b.security.UserPrincipal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records who read or changed which transaction without touching the request's database work.
+ * Request threads publish into an {@link AuditRingBuffer}; a single writer thread drains it in
+ * batches into {@code audit_log} with {@code COPY}, or into daily CSV files under
+ * {@code audit.dir}. A batch the database rejects is written to the files instead, so it is not
+ * lost. When the buffer is full, records are dropped ({@code audit.dropped}) or, with
+ * {@code overflow: BLOCK}, the caller waits up to {@code block-timeout-ms} for space.
+ */
+@Service
+@Slf4j
+public class AuditLogService {
+
+    private static final String COPY_SQL = "COPY audit_log (occurred_at, user_id, action, transaction_id) "
+            + "FROM STDIN WITH (FORMAT csv)";
+    private static final long NO_USER = 0;
+
+    public enum Action {
+        READ,
+        CREATE,
+        UPDATE,
+        STATUS_CHANGE,
+        DELETE
+    }
+
+    public enum Sink {
+        DATABASE,
+        FILE
+    }
+
+    public enum Overflow {
+        DROP,
+        BLOCK
+    }
+
+    private static final Action[] ACTIONS = Action.values();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditRingBuffer buffer;
+    private final AuditRingBuffer.Batch batch;
+    private final boolean enabled;
+    private final Sink sink;
+    private final Overflow overflow;
+    private final long blockTimeoutNanos;
+    private final long flushIntervalNanos;
+    private final Path dir;
+    private final Counter dropped;
+    private final Counter written;
+    private final Counter fallbacks;
+    private final Timer flushes;
+
+    private volatile boolean running;
+    private Thread writer;
+    private BufferedWriter file;
+    private LocalDate fileDate;
+
+    public AuditLogService(JdbcTemplate jdbcTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${audit.enabled:true}") boolean enabled,
+                           @Value("${audit.capacity:65536}") int capacity,
+                           @Value("${audit.batch-size:1000}") int batchSize,
+                           @Value("${audit.flush-interval-ms:200}") long flushIntervalMs,
+                           @Value("${audit.sink:DATABASE}") Sink sink,
+                           @Value("${audit.overflow:DROP}") Overflow overflow,
+                           @Value("${audit.block-timeout-ms:5}") long blockTimeoutMs,
+                           @Value("${audit.dir:./audit}") String dir) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.buffer = new AuditRingBuffer(capacity);
+        this.batch = new AuditRingBuffer.Batch(Math.max(1, batchSize));
+        this.enabled = enabled;
+        this.sink = sink;
+        this.overflow = overflow;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.dir = Path.of(dir);
+
+        Gauge.builder("audit.backlog", buffer, AuditRingBuffer::size).register(meterRegistry);
+        this.dropped = Counter.builder("audit.dropped").register(meterRegistry);
+        this.written = Counter.builder("audit.written").register(meterRegistry);
+        this.fallbacks = Counter.builder("audit.fallback").description("Batches written to file after a database failure")
+                .register(meterRegistry);
+        this.flushes = Timer.builder("audit.flush").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (sink == Sink.DATABASE) {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_audit_log_transaction ON audit_log (transaction_id, occurred_at)");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_audit_log_user ON audit_log (user_id, occurred_at)");
+        }
+        running = true;
+        writer = Thread.ofPlatform().name("audit-writer").daemon().start(this::drainLoop);
+        log.info("Audit log writing to {} (capacity {}, overflow {})",
+                sink == Sink.DATABASE ? "audit_log" : dir.toAbsolutePath(), buffer.capacity(), overflow);
+    }
+
+    // Drains whatever is still buffered before the datasource is closed
+    @PreDestroy
+    public void stop() {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param userId null for changes made without an authenticated user
+     */
+    public void record(Action action, Long userId, long transactionId) {
+        if (!enabled) {
+            return;
+        }
+        long timestamp = System.currentTimeMillis();
+        long user = userId != null ? userId : NO_USER;
+        byte code = (byte) action.ordinal();
+        if (buffer.tryPublish(timestamp, user, code, transactionId)) {
+            return;
+        }
+        if (overflow == Overflow.BLOCK) {
+            long deadline = System.nanoTime() + blockTimeoutNanos;
+            while (System.nanoTime() - deadline < 0) {
+                LockSupport.parkNanos(10_000);
+                if (buffer.tryPublish(timestamp, user, code, transactionId)) {
+                    return;
+                }
+            }
+        }
+        dropped.increment();
+    }
+
+    // Only committed local changes; replays from other nodes were audited where they happened
+    @TransactionalEventListener
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        if (ClusterEventBus.isDispatchingRemote()) {
+            return;
+        }
+        Action action = switch (event.type()) {
+            case CREATED -> Action.CREATE;
+            case UPDATED -> Action.UPDATE;
+            case STATUS_CHANGED -> Action.STATUS_CHANGE;
+            case DELETED -> Action.DELETE;
+        };
+        record(action, currentUserId(), event.id());
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal
+                ? principal.getId() : null;
+    }
+
+    private void drainLoop() {
+        while (true) {
+            int count = buffer.drain(batch);
+            if (count == 0) {
+                if (!running) {
+                    break;
+                }
+                LockSupport.parkNanos(flushIntervalNanos);
+                continue;
+            }
+            long start = System.nanoTime();
+            write(toCsv(batch));
+            written.increment(count);
+            flushes.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        closeFile();
+    }
+
+    private void write(String csv) {
+        if (sink == Sink.DATABASE) {
+            try {
+                jdbcTemplate.execute((ConnectionCallback<Long>) connection ->
+                        connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL, new StringReader(csv)));
+                return;
+            } catch (Exception e) {
+                fallbacks.increment();
+                log.warn("Audit batch could not be written to audit_log, appending to {}: {}", dir, e.getMessage());
+            }
+        }
+        appendToFile(csv);
+    }
+
+    private void appendToFile(String csv) {
+        try {
+            LocalDate today = LocalDate.now();
+            if (file == null || !today.equals(fileDate)) {
+                closeFile();
+                Files.createDirectories(dir);
+                file = Files.newBufferedWriter(dir.resolve("audit-" + today + ".csv"), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                fileDate = today;
+            }
+            file.write(csv);
+            file.flush();
+        } catch (IOException e) {
+            log.error("Audit batch lost, could not append to {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private void closeFile() {
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                log.warn("Could not close audit file: {}", e.getMessage());
+            }
+            file = null;
+        }
+    }
+
+    private static String toCsv(AuditRingBuffer.Batch batch) {
+        StringBuilder csv = new StringBuilder(batch.size * 48);
+        for (int i = 0; i < batch.size; i++) {
+            csv.append(LocalDateTime.ofInstant(Instant.ofEpochMilli(batch.timestamps[i]), ZoneId.systemDefault()))
+                    .append(',');
+            if (batch.userIds[i] != NO_USER) {
+                csv.append(batch.userIds[i]);
+            }
+            csv.append(',').append(ACTIONS[batch.actions[i]].name())
+                    .append(',').append(batch.transactionIds[i])
+                    .append('\n');
+        }
+        return csv.toString();
+    }
+}
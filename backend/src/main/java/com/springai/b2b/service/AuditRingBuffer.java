@@ -0,0 +1,115 @@
+package com.springai.b2b.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded multi-producer, single-consumer queue of audit records, stored column-wise in arrays
+ * allocated up front so publishing allocates nothing and takes no lock. A producer reserves a
+ * sequence with a CAS on {@code tail}, fills the slot and then publishes it by storing the
+ * sequence in {@code published} with release semantics; the consumer reads slots in sequence
+ * order, stops at the first one not yet published, and frees what it copied by advancing
+ * {@code head}.
+ */
+final class AuditRingBuffer {
+
+    private final int capacity;
+    private final int mask;
+    private final long[] timestamps;
+    private final long[] userIds;
+    private final long[] transactionIds;
+    private final byte[] actions;
+    private final AtomicLongArray published;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    AuditRingBuffer(int requestedCapacity) {
+        this.capacity = 1 << (32 - Integer.numberOfLeadingZeros(Math.max(2, requestedCapacity) - 1));
+        this.mask = capacity - 1;
+        this.timestamps = new long[capacity];
+        this.userIds = new long[capacity];
+        this.transactionIds = new long[capacity];
+        this.actions = new byte[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    /**
+     * @return false when the buffer is full
+     */
+    boolean tryPublish(long timestamp, long userId, byte action, long transactionId) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head.get() >= capacity) {
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+
+        int index = (int) sequence & mask;
+        timestamps[index] = timestamp;
+        userIds[index] = userId;
+        transactionIds[index] = transactionId;
+        actions[index] = action;
+        published.setRelease(index, sequence);
+        return true;
+    }
+
+    /**
+     * Copies up to {@code batch.capacity()} published records into {@code batch}. Consumer thread only.
+     */
+    int drain(Batch batch) {
+        long first = head.get();
+        int count = 0;
+        while (count < batch.capacity()) {
+            long sequence = first + count;
+            int index = (int) sequence & mask;
+            if (published.getAcquire(index) != sequence) {
+                break;
+            }
+            batch.timestamps[count] = timestamps[index];
+            batch.userIds[count] = userIds[index];
+            batch.transactionIds[count] = transactionIds[index];
+            batch.actions[count] = actions[index];
+            count++;
+        }
+        batch.size = count;
+        if (count > 0) {
+            head.setRelease(first + count);
+        }
+        return count;
+    }
+
+    long size() {
+        return tail.get() - head.get();
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Consumer-side copy of drained records, reused across drains.
+     */
+    static final class Batch {
+
+        final long[] timestamps;
+        final long[] userIds;
+        final long[] transactionIds;
+        final byte[] actions;
+        int size;
+
+        Batch(int capacity) {
+            this.timestamps = new long[capacity];
+            this.userIds = new long[capacity];
+            this.transactionIds = new long[capacity];
+            this.actions = new byte[capacity];
+        }
+
+        int capacity() {
+            return timestamps.length;
+        }
+    }
+}
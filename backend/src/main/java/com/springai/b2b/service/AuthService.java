@@ -2,78 +2,65 @@ package com.springai.b2b.service;
 
 import com.springai.b2b.dto.*;
 import com.springai.b2b.entity.User;
+import com.springai.b2b.event.UserChangedEvent;
 import com.springai.b2b.repository.UserRepository;
+import com.springai.b2b.security.BoundedPasswordEncoder;
 import com.springai.b2b.security.JwtTokenProvider;
+import com.springai.b2b.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.Set;
-import java.util.UUID;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final BoundedPasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtTokenProvider tokenProvider;
+    private final AdminBootstrapService adminBootstrapService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public AuthResponse register(RegisterRequest request) {
+        // Checked first for a precise error and to skip hashing; the unique indexes still catch a
+        // concurrent registration of the same name
         if (userRepository.existsByUsername(request.getUsername())) {
-            throw new RuntimeException("Username already exists");
+            throw new DuplicateUserException("Username already exists");
         }
-
         if (userRepository.existsByEmail(request.getEmail())) {
-            throw new RuntimeException("Email already exists");
+            throw new DuplicateUserException("Email already exists");
         }
+        User user = newUser(request, passwordEncoder.encode(request.getPassword()));
 
-        User user = User.builder()
-                .username(request.getUsername())
-                .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
-                .firstName(request.getFirstName())
-                .lastName(request.getLastName())
-                .phoneNumber(request.getPhoneNumber())
-                .companyName(request.getCompanyName())
-                .roles(Set.of("USER"))
-                .isActive(true)
-                .isEmailVerified(false)
-                .build();
-
-        // If this is the first user, make them an admin
-        if (userRepository.count() == 0) {
+        // The first registration ever claims the admin flag; a failed insert rolls the claim back
+        if (adminBootstrapService.claimFirstAdmin()) {
             user.setRoles(Set.of("ADMIN", "USER"));
         }
 
-        user = userRepository.save(user);
+        try {
+            user = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateUser();
+        }
 
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
-        );
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId()));
 
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        String token = tokenProvider.generateToken(authentication);
+        UserPrincipal principal = UserPrincipal.create(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
 
-        return AuthResponse.builder()
-                .token(token)
-                .type("Bearer")
-                .id(user.getId())
-                .username(user.getUsername())
-                .email(user.getEmail())
-                .firstName(user.getFirstName())
-                .lastName(user.getLastName())
-                .companyName(user.getCompanyName())
-                .roles(user.getRoles())
-                .build();
+        return toAuthResponse(tokenProvider.generateToken(principal), principal);
     }
 
     public AuthResponse login(LoginRequest request) {
@@ -84,20 +71,63 @@ public class AuthService {
         SecurityContextHolder.getContext().setAuthentication(authentication);
         String token = tokenProvider.generateToken(authentication);
 
-        User user = userRepository.findByUsername(request.getUsername())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return toAuthResponse(token, (UserPrincipal) authentication.getPrincipal());
+    }
 
-        return AuthResponse.builder()
-                .token(token)
-                .type("Bearer")
-                .id(user.getId())
-                .username(user.getUsername())
-                .email(user.getEmail())
-                .firstName(user.getFirstName())
-                .lastName(user.getLastName())
-                .companyName(user.getCompanyName())
-                .roles(user.getRoles())
-                .build();
+    /**
+     * Creates many USER accounts in one transaction. Existing usernames/emails are found with two
+     * indexed IN queries and skipped, as are repeats within the request; passwords are hashed in
+     * parallel on the bounded hashing pool, taking turns with logins.
+     */
+    @Transactional
+    public List<UserProvisioningResult> provisionUsers(List<RegisterRequest> requests) {
+        Set<String> usernames = new HashSet<>(userRepository.findExistingUsernames(
+                requests.stream().map(RegisterRequest::getUsername).toList()));
+        Set<String> emails = new HashSet<>(userRepository.findExistingEmails(
+                requests.stream().map(RegisterRequest::getEmail).toList()));
+
+        List<UserProvisioningResult> results = new ArrayList<>(requests.size());
+        List<RegisterRequest> accepted = new ArrayList<>();
+        for (RegisterRequest request : requests) {
+            UserProvisioningResult.Status status;
+            if (!usernames.add(request.getUsername())) {
+                status = UserProvisioningResult.Status.DUPLICATE_USERNAME;
+            } else if (!emails.add(request.getEmail())) {
+                usernames.remove(request.getUsername());
+                status = UserProvisioningResult.Status.DUPLICATE_EMAIL;
+            } else {
+                status = UserProvisioningResult.Status.CREATED;
+                accepted.add(request);
+            }
+            results.add(UserProvisioningResult.builder()
+                    .username(request.getUsername())
+                    .email(request.getEmail())
+                    .status(status)
+                    .build());
+        }
+
+        List<String> hashes = passwordEncoder.encodeAll(accepted.stream().map(RegisterRequest::getPassword).toList());
+        List<User> users = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            users.add(newUser(accepted.get(i), hashes.get(i)));
+        }
+
+        try {
+            users = userRepository.saveAllAndFlush(users);
+        } catch (DataIntegrityViolationException e) {
+            // Lost a race with a concurrent registration; nothing from this batch is kept
+            throw duplicateUser();
+        }
+
+        Map<String, Long> ids = new HashMap<>();
+        users.forEach(user -> {
+            ids.put(user.getUsername(), user.getId());
+            eventPublisher.publishEvent(new UserChangedEvent(user.getId()));
+        });
+        results.stream()
+                .filter(result -> result.getStatus() == UserProvisioningResult.Status.CREATED)
+                .forEach(result -> result.setId(ids.get(result.getUsername())));
+        return results;
     }
 
     @Transactional
@@ -110,6 +140,7 @@ public class AuthService {
         user.setResetTokenExpiry(LocalDateTime.now().plusHours(24));
 
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId()));
 
         // In a real application, send email with reset token
         // emailService.sendPasswordResetEmail(user.getEmail(), resetToken);
@@ -129,5 +160,41 @@ public class AuthService {
         user.setResetTokenExpiry(null);
 
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId()));
+    }
+
+    private User newUser(RegisterRequest request, String passwordHash) {
+        return User.builder()
+                .username(request.getUsername())
+                .email(request.getEmail())
+                .password(passwordHash)
+                .firstName(request.getFirstName())
+                .lastName(request.getLastName())
+                .phoneNumber(request.getPhoneNumber())
+                .companyName(request.getCompanyName())
+                .roles(Set.of("USER"))
+                .isActive(true)
+                .isEmailVerified(false)
+                .build();
+    }
+
+    // Only reached when a concurrent registration wins the race past the existence checks; the
+    // failed statement aborts the transaction, so which of the two it was cannot be looked up
+    private static DuplicateUserException duplicateUser() {
+        return new DuplicateUserException("Username or email already exists");
+    }
+
+    private AuthResponse toAuthResponse(String token, UserPrincipal principal) {
+        return AuthResponse.builder()
+                .token(token)
+                .type("Bearer")
+                .id(principal.getId())
+                .username(principal.getUsername())
+                .email(principal.getEmail())
+                .firstName(principal.getFirstName())
+                .lastName(principal.getLastName())
+                .companyName(principal.getCompanyName())
+                .roles(principal.getRoles())
+                .build();
     }
 }
@@ -0,0 +1,160 @@
+package com.springai.b2b.service;
+
+import com.springai.b2b.dto.BatchJobResponse;
+import com.springai.b2b.dto.InsightRegenerationRequest;
+import com.springai.b2b.entity.BatchJob;
+import com.springai.b2b.repository.BatchJobRepository;
+import com.springai.b2b.security.UserPrincipal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Creates and controls batch jobs. Jobs are executed by {@link InsightRegenerationWorker} on every
+ * node, so pausing, resuming and cancelling only flip the job status; workers check it between
+ * model calls and hand their chunk back.
+ */
+@Service
+public class BatchJobService {
+
+    private final BatchJobRepository batchJobRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int defaultChunkSize;
+    private final int llmThreshold;
+
+    public BatchJobService(BatchJobRepository batchJobRepository,
+                           JdbcTemplate jdbcTemplate,
+                           @Value("${jobs.chunk-size:200}") int defaultChunkSize,
+                           @Value("${risk.llm-threshold:40}") int llmThreshold) {
+        this.batchJobRepository = batchJobRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.defaultChunkSize = defaultChunkSize;
+        this.llmThreshold = llmThreshold;
+    }
+
+    @Transactional
+    public BatchJobResponse startInsightRegeneration(InsightRegenerationRequest request) {
+        if (request.getFrom() != null && request.getTo() != null && !request.getFrom().isBefore(request.getTo())) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        int minRiskScore = request.getMinRiskScore() != null ? request.getMinRiskScore() : llmThreshold;
+
+        // Rows inserted after this point already carry insights from the current prompt
+        long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(max(id), 0) FROM b2b_transactions", Long.class);
+        List<Object> args = new ArrayList<>();
+        args.add(maxId);
+        StringBuilder sql = new StringBuilder("SELECT count(*) FROM b2b_transactions WHERE id <= ?");
+        appendFilter(sql, args, minRiskScore, request.getFrom(), request.getTo());
+        long totalRows = jdbcTemplate.queryForObject(sql.toString(), Long.class, args.toArray());
+
+        LocalDateTime now = LocalDateTime.now();
+        BatchJob job = batchJobRepository.save(BatchJob.builder()
+                .type(InsightRegenerationWorker.TYPE)
+                .dryRun(request.isDryRun())
+                .minRiskScore(minRiskScore)
+                .createdFrom(request.getFrom())
+                .createdTo(request.getTo())
+                .chunkSize(request.getChunkSize() != null ? request.getChunkSize() : defaultChunkSize)
+                .maxId(maxId)
+                .totalRows(totalRows)
+                .createdBy(((UserPrincipal) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getUsername())
+                .createdAt(now)
+                .updatedAt(now)
+                .build());
+        return mapToResponse(job);
+    }
+
+    @Transactional(readOnly = true)
+    public List<BatchJobResponse> getJobs() {
+        return batchJobRepository.findTop50ByOrderByIdDesc().stream().map(this::mapToResponse).toList();
+    }
+
+    @Transactional(readOnly = true)
+    public BatchJobResponse getJob(Long id) {
+        return batchJobRepository.findById(id).map(this::mapToResponse)
+                .orElseThrow(() -> new RuntimeException("Batch job not found"));
+    }
+
+    public BatchJobResponse pause(Long id) {
+        return changeStatus(id, BatchJob.Status.PAUSED, BatchJob.Status.RUNNING);
+    }
+
+    public BatchJobResponse resume(Long id) {
+        return changeStatus(id, BatchJob.Status.RUNNING, BatchJob.Status.PAUSED);
+    }
+
+    public BatchJobResponse cancel(Long id) {
+        return changeStatus(id, BatchJob.Status.CANCELLED, BatchJob.Status.RUNNING, BatchJob.Status.PAUSED);
+    }
+
+    private BatchJobResponse changeStatus(Long id, BatchJob.Status target, BatchJob.Status... from) {
+        int updated = jdbcTemplate.update("UPDATE batch_jobs SET status = ?, updated_at = now(), "
+                        + "finished_at = CASE WHEN ? THEN now() ELSE finished_at END "
+                        + "WHERE id = ? AND status = ANY(?)",
+                target.name(), target == BatchJob.Status.CANCELLED, id,
+                Arrays.stream(from).map(Enum::name).toArray(String[]::new));
+        BatchJobResponse job = getJob(id);
+        if (updated == 0) {
+            throw new IllegalStateException("Batch job " + id + " is " + job.getStatus());
+        }
+        return job;
+    }
+
+    /**
+     * Appends the job filter to a query over {@code b2b_transactions}; rows scored before risk
+     * scoring existed have no score and are always included.
+     */
+    static void appendFilter(StringBuilder sql, List<Object> args, Integer minRiskScore,
+                             LocalDateTime from, LocalDateTime to) {
+        if (minRiskScore != null) {
+            sql.append(" AND (risk_score IS NULL OR risk_score >= ?)");
+            args.add(minRiskScore);
+        }
+        if (from != null) {
+            sql.append(" AND created_at >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND created_at < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+    }
+
+    private BatchJobResponse mapToResponse(BatchJob job) {
+        boolean finished = job.getStatus() == BatchJob.Status.COMPLETED;
+        return BatchJobResponse.builder()
+                .id(job.getId())
+                .type(job.getType())
+                .status(job.getStatus())
+                .dryRun(job.getDryRun())
+                .minRiskScore(job.getMinRiskScore())
+                .from(job.getCreatedFrom())
+                .to(job.getCreatedTo())
+                .chunkSize(job.getChunkSize())
+                .totalRows(job.getTotalRows())
+                .plannedChunks(job.getTotalChunks())
+                .planned(job.getPlanned())
+                .completedChunks(job.getCompletedChunks())
+                .failedChunks(job.getFailedChunks())
+                .processedRows(job.getProcessedRows())
+                .updatedRows(job.getUpdatedRows())
+                .failedRows(job.getFailedRows())
+                .modelCalls(job.getModelCalls())
+                .percentComplete(finished || job.getTotalRows() == 0
+                        ? 100.0 : Math.min(100.0, job.getProcessedRows() * 100.0 / job.getTotalRows()))
+                .lastError(job.getLastError())
+                .createdBy(job.getCreatedBy())
+                .createdAt(job.getCreatedAt())
+                .updatedAt(job.getUpdatedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+}
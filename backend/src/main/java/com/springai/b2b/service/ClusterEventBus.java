@@ -0,0 +1,380 @@
+package com.springai.b2b.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springai.b2b.event.CompanyDirectoryChangedEvent;
+import com.springai.b2b.event.FxRatesChangedEvent;
+import com.springai.b2b.event.TransactionChangedEvent;
+import com.springai.b2b.event.UserChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans committed change events out to every other backend node through PostgreSQL alone.
+ * Outgoing events are buffered, coalesced where they are plain invalidations, and written to
+ * {@code cluster_events} in one batch followed by a single {@code NOTIFY}. Each node keeps a
+ * dedicated {@code LISTEN} connection and reads everything after the last id it has seen, so
+ * notifications lost during a disconnect are recovered from the table on reconnect. Remote
+ * events are republished locally as the same Spring events the originating node raised, inside a
+ * transaction of their own, so {@code @TransactionalEventListener}s handle them after that commits
+ * exactly as they handle local changes.
+ */
+@Service
+@Slf4j
+public class ClusterEventBus {
+
+    static final String CHANNEL = "b2b_cluster";
+    private static final int CATCH_UP_BATCH = 500;
+
+    // Set while remote events are republished, so they are not sent back out
+    private static final ThreadLocal<Boolean> DISPATCHING_REMOTE = ThreadLocal.withInitial(() -> false);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcConnectionDetails connectionDetails;
+    private final boolean enabled;
+    private final String nodeId;
+    private final long flushIntervalMs;
+    private final long pollIntervalMs;
+    private final int retentionMinutes;
+    private final Counter published;
+    private final Counter received;
+
+    private final Object pendingLock = new Object();
+    private Map<String, PendingEvent> pending = new LinkedHashMap<>();
+    private long pendingSequence;
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("cluster-event-flusher").daemon().factory());
+    private Thread listener;
+    private volatile boolean running;
+    private volatile long startedAfterId;
+    // Only advanced once the events up to it have been handled
+    private volatile long lastSeenId;
+
+    public ClusterEventBus(JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           ObjectMapper objectMapper,
+                           ApplicationEventPublisher eventPublisher,
+                           JdbcConnectionDetails connectionDetails,
+                           MeterRegistry meterRegistry,
+                           @Value("${cluster.enabled:false}") boolean enabled,
+                           @Value("${cluster.node-id:}") String nodeId,
+                           @Value("${cluster.flush-interval-ms:50}") long flushIntervalMs,
+                           @Value("${cluster.poll-interval-ms:5000}") long pollIntervalMs,
+                           @Value("${cluster.retention-minutes:60}") int retentionMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.connectionDetails = connectionDetails;
+        this.enabled = enabled;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.flushIntervalMs = flushIntervalMs;
+        this.pollIntervalMs = pollIntervalMs;
+        this.retentionMinutes = retentionMinutes;
+        this.published = Counter.builder("cluster.events.published").register(meterRegistry);
+        this.received = Counter.builder("cluster.events.received").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        Long maxId = jdbcTemplate.queryForObject("SELECT max(id) FROM cluster_events", Long.class);
+        startedAfterId = maxId != null ? maxId : 0;
+        lastSeenId = startedAfterId;
+        running = true;
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        listener = Thread.ofPlatform().name("cluster-event-listener").daemon().start(this::listen);
+        log.info("Cluster event bus started as node {}", nodeId);
+    }
+
+    @TransactionalEventListener
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        // Statistics apply every change as a delta, so these are batched but never coalesced
+        enqueue(Type.TRANSACTION_CHANGED, null, event);
+    }
+
+    @TransactionalEventListener
+    public void onUserChanged(UserChangedEvent event) {
+        enqueue(Type.USER_CHANGED, String.valueOf(event.userId()), event);
+    }
+
+    @TransactionalEventListener
+    public void onFxRatesChanged(FxRatesChangedEvent event) {
+        enqueue(Type.FX_RATES_CHANGED, "latest", event);
+    }
+
+    @TransactionalEventListener
+    public void onCompanyDirectoryChanged(CompanyDirectoryChangedEvent event) {
+        // Receivers reload the whole alias map, so one pending change stands for all of them
+        enqueue(Type.COMPANY_DIRECTORY_CHANGED, "latest", event);
+    }
+
+    /**
+     * @return the id after which the listener delivers every event, or empty when the bus is disabled;
+     * anything up to it happened before this node started and is only in the table
+     */
+    public OptionalLong startedAfterId() {
+        return enabled ? OptionalLong.of(startedAfterId) : OptionalLong.empty();
+    }
+
+    /**
+     * @return an id every event up to which has been handled here, or empty when the bus is disabled.
+     * Own events reach the table a flush after local listeners saw them, so those written in the last
+     * {@code marginMs} are left above it.
+     */
+    public OptionalLong settledId(long marginMs) {
+        if (!enabled) {
+            return OptionalLong.empty();
+        }
+        Long written = jdbcTemplate.queryForObject("SELECT coalesce(max(id), 0) FROM cluster_events WHERE created_at < ?",
+                Long.class, Timestamp.valueOf(LocalDateTime.now().minusNanos(marginMs * 1_000_000)));
+        return OptionalLong.of(Math.min(written, lastSeenId));
+    }
+
+    /**
+     * Transaction changes from every node, own ones included, with ids in {@code (afterId, upToId]}.
+     *
+     * @return empty when part of that range may already have been pruned
+     */
+    public Optional<List<TransactionChangedEvent>> transactionChanges(long afterId, long upToId) {
+        if (afterId >= upToId) {
+            return Optional.of(List.of());
+        }
+        Long oldest = jdbcTemplate.queryForObject("SELECT min(id) FROM cluster_events", Long.class);
+        if (oldest == null || oldest > afterId + 1) {
+            return Optional.empty();
+        }
+        List<TransactionChangedEvent> events = new ArrayList<>();
+        for (String payload : jdbcTemplate.queryForList("SELECT payload FROM cluster_events WHERE id > ? AND id <= ? AND type = ? ORDER BY id",
+                String.class, afterId, upToId, Type.TRANSACTION_CHANGED.name())) {
+            try {
+                events.add(objectMapper.readValue(payload, TransactionChangedEvent.class));
+            } catch (JsonProcessingException e) {
+                log.warn("Could not read cluster event {}: {}", Type.TRANSACTION_CHANGED, e.getMessage());
+                return Optional.empty();
+            }
+        }
+        return Optional.of(events);
+    }
+
+    @Scheduled(fixedDelayString = "${cluster.prune-interval-ms:600000}")
+    public void prune() {
+        if (enabled) {
+            jdbcTemplate.update("DELETE FROM cluster_events WHERE created_at < ?",
+                    Timestamp.valueOf(LocalDateTime.now().minusMinutes(retentionMinutes)));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        listener.interrupt();
+    }
+
+    /**
+     * True on the thread republishing events received from other nodes, including inside the
+     * {@code @TransactionalEventListener}s that run when that replay commits. Listeners that persist
+     * something the origin node already persisted, such as outbox rows or audit records, skip these.
+     */
+    public static boolean isDispatchingRemote() {
+        return DISPATCHING_REMOTE.get();
+    }
+
+    private void enqueue(Type type, String coalesceKey, Object event) {
+        if (!enabled || DISPATCHING_REMOTE.get()) {
+            return;
+        }
+
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize {} for the cluster: {}", type, e.getMessage());
+            return;
+        }
+        synchronized (pendingLock) {
+            String key = coalesceKey != null ? type + ":" + coalesceKey : "#" + pendingSequence++;
+            pending.put(key, new PendingEvent(type, payload));
+        }
+    }
+
+    private void flush() {
+        Map<String, PendingEvent> batch;
+        synchronized (pendingLock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<>();
+        }
+
+        List<PendingEvent> events = new ArrayList<>(batch.values());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // Ids must become visible in order, or a reader past a later id would skip an earlier one
+                jdbcTemplate.execute("SELECT pg_advisory_xact_lock(hashtext('" + CHANNEL + "'))");
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                jdbcTemplate.batchUpdate("INSERT INTO cluster_events (origin_node, type, payload, created_at) VALUES (?, ?, ?, ?)",
+                        events, events.size(), (statement, event) -> {
+                            statement.setString(1, nodeId);
+                            statement.setString(2, event.type().name());
+                            statement.setString(3, event.payload());
+                            statement.setTimestamp(4, now);
+                        });
+                jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, CHANNEL, nodeId);
+            });
+            published.increment(events.size());
+        } catch (Exception e) {
+            log.warn("Could not publish {} cluster events, will retry: {}", events.size(), e.getMessage());
+            synchronized (pendingLock) {
+                batch.putAll(pending);
+                pending = batch;
+            }
+        }
+    }
+
+    private void listen() {
+        long backoffMs = 1000;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(connectionDetails.getJdbcUrl(),
+                    connectionDetails.getUsername(), connectionDetails.getPassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                backoffMs = 1000;
+
+                // Anything committed while disconnected is read back from the table
+                catchUp(connection);
+                while (running) {
+                    // Returns on the first notification or after the poll interval; reading on timeouts
+                    // too doubles as a liveness check of the listening connection
+                    pgConnection.getNotifications((int) pollIntervalMs);
+                    catchUp(connection);
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cluster listener connection lost, reconnecting in {} ms: {}", backoffMs, e.getMessage());
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                backoffMs = Math.min(backoffMs * 2, 30_000);
+            }
+        }
+    }
+
+    private void catchUp(Connection connection) throws SQLException {
+        List<ReceivedEvent> batch;
+        do {
+            batch = new ArrayList<>(CATCH_UP_BATCH);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT id, origin_node, type, payload FROM cluster_events WHERE id > ? ORDER BY id LIMIT " + CATCH_UP_BATCH)) {
+                statement.setLong(1, lastSeenId);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        batch.add(new ReceivedEvent(resultSet.getLong("id"), resultSet.getString("origin_node"),
+                                resultSet.getString("type"), resultSet.getString("payload")));
+                    }
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            List<ReceivedEvent> remote = batch.stream().filter(event -> !nodeId.equals(event.originNode())).toList();
+            if (!remote.isEmpty()) {
+                // Listeners run when this commits, still inside the flag so nothing is sent back out
+                DISPATCHING_REMOTE.set(true);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> remote.forEach(this::dispatch));
+                } catch (RuntimeException e) {
+                    // Read again after the reconnect backoff
+                    throw new SQLException("Could not apply cluster events", e);
+                } finally {
+                    DISPATCHING_REMOTE.set(false);
+                }
+            }
+            lastSeenId = batch.get(batch.size() - 1).id();
+        } while (batch.size() == CATCH_UP_BATCH);
+    }
+
+    private void dispatch(ReceivedEvent row) {
+        try {
+            Object event = switch (Type.valueOf(row.type())) {
+                case TRANSACTION_CHANGED -> objectMapper.readValue(row.payload(), TransactionChangedEvent.class);
+                case USER_CHANGED -> objectMapper.readValue(row.payload(), UserChangedEvent.class);
+                case FX_RATES_CHANGED -> objectMapper.readValue(row.payload(), FxRatesChangedEvent.class);
+                case COMPANY_DIRECTORY_CHANGED -> objectMapper.readValue(row.payload(), CompanyDirectoryChangedEvent.class);
+            };
+            eventPublisher.publishEvent(event);
+            received.increment();
+        } catch (Exception e) {
+            log.warn("Could not apply cluster event {}: {}", row.type(), e.getMessage());
+        }
+    }
+
+    enum Type {
+        TRANSACTION_CHANGED,
+        USER_CHANGED,
+        FX_RATES_CHANGED,
+        COMPANY_DIRECTORY_CHANGED
+    }
+
+    private record PendingEvent(Type type, String payload) {
+    }
+
+    private record ReceivedEvent(long id, String originNode, String type, String payload) {
+    }
+}
@@ -0,0 +1,292 @@
+package com.springai.b2b.service;
+
+import com.springai.b2b.dto.CompanyResponse;
+import com.springai.b2b.entity.Company;
+import com.springai.b2b.event.CompanyDirectoryChangedEvent;
+import com.springai.b2b.repository.CompanyAliasRepository;
+import com.springai.b2b.repository.CompanyRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * The company directory behind {@code buyer_company_id}/{@code seller_company_id}. Names are
+ * canonicalized (case, punctuation, legal-form suffixes) and resolved through an in-memory
+ * alias-to-id map that ingest reads without locking. Unseen names are registered in the caller's
+ * transaction, or in a short one of their own when there is none (ingest resolves names before it
+ * opens its own), and reach the map only once committed, so a rolled-back order never leaves it
+ * pointing at a company that does not exist. A merged company keeps its row with {@code merged_into}
+ * set; reads match both ids, and transactions still pointing at it are moved over in the background
+ * after every reload, which also catches rows other nodes wrote before they saw the merge. Rows
+ * written before the directory existed are linked by a throttled background backfill.
+ */
+@Service
+@Slf4j
+public class CompanyDirectoryService {
+
+    private static final Set<String> LEGAL_FORMS = Set.of(
+            "inc", "incorporated", "corp", "corporation", "co", "company", "ltd", "limited", "llc", "llp", "plc",
+            "gmbh", "ag", "sa", "sas", "srl", "spa", "bv", "nv", "oy", "ab", "as", "pty", "pvt", "kk");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CompanyRepository companyRepository;
+    private final CompanyAliasRepository aliasRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionPartitionService partitionService;
+    private final int backfillBatchSize;
+    private final long backfillPauseMs;
+
+    private final Map<String, Long> idsByAlias = new ConcurrentHashMap<>();
+    private final ExecutorService backfillExecutor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("company-backfill").daemon().factory());
+
+    // Depends on the partition service so the columns and keys land on the partitioned table (or on the
+    // plain one, from which the background conversion copies them)
+    public CompanyDirectoryService(JdbcTemplate jdbcTemplate,
+                                   CompanyRepository companyRepository,
+                                   CompanyAliasRepository aliasRepository,
+                                   ApplicationEventPublisher eventPublisher,
+                                   TransactionTemplate transactionTemplate,
+                                   TransactionPartitionService partitionService,
+                                   @Value("${companies.backfill.batch-size:1000}") int backfillBatchSize,
+                                   @Value("${companies.backfill.pause-ms:100}") long backfillPauseMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.companyRepository = companyRepository;
+        this.aliasRepository = aliasRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.partitionService = partitionService;
+        this.backfillBatchSize = backfillBatchSize;
+        this.backfillPauseMs = backfillPauseMs;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        // Built CONCURRENTLY in the background; the backfill and merge sweeps only run faster once they exist
+        partitionService.ensureIndex("idx_b2b_transactions_buyer_company_id", "(buyer_company_id)");
+        partitionService.ensureIndex("idx_b2b_transactions_seller_company_id", "(seller_company_id)");
+        addForeignKey("fk_b2b_transactions_buyer_company", "buyer_company_id");
+        addForeignKey("fk_b2b_transactions_seller_company", "seller_company_id");
+
+        reload();
+        backfillExecutor.submit(this::backfill);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfillExecutor.shutdownNow();
+    }
+
+    /**
+     * Lower-cased, accent- and punctuation-free, with "&" spelled out and trailing legal forms
+     * dropped, so "ACME, Inc." and "Acme Incorporated" share a key.
+     */
+    public static String canonicalize(String name) {
+        String folded = Normalizer.normalize(name, Normalizer.Form.NFKD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .replace("&", " and ")
+                .replaceAll("[^\\p{L}\\p{N}]+", " ")
+                .strip();
+        List<String> tokens = new ArrayList<>(List.of(folded.split(" ")));
+        while (tokens.size() > 1 && LEGAL_FORMS.contains(tokens.get(tokens.size() - 1))) {
+            tokens.remove(tokens.size() - 1);
+        }
+        return String.join(" ", tokens);
+    }
+
+    /**
+     * The company id for a free-text name, registering the company on first sight; null for blank names.
+     */
+    public Long resolve(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        String key = canonicalize(name);
+        if (key.isEmpty()) {
+            return null;
+        }
+        Long id = idsByAlias.get(key);
+        return id != null ? id : register(key, name.strip());
+    }
+
+    // Joins the caller's transaction rather than suspending it, which would hold a second pooled
+    // connection per unseen name and can exhaust the pool under load
+    private Long register(String key, String name) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.update("INSERT INTO companies (canonical_name, name, created_at) VALUES (?, ?, now()) "
+                    + "ON CONFLICT (canonical_name) DO NOTHING", key, name);
+            jdbcTemplate.update("INSERT INTO company_aliases (alias, company_id, created_at) "
+                    + "SELECT ?, id, now() FROM companies WHERE canonical_name = ? ON CONFLICT (alias) DO NOTHING", key, key);
+            // The alias may already point elsewhere if this spelling was merged into another company
+            Long id = jdbcTemplate.queryForObject("SELECT company_id FROM company_aliases WHERE alias = ?", Long.class, key);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    idsByAlias.put(key, id);
+                }
+            });
+            return id;
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public List<CompanyResponse> getCompanies() {
+        Map<Long, List<String>> aliases = aliasRepository.findAllViews().stream()
+                .collect(Collectors.groupingBy(CompanyAliasRepository.AliasView::getCompanyId,
+                        Collectors.mapping(CompanyAliasRepository.AliasView::getAlias, Collectors.toList())));
+        return companyRepository.findActive().stream()
+                .map(company -> new CompanyResponse(company.getId(), company.getName(),
+                        aliases.getOrDefault(company.getId(), List.of())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Makes {@code name} an alias of the company. When the spelling already belongs to another
+     * company, that company is merged in: its aliases move over and its row stays behind without
+     * aliases and with {@code merged_into} set, so ids cached on other nodes never dangle. Its
+     * transactions are moved by the sweep that follows the reload.
+     */
+    @Transactional
+    public void addAlias(Long companyId, String name) {
+        Company company = companyRepository.findById(companyId)
+                .orElseThrow(() -> new RuntimeException("Company not found"));
+        if (company.getMergedInto() != null) {
+            throw new IllegalArgumentException("Company was merged into " + company.getMergedInto());
+        }
+        String key = canonicalize(name);
+        if (key.isEmpty()) {
+            throw new IllegalArgumentException("Alias is blank");
+        }
+
+        List<Long> current = jdbcTemplate.queryForList("SELECT company_id FROM company_aliases WHERE alias = ? FOR UPDATE",
+                Long.class, key);
+        if (current.isEmpty()) {
+            jdbcTemplate.update("INSERT INTO company_aliases (alias, company_id, created_at) VALUES (?, ?, now())",
+                    key, companyId);
+        } else if (!current.get(0).equals(companyId)) {
+            Long mergedId = current.get(0);
+            jdbcTemplate.update("UPDATE company_aliases SET company_id = ? WHERE company_id = ?", companyId, mergedId);
+            // Companies merged into this one earlier follow it, so merged_into never points at a merged company
+            jdbcTemplate.update("UPDATE companies SET merged_into = ? WHERE id = ? OR merged_into = ?",
+                    companyId, mergedId, mergedId);
+            log.info("Merged company {} into {}", mergedId, companyId);
+        } else {
+            return;
+        }
+        eventPublisher.publishEvent(new CompanyDirectoryChangedEvent(companyId));
+    }
+
+    // After commit, for local merges and those ClusterEventBus replays from other nodes
+    @TransactionalEventListener
+    public void onCompanyDirectoryChanged(CompanyDirectoryChangedEvent event) {
+        reload();
+    }
+
+    private void reload() {
+        Map<String, Long> loaded = new HashMap<>();
+        aliasRepository.findAllViews().forEach(alias -> loaded.put(alias.getAlias(), alias.getCompanyId()));
+        idsByAlias.putAll(loaded);
+        idsByAlias.keySet().retainAll(loaded.keySet());
+        log.info("Loaded {} company aliases", loaded.size());
+        // Only after the map stops handing out merged ids, so this node writes no new stragglers behind it
+        backfillExecutor.submit(this::repointMerged);
+    }
+
+    /**
+     * Moves transactions still pointing at merged companies over to the surviving ones. Every node
+     * runs it after its own reload, since until then it may still have written the merged id.
+     */
+    private void repointMerged() {
+        try {
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM companies WHERE merged_into IS NOT NULL)", Boolean.class))) {
+                return;
+            }
+            int moved = jdbcTemplate.update("UPDATE b2b_transactions t SET buyer_company_id = c.merged_into "
+                    + "FROM companies c WHERE t.buyer_company_id = c.id AND c.merged_into IS NOT NULL")
+                    + jdbcTemplate.update("UPDATE b2b_transactions t SET seller_company_id = c.merged_into "
+                    + "FROM companies c WHERE t.seller_company_id = c.id AND c.merged_into IS NOT NULL");
+            if (moved > 0) {
+                log.info("Moved {} transaction references off merged companies", moved);
+            }
+        } catch (Exception e) {
+            log.warn("Could not move transactions off merged companies, retried after the next reload: {}", e.getMessage());
+        }
+    }
+
+    private void addForeignKey(String name, String column) {
+        Integer existing = jdbcTemplate.queryForObject("SELECT count(*) FROM pg_constraint WHERE conname = ?",
+                Integer.class, name);
+        if (existing == 0) {
+            jdbcTemplate.execute("ALTER TABLE b2b_transactions ADD CONSTRAINT " + name + " FOREIGN KEY (" + column
+                    + ") REFERENCES companies (id)");
+        }
+    }
+
+    /**
+     * Links rows written before the directory existed, one keyset batch at a time with a pause in
+     * between, so it can run against a live table. Idempotent: it only touches rows still missing an id.
+     */
+    private void backfill() {
+        long lastId = 0;
+        long linked = 0;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Object[]> updates = new ArrayList<>();
+                List<Long> ids = new ArrayList<>();
+                jdbcTemplate.query("SELECT id, created_at, buyer_company, seller_company FROM b2b_transactions "
+                                + "WHERE id > ? AND ((buyer_company_id IS NULL AND buyer_company IS NOT NULL) "
+                                + "OR (seller_company_id IS NULL AND seller_company IS NOT NULL)) ORDER BY id LIMIT ?",
+                        resultSet -> {
+                            updates.add(new Object[]{
+                                    resolve(resultSet.getString("buyer_company")),
+                                    resolve(resultSet.getString("seller_company")),
+                                    resultSet.getLong("id"),
+                                    resultSet.getTimestamp("created_at")});
+                            ids.add(resultSet.getLong("id"));
+                        },
+                        lastId, backfillBatchSize);
+                if (updates.isEmpty()) {
+                    break;
+                }
+
+                // COALESCE keeps ids set meanwhile by ingest or a merge
+                jdbcTemplate.batchUpdate("UPDATE b2b_transactions SET buyer_company_id = COALESCE(buyer_company_id, ?), "
+                        + "seller_company_id = COALESCE(seller_company_id, ?) WHERE id = ? AND created_at = ?", updates);
+                linked += updates.size();
+                lastId = ids.get(ids.size() - 1);
+                Thread.sleep(backfillPauseMs);
+            }
+            if (linked > 0) {
+                log.info("Linked {} transactions to the company directory", linked);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Company backfill stopped after {} transactions: {}", linked, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,517 @@
+package com.springai.b2b.service;
+
+import com.springai.b2b.entity.B2BTransaction;
+import com.springai.b2b.event.TransactionChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Catches orders that look like a resubmission of a recent one by the same user. Every transaction
+ * is fingerprinted from its owner, canonicalized counterparties, normalized product name, quantity,
+ * unit price and delivery day into an exact 64-bit hash and a MinHash signature over the product
+ * name's character trigrams. The signature is split into LSH bands keyed together with the owner
+ * and counterparties; a near-duplicate must share a band, have the same quantity, a unit price and
+ * delivery date within tolerance, and an estimated trigram similarity of at least
+ * {@code similarity}. Buckets keep at most {@code max-bucket-size} ids, so a lookup costs the same
+ * however large the index is.
+ * <p>
+ * The index holds open orders from the last {@code window-days}. It is rebuilt from the database
+ * at startup and then follows changes from every node through {@link TransactionChangedEvent}.
+ * Two identical orders submitted at once both pass the index; with exact REJECT the inserting
+ * transaction therefore also claims the exact fingerprint in {@code transaction_fingerprints}
+ * (see {@link #claim}), and the second insert waits on the first's claim and is rejected.
+ */
+@Service
+@Slf4j
+public class DuplicateDetectionService {
+
+    public enum Mode {
+        OFF,
+        FLAG,
+        REJECT
+    }
+
+    public enum Kind {
+        EXACT,
+        NEAR
+    }
+
+    private static final int BANDS = 16;
+    private static final int ROWS = 4;
+    private static final long[] SEEDS = new SplittableRandom(0x5EEDL).longs(BANDS * ROWS).toArray();
+    private static final long NO_DELIVERY_DATE = Long.MIN_VALUE;
+    private static final String CLAIMS = "transaction_fingerprints";
+    private static final String FINGERPRINT_COLUMNS =
+            "user_id, buyer_company, seller_company, product_name, quantity, unit_price, delivery_date";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Mode exactMode;
+    private final Mode nearMode;
+    private final int windowDays;
+    private final double similarity;
+    private final double priceTolerance;
+    private final int deliveryToleranceDays;
+    private final int maxBucketSize;
+
+    private final ConcurrentHashMap<Long, Long> idsByFingerprint = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, long[]> buckets = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public DuplicateDetectionService(JdbcTemplate jdbcTemplate,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${duplicates.exact:REJECT}") Mode exactMode,
+                                     @Value("${duplicates.near:FLAG}") Mode nearMode,
+                                     @Value("${duplicates.window-days:90}") int windowDays,
+                                     @Value("${duplicates.similarity:0.8}") double similarity,
+                                     @Value("${duplicates.price-tolerance:0.02}") double priceTolerance,
+                                     @Value("${duplicates.delivery-tolerance-days:7}") int deliveryToleranceDays,
+                                     @Value("${duplicates.max-bucket-size:32}") int maxBucketSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.exactMode = exactMode;
+        this.nearMode = nearMode;
+        this.windowDays = windowDays;
+        this.similarity = similarity;
+        this.priceTolerance = priceTolerance;
+        this.deliveryToleranceDays = deliveryToleranceDays;
+        this.maxBucketSize = Math.max(1, maxBucketSize);
+
+        Gauge.builder("duplicates.indexed", entries, Map::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void initialize() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + CLAIMS + " (fingerprint bigint PRIMARY KEY, "
+                + "transaction_id bigint NOT NULL, created_at timestamp NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_" + CLAIMS + "_created_at ON " + CLAIMS + " (created_at)");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (exactMode == Mode.OFF && nearMode == Mode.OFF) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        jdbcTemplate.query("SELECT id, " + FINGERPRINT_COLUMNS + ", created_at FROM b2b_transactions "
+                        + "WHERE created_at >= ? AND status NOT IN ('CANCELLED', 'REJECTED')",
+                resultSet -> index(resultSet.getLong("id"), fingerprint(resultSet),
+                        resultSet.getTimestamp("created_at").toLocalDateTime()),
+                Timestamp.valueOf(LocalDateTime.now().minusDays(windowDays)));
+        ready = true;
+        log.info("Duplicate index rebuilt with {} transactions from the last {} days in {} ms",
+                entries.size(), windowDays, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Checks transactions about to be inserted against the index and against earlier items of the
+     * same batch. A flagged item repeating a stored transaction gets {@code duplicateOf} set; one
+     * repeating an earlier item of the batch is returned as a link from its index to that item's
+     * index, since the original has no id yet.
+     *
+     * @param allowDuplicates downgrades REJECT to FLAG, for orders the caller knows are repeats
+     * @throws DuplicateTransactionException for a match whose kind is configured to be rejected
+     */
+    public Map<Integer, Integer> screen(List<B2BTransaction> transactions, boolean allowDuplicates) {
+        Map<Integer, Integer> batchLinks = new HashMap<>();
+        if (exactMode == Mode.OFF && nearMode == Mode.OFF) {
+            return batchLinks;
+        }
+
+        List<Fingerprint> batch = new ArrayList<>(transactions.size());
+        Map<Long, Integer> batchExact = new HashMap<>();
+        Map<Long, List<Integer>> batchBuckets = new HashMap<>();
+        for (int i = 0; i < transactions.size(); i++) {
+            B2BTransaction transaction = transactions.get(i);
+            Fingerprint fingerprint = fingerprint(transaction.getUser().getId(),
+                    transaction.getBuyerCompany(), transaction.getSellerCompany(),
+                    transaction.getProductName(), transaction.getQuantity(), transaction.getUnitPrice(),
+                    transaction.getDeliveryDate());
+
+            Match match = ready ? find(fingerprint) : null;
+            if (match == null) {
+                match = findInBatch(fingerprint, batch, batchExact, batchBuckets);
+            }
+            batch.add(fingerprint);
+            batchExact.putIfAbsent(fingerprint.exact(), i);
+            for (long key : fingerprint.bandKeys()) {
+                batchBuckets.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+            }
+
+            if (match == null) {
+                continue;
+            }
+            Mode mode = match.kind() == Kind.EXACT ? exactMode : nearMode;
+            if (mode == Mode.OFF) {
+                continue;
+            }
+            if (mode == Mode.REJECT && !allowDuplicates) {
+                count(match.kind(), "rejected");
+                throw new DuplicateTransactionException(match.kind(), i, match.transactionId(), match.batchIndex(),
+                        match.similarity());
+            }
+            count(match.kind(), "flagged");
+            if (match.transactionId() != null) {
+                transaction.setDuplicateOf(match.transactionId());
+            } else {
+                batchLinks.put(i, match.batchIndex());
+            }
+        }
+        return batchLinks;
+    }
+
+    /**
+     * Claims the exact fingerprints of transactions just saved, inside the transaction that saves
+     * them. A claim row stays locked until that transaction ends, so an identical order inserted
+     * concurrently on any node waits for it: it is then rejected if the first committed, or takes
+     * the claim if the first rolled back. A claim whose holder has since been closed, changed or
+     * aged out of the window is taken over. Only exact REJECT needs this; flagged repeats are
+     * allowed through anyway.
+     *
+     * @throws DuplicateTransactionException for a fingerprint held by another open order
+     */
+    public void claim(List<B2BTransaction> transactions, boolean allowDuplicates) {
+        if (exactMode != Mode.REJECT || allowDuplicates) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Fingerprint[] fingerprints = new Fingerprint[transactions.size()];
+        for (int i = 0; i < transactions.size(); i++) {
+            B2BTransaction transaction = transactions.get(i);
+            fingerprints[i] = fingerprint(transaction.getUser().getId(),
+                    transaction.getBuyerCompany(), transaction.getSellerCompany(),
+                    transaction.getProductName(), transaction.getQuantity(), transaction.getUnitPrice(),
+                    transaction.getDeliveryDate());
+        }
+        // In fingerprint order, so two overlapping batches cannot each wait on a claim the other holds
+        List<Integer> order = IntStream.range(0, fingerprints.length).boxed()
+                .sorted(Comparator.comparingLong(i -> fingerprints[i].exact()))
+                .toList();
+        for (int i : order) {
+            B2BTransaction transaction = transactions.get(i);
+            Fingerprint fingerprint = fingerprints[i];
+            if (jdbcTemplate.update("INSERT INTO " + CLAIMS + " (fingerprint, transaction_id, created_at) VALUES (?, ?, ?) "
+                    + "ON CONFLICT (fingerprint) DO NOTHING", fingerprint.exact(), transaction.getId(), now) == 1) {
+                continue;
+            }
+
+            List<Long> holder = jdbcTemplate.queryForList("SELECT transaction_id FROM " + CLAIMS
+                    + " WHERE fingerprint = ? FOR UPDATE", Long.class, fingerprint.exact());
+            if (!holder.isEmpty() && !transaction.getId().equals(holder.get(0)) && holds(holder.get(0), fingerprint)) {
+                count(Kind.EXACT, "rejected");
+                throw new DuplicateTransactionException(Kind.EXACT, i, holder.get(0), null, 1.0);
+            }
+            // Upsert, since the expiry cleanup may have deleted the stale claim in the meantime
+            jdbcTemplate.update("INSERT INTO " + CLAIMS + " (fingerprint, transaction_id, created_at) VALUES (?, ?, ?) "
+                    + "ON CONFLICT (fingerprint) DO UPDATE SET transaction_id = EXCLUDED.transaction_id, "
+                    + "created_at = EXCLUDED.created_at", fingerprint.exact(), transaction.getId(), now);
+        }
+    }
+
+    // Read from the table rather than the index, which may not have seen the holder's creation yet
+    private boolean holds(Long holder, Fingerprint fingerprint) {
+        List<Fingerprint> current = jdbcTemplate.query("SELECT " + FINGERPRINT_COLUMNS + " FROM b2b_transactions "
+                        + "WHERE id = ? AND created_at >= ? AND status NOT IN ('CANCELLED', 'REJECTED')",
+                (resultSet, rowNum) -> fingerprint(resultSet),
+                holder, Timestamp.valueOf(LocalDateTime.now().minusDays(windowDays)));
+        return !current.isEmpty() && current.get(0).exact() == fingerprint.exact() && current.get(0).sameOrder(fingerprint);
+    }
+
+    // Also sees transactions created on other nodes, replayed by ClusterEventBus
+    @TransactionalEventListener
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        boolean closed = event.status() == B2BTransaction.TransactionStatus.CANCELLED
+                || event.status() == B2BTransaction.TransactionStatus.REJECTED;
+        switch (event.type()) {
+            case CREATED -> {
+                if (!closed) {
+                    index(event.id(), fingerprint(event), LocalDateTime.now());
+                }
+            }
+            case UPDATED -> {
+                // Orders that already aged out of the window stay out
+                Entry previous = entries.get(event.id());
+                if (previous != null) {
+                    index(event.id(), fingerprint(event), previous.createdAt());
+                }
+            }
+            case STATUS_CHANGED -> {
+                // A cancelled or rejected order may legitimately be placed again
+                if (closed) {
+                    remove(event.id());
+                }
+            }
+            case DELETED -> remove(event.id());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${duplicates.cleanup-interval-ms:3600000}")
+    public void evictExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(windowDays);
+        entries.values().stream()
+                .filter(entry -> entry.createdAt().isBefore(cutoff))
+                .map(Entry::id)
+                .toList()
+                .forEach(this::remove);
+        // Claims are only taken over lazily otherwise; every node runs this, which is harmless
+        try {
+            jdbcTemplate.update("DELETE FROM " + CLAIMS + " WHERE created_at < ?", Timestamp.valueOf(cutoff));
+        } catch (Exception e) {
+            log.warn("Could not delete expired duplicate claims: {}", e.getMessage());
+        }
+    }
+
+    private Match find(Fingerprint fingerprint) {
+        Long id = idsByFingerprint.get(fingerprint.exact());
+        if (id != null) {
+            Entry entry = entries.get(id);
+            if (entry != null && entry.fingerprint().sameOrder(fingerprint)) {
+                return new Match(Kind.EXACT, id, null, 1.0);
+            }
+        }
+
+        Match best = null;
+        for (long key : fingerprint.bandKeys()) {
+            long[] ids = buckets.get(key);
+            if (ids == null) {
+                continue;
+            }
+            for (long candidate : ids) {
+                Entry entry = entries.get(candidate);
+                double score = entry != null ? nearScore(fingerprint, entry.fingerprint()) : -1;
+                if (score >= 0 && (best == null || score > best.similarity())) {
+                    best = new Match(Kind.NEAR, candidate, null, score);
+                }
+            }
+        }
+        return best;
+    }
+
+    private Match findInBatch(Fingerprint fingerprint, List<Fingerprint> batch,
+                              Map<Long, Integer> batchExact, Map<Long, List<Integer>> batchBuckets) {
+        Integer index = batchExact.get(fingerprint.exact());
+        if (index != null && batch.get(index).sameOrder(fingerprint)) {
+            return new Match(Kind.EXACT, null, index, 1.0);
+        }
+
+        Match best = null;
+        for (long key : fingerprint.bandKeys()) {
+            for (int candidate : batchBuckets.getOrDefault(key, List.of())) {
+                double score = nearScore(fingerprint, batch.get(candidate));
+                if (score >= 0 && (best == null || score > best.similarity())) {
+                    best = new Match(Kind.NEAR, null, candidate, score);
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Estimated product-name similarity when the other attributes match within tolerance, otherwise -1.
+     */
+    private double nearScore(Fingerprint a, Fingerprint b) {
+        if (a.counterparties() != b.counterparties() || a.quantity() != b.quantity()) {
+            return -1;
+        }
+        double largerPrice = Math.max(Math.abs(a.unitPrice()), Math.abs(b.unitPrice()));
+        if (largerPrice > 0 && Math.abs(a.unitPrice() - b.unitPrice()) / largerPrice > priceTolerance) {
+            return -1;
+        }
+        if ((a.deliveryDay() == NO_DELIVERY_DATE) != (b.deliveryDay() == NO_DELIVERY_DATE)
+                || Math.abs(a.deliveryDay() - b.deliveryDay()) > deliveryToleranceDays) {
+            return -1;
+        }
+        int equal = 0;
+        for (int i = 0; i < SEEDS.length; i++) {
+            if (a.signature()[i] == b.signature()[i]) {
+                equal++;
+            }
+        }
+        double score = (double) equal / SEEDS.length;
+        return score >= similarity ? score : -1;
+    }
+
+    private void index(long id, Fingerprint fingerprint, LocalDateTime createdAt) {
+        Entry previous = entries.put(id, new Entry(id, fingerprint, createdAt));
+        if (previous != null) {
+            unlink(previous);
+        }
+        idsByFingerprint.put(fingerprint.exact(), id);
+        for (long key : fingerprint.bandKeys()) {
+            buckets.compute(key, (k, ids) -> append(ids, id));
+        }
+    }
+
+    private void remove(long id) {
+        Entry entry = entries.remove(id);
+        if (entry != null) {
+            unlink(entry);
+        }
+    }
+
+    private void unlink(Entry entry) {
+        idsByFingerprint.remove(entry.fingerprint().exact(), entry.id());
+        for (long key : entry.fingerprint().bandKeys()) {
+            buckets.computeIfPresent(key, (k, ids) -> {
+                long[] remaining = Arrays.stream(ids).filter(id -> id != entry.id()).toArray();
+                return remaining.length > 0 ? remaining : null;
+            });
+        }
+    }
+
+    // Full buckets drop their oldest id; a band that common says little about any one order
+    private long[] append(long[] ids, long id) {
+        if (ids == null) {
+            return new long[]{id};
+        }
+        for (long existing : ids) {
+            if (existing == id) {
+                return ids;
+            }
+        }
+        int keep = Math.min(ids.length, maxBucketSize - 1);
+        long[] appended = Arrays.copyOfRange(ids, ids.length - keep, ids.length + 1);
+        appended[keep] = id;
+        return appended;
+    }
+
+    private void count(Kind kind, String action) {
+        Counter.builder("duplicates.detected")
+                .tag("kind", kind.name())
+                .tag("action", action)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static Fingerprint fingerprint(TransactionChangedEvent event) {
+        return fingerprint(event.userId(), event.buyerCompany(), event.sellerCompany(), event.productName(),
+                event.quantity(), event.unitPrice(), event.deliveryDate());
+    }
+
+    private static Fingerprint fingerprint(ResultSet resultSet) throws SQLException {
+        Timestamp deliveryDate = resultSet.getTimestamp("delivery_date");
+        return fingerprint(
+                resultSet.getLong("user_id"),
+                resultSet.getString("buyer_company"),
+                resultSet.getString("seller_company"),
+                resultSet.getString("product_name"),
+                (Integer) resultSet.getObject("quantity"),
+                resultSet.getBigDecimal("unit_price"),
+                deliveryDate != null ? deliveryDate.toLocalDateTime() : null);
+    }
+
+    // The owner is part of the counterparty key, so neither the exact hash nor any band ever matches
+    // another user's order: one user's orders must not be rejected, or revealed, as repeats of another's
+    static Fingerprint fingerprint(Long userId, String buyer, String seller, String product, Integer quantity,
+                                   BigDecimal unitPrice, LocalDateTime deliveryDate) {
+        long counterparties = hash(userId + "|" + canonicalCompany(buyer) + '|' + canonicalCompany(seller));
+        String productKey = normalize(product);
+        int units = quantity != null ? quantity : 0;
+        long deliveryDay = deliveryDate != null ? deliveryDate.toLocalDate().toEpochDay() : NO_DELIVERY_DATE;
+        long exact = hash(counterparties + "|" + productKey + "|" + units + "|"
+                + (unitPrice != null ? unitPrice.stripTrailingZeros().toPlainString() : "") + "|" + deliveryDay);
+
+        long[] signature = minHash(productKey);
+        long[] bandKeys = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long key = mix(counterparties ^ (band + 1) * 0x9E3779B97F4A7C15L);
+            for (int row = 0; row < ROWS; row++) {
+                key = mix(key ^ signature[band * ROWS + row]);
+            }
+            bandKeys[band] = key;
+        }
+        return new Fingerprint(exact, counterparties, signature, bandKeys, units,
+                unitPrice != null ? unitPrice.doubleValue() : 0, deliveryDay);
+    }
+
+    private static String canonicalCompany(String name) {
+        return name != null ? CompanyDirectoryService.canonicalize(name) : "";
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFKD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\p{N}]+", " ")
+                .strip();
+    }
+
+    private static long[] minHash(String text) {
+        String padded = " " + text + " ";
+        long[] signature = new long[SEEDS.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (int i = 0; i + 2 < padded.length() || i == 0; i++) {
+            long shingle = i + 2 < padded.length()
+                    ? mix(((long) padded.charAt(i) << 32) ^ ((long) padded.charAt(i + 1) << 16) ^ padded.charAt(i + 2))
+                    : hash(padded);
+            for (int j = 0; j < SEEDS.length; j++) {
+                signature[j] = Math.min(signature[j], mix(shingle ^ SEEDS[j]));
+            }
+        }
+        return signature;
+    }
+
+    private static long hash(String text) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    record Fingerprint(long exact, long counterparties, long[] signature, long[] bandKeys,
+                       int quantity, double unitPrice, long deliveryDay) {
+
+        boolean sameOrder(Fingerprint other) {
+            return counterparties == other.counterparties && quantity == other.quantity
+                    && unitPrice == other.unitPrice && deliveryDay == other.deliveryDay
+                    && Arrays.equals(signature, other.signature);
+        }
+    }
+
+    private record Match(Kind kind, Long transactionId, Integer batchIndex, double similarity) {
+    }
+
+    private record Entry(long id, Fingerprint fingerprint, LocalDateTime createdAt) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.springai.b2b.service;
+
+import lombok.Getter;
+
+import java.util.Locale;
+
+/**
+ * A submitted order matched a recent one under a REJECT mode. {@code index} is the order's position
+ * in the request; the match is either the stored transaction {@code duplicateOf} or the earlier
+ * item {@code duplicateOfIndex} of the same batch.
+ */
+@Getter
+public class DuplicateTransactionException extends RuntimeException {
+
+    private final DuplicateDetectionService.Kind kind;
+    private final int index;
+    private final Long duplicateOf;
+    private final Integer duplicateOfIndex;
+    private final double similarity;
+
+    public DuplicateTransactionException(DuplicateDetectionService.Kind kind, int index, Long duplicateOf,
+                                         Integer duplicateOfIndex, double similarity) {
+        super(String.format("Transaction %d looks like a %s duplicate of %s", index, kind.name().toLowerCase(Locale.ROOT),
+                duplicateOf != null ? "transaction " + duplicateOf : "item " + duplicateOfIndex + " of the batch"));
+        this.kind = kind;
+        this.index = index;
+        this.duplicateOf = duplicateOf;
+        this.duplicateOfIndex = duplicateOfIndex;
+        this.similarity = similarity;
+    }
+}
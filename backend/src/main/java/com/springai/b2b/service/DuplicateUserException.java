@@ -0,0 +1,8 @@
+package com.springai.b2b.service;
+
+public class DuplicateUserException extends RuntimeException {
+
+    public DuplicateUserException(String message) {
+        super(message);
+    }
+}
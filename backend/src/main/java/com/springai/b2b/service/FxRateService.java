@@ -0,0 +1,254 @@
+package com.springai.b2b.service;
+
+import com.springai.b2b.entity.FxRate;
+import com.springai.b2b.event.FxRatesChangedEvent;
+import com.springai.b2b.repository.FxRateRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Converts amounts into the reporting currency from an immutable snapshot of the latest
+ * {@code fx_rates} version. Readers never lock; a new version is built off to the side and swapped
+ * in atomically once it has committed, either when one is imported here or when another instance's
+ * version is picked up by the refresh poll. Transactions stored without a rate are converted in
+ * the background, in batches, after each import and on startup.
+ */
+@Service
+@Slf4j
+public class FxRateService {
+
+    private final FxRateRepository fxRateRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ResourceLoader resourceLoader;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final String reportingCurrency;
+    private final String ratesFile;
+    private final int backfillBatchSize;
+    private final long backfillPauseMs;
+
+    private final AtomicReference<FxSnapshot> snapshot;
+    private final ExecutorService backfillExecutor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("fx-backfill").daemon().factory());
+
+    public FxRateService(FxRateRepository fxRateRepository,
+                         JdbcTemplate jdbcTemplate,
+                         ResourceLoader resourceLoader,
+                         ApplicationEventPublisher eventPublisher,
+                         TransactionTemplate transactionTemplate,
+                         @Value("${fx.reporting-currency:USD}") String reportingCurrency,
+                         @Value("${fx.rates-file:classpath:fx-rates.csv}") String ratesFile,
+                         @Value("${fx.backfill.batch-size:1000}") int backfillBatchSize,
+                         @Value("${fx.backfill.pause-ms:100}") long backfillPauseMs) {
+        this.fxRateRepository = fxRateRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.resourceLoader = resourceLoader;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.reportingCurrency = reportingCurrency.toUpperCase(Locale.ROOT);
+        this.ratesFile = ratesFile;
+        this.backfillBatchSize = backfillBatchSize;
+        this.backfillPauseMs = backfillPauseMs;
+        this.snapshot = new AtomicReference<>(new FxSnapshot(0, this.reportingCurrency, Map.of(this.reportingCurrency, BigDecimal.ONE)));
+    }
+
+    @PostConstruct
+    public void initialize() {
+        if (fxRateRepository.findLatestVersion() == null) {
+            try {
+                importFile();
+            } catch (RuntimeException e) {
+                log.warn("Could not import FX rates from {}: {}", ratesFile, e.getMessage());
+            }
+        }
+        refresh();
+        // Picks up a backfill that an earlier run did not finish
+        long version = snapshot.get().version();
+        if (version > 0) {
+            backfillExecutor.submit(() -> backfill(version));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfillExecutor.shutdownNow();
+    }
+
+    public FxSnapshot current() {
+        return snapshot.get();
+    }
+
+    /**
+     * @return the amount in the reporting currency, or null when no rate is known for {@code currency}
+     */
+    public Conversion toReporting(BigDecimal amount, String currency) {
+        if (amount == null || currency == null) {
+            return null;
+        }
+        FxSnapshot rates = snapshot.get();
+        BigDecimal rate = rates.rates().get(currency.toUpperCase(Locale.ROOT));
+        if (rate == null) {
+            return null;
+        }
+        // HALF_UP, like round() on numeric in the backfill, so both paths store the same amount
+        return new Conversion(amount.multiply(rate).setScale(2, RoundingMode.HALF_UP), rates.version());
+    }
+
+    // Programmatic so the transaction also applies when importFile calls this from inside the bean
+    public FxSnapshot importRates(Map<String, BigDecimal> rates, String source) {
+        Map<String, BigDecimal> normalized = new HashMap<>();
+        rates.forEach((currency, rate) -> {
+            if (rate == null || rate.signum() <= 0) {
+                throw new IllegalArgumentException("Invalid rate for " + currency);
+            }
+            normalized.put(currency.trim().toUpperCase(Locale.ROOT), rate);
+        });
+        normalized.put(reportingCurrency, BigDecimal.ONE);
+
+        FxSnapshot next = transactionTemplate.execute(status -> {
+            // Serializes imports across instances, so two of them never both take max(version) + 1
+            jdbcTemplate.execute("SELECT pg_advisory_xact_lock(hashtext('fx_rates_import'))");
+            Long latest = fxRateRepository.findLatestVersion();
+            long version = latest != null ? latest + 1 : 1;
+            LocalDateTime now = LocalDateTime.now();
+
+            fxRateRepository.saveAllAndFlush(normalized.entrySet().stream()
+                    .map(entry -> FxRate.builder()
+                            .version(version)
+                            .currency(entry.getKey())
+                            .reportingCurrency(reportingCurrency)
+                            .rate(entry.getValue())
+                            .source(source)
+                            .createdAt(now)
+                            .build())
+                    .toList());
+            eventPublisher.publishEvent(new FxRatesChangedEvent(version));
+            return new FxSnapshot(version, reportingCurrency, Map.copyOf(normalized));
+        });
+
+        // Only now committed, so no conversion is ever tagged with a version that could still roll back
+        install(next);
+        backfillExecutor.submit(() -> backfill(next.version()));
+        log.info("Imported FX rate version {} ({} currencies) from {}", next.version(), normalized.size(), source);
+        return next;
+    }
+
+    /**
+     * Reads {@code currency,rate} lines from the configured file; blank lines and {@code #} comments are skipped.
+     */
+    public FxSnapshot importFile() {
+        Resource resource = resourceLoader.getResource(ratesFile);
+        Map<String, BigDecimal> rates = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split(",");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Malformed FX rate line: " + line);
+                }
+                rates.put(parts[0].strip(), new BigDecimal(parts[1].strip()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return importRates(rates, ratesFile);
+    }
+
+    @Scheduled(fixedDelayString = "${fx.refresh-interval-ms:60000}")
+    public void refresh() {
+        Long latest = fxRateRepository.findLatestVersion();
+        if (latest == null || latest <= snapshot.get().version()) {
+            return;
+        }
+
+        Map<String, BigDecimal> rates = new HashMap<>();
+        for (FxRate rate : fxRateRepository.findByVersion(latest)) {
+            rates.put(rate.getCurrency(), rate.getRate());
+        }
+        rates.putIfAbsent(reportingCurrency, BigDecimal.ONE);
+        install(new FxSnapshot(latest, reportingCurrency, Map.copyOf(rates)));
+        log.info("Loaded FX rate version {} ({} currencies)", latest, rates.size());
+    }
+
+    // After commit, for local imports and versions ClusterEventBus replays from other nodes
+    @TransactionalEventListener
+    public void onFxRatesChanged(FxRatesChangedEvent event) {
+        if (event.version() > snapshot.get().version()) {
+            refresh();
+        }
+    }
+
+    // An import and the refresh poll can race; the newer version wins either way
+    private void install(FxSnapshot next) {
+        snapshot.accumulateAndGet(next, (current, candidate) -> candidate.version() > current.version() ? candidate : current);
+    }
+
+    /**
+     * Transactions written while their currency had no rate are normalized once one appears, in
+     * keyset batches with a pause in between so a large table is never locked in one statement.
+     * Rows already converted are skipped, so repeating or overlapping runs are harmless.
+     */
+    private void backfill(long version) {
+        long lastId = 0;
+        long updated = 0;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM b2b_transactions WHERE id > ? "
+                        + "AND reporting_amount IS NULL AND total_amount IS NOT NULL ORDER BY id LIMIT ?",
+                        Long.class, lastId, backfillBatchSize);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                lastId = ids.get(ids.size() - 1);
+                updated += jdbcTemplate.update("UPDATE b2b_transactions t SET reporting_amount = round(t.total_amount * r.rate, 2), "
+                        + "fx_rate_version = r.version FROM fx_rates r WHERE r.version = ? AND r.currency = upper(t.currency) "
+                        + "AND t.id >= ? AND t.id <= ? AND t.reporting_amount IS NULL AND t.total_amount IS NOT NULL",
+                        version, ids.get(0), lastId);
+                Thread.sleep(backfillPauseMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("FX backfill with rate version {} stopped after id {}: {}", version, lastId, e.getMessage());
+        }
+        if (updated > 0) {
+            log.info("Normalized {} transactions with FX rate version {}", updated, version);
+        }
+    }
+
+    public record FxSnapshot(long version, String reportingCurrency, Map<String, BigDecimal> rates) {
+    }
+
+    public record Conversion(BigDecimal amount, long fxRateVersion) {
+    }
+}
@@ -0,0 +1,128 @@
+package com.springai.b2b.service;
+
+import com.springai.b2b.entity.B2BTransaction;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups insight requests into batched model calls. Requests submitted individually are held for
+ * at most {@code insights.batch.window-ms} or until {@code insights.batch.max-size} are pending,
+ * whichever comes first; uploads that already hold many transactions are split straight into
+ * full-size batches.
+ */
+@Component
+@Slf4j
+public class InsightBatcher {
+
+    private final AIInsightService insightService;
+    private final int maxBatchSize;
+    private final long windowMs;
+    private final ExecutorService dispatcher;
+    private final ScheduledExecutorService timer;
+
+    private final List<PendingInsight> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    public InsightBatcher(AIInsightService insightService,
+                          @Value("${insights.batch.max-size:10}") int maxBatchSize,
+                          @Value("${insights.batch.window-ms:20}") long windowMs,
+                          @Value("${insights.batch.concurrency:4}") int concurrency) {
+        this.insightService = insightService;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.windowMs = windowMs;
+        this.dispatcher = Executors.newFixedThreadPool(Math.max(1, concurrency),
+                Thread.ofPlatform().name("insight-batch-", 0).daemon().factory());
+        this.timer = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("insight-batch-timer").daemon().factory());
+    }
+
+    public CompletableFuture<String> submit(B2BTransaction transaction) {
+        if (windowMs <= 0 || maxBatchSize == 1) {
+            return CompletableFuture.completedFuture(insightService.generateAIInsights(transaction));
+        }
+
+        PendingInsight request = new PendingInsight(transaction, new CompletableFuture<>());
+        List<PendingInsight> ready = null;
+        synchronized (pending) {
+            pending.add(request);
+            if (pending.size() >= maxBatchSize) {
+                ready = drainPending();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = timer.schedule(this::flush, windowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (ready != null) {
+            dispatch(ready);
+        }
+        return request.result();
+    }
+
+    public List<String> generateAll(List<B2BTransaction> transactions) {
+        List<CompletableFuture<List<String>>> batches = new ArrayList<>();
+        for (int from = 0; from < transactions.size(); from += maxBatchSize) {
+            List<B2BTransaction> batch = transactions.subList(from, Math.min(from + maxBatchSize, transactions.size()));
+            batches.add(CompletableFuture.supplyAsync(() -> insightService.generateAIInsights(batch), dispatcher));
+        }
+
+        List<String> insights = new ArrayList<>(transactions.size());
+        batches.forEach(batch -> insights.addAll(batch.join()));
+        return insights;
+    }
+
+    private void flush() {
+        List<PendingInsight> ready;
+        synchronized (pending) {
+            ready = drainPending();
+        }
+        dispatch(ready);
+    }
+
+    private List<PendingInsight> drainPending() {
+        List<PendingInsight> ready = new ArrayList<>(pending);
+        pending.clear();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return ready;
+    }
+
+    private void dispatch(List<PendingInsight> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        dispatcher.execute(() -> {
+            try {
+                List<String> insights = insightService.generateAIInsights(
+                        batch.stream().map(PendingInsight::transaction).toList());
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).result().complete(insights.get(i));
+                }
+            } catch (Exception e) {
+                log.warn("Insight batch of {} failed", batch.size(), e);
+                batch.forEach(request -> request.result().complete(AIInsightService.INSIGHTS_UNAVAILABLE));
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        timer.shutdown();
+        dispatcher.shutdown();
+    }
+
+    private record PendingInsight(B2BTransaction transaction, CompletableFuture<String> result) {
+    }
+}
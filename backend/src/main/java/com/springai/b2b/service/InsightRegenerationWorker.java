@@ -0,0 +1,339 @@
+package com.springai.b2b.service;
+
+import com.springai.b2b.entity.B2BTransaction;
+import com.springai.b2b.entity.BatchJob;
+import com.springai.b2b.repository.B2BTransactionRepository;
+import com.springai.b2b.repository.BatchJobRepository;
+import com.springai.b2b.security.RateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs insight regeneration jobs. Jobs are walked by keyset on {@code id} one chunk at a time:
+ * an idle worker first claims a pending chunk (or one whose lease expired after a crash) with
+ * {@code FOR UPDATE SKIP LOCKED}, and only when there is none plans the next chunk past the job's
+ * cursor, under a {@code SKIP LOCKED} lock on the job row. Every node runs workers, so adding
+ * nodes adds throughput while the per-node LLM budget caps the model call rate.
+ */
+@Component
+@Slf4j
+public class InsightRegenerationWorker {
+
+    static final String TYPE = "INSIGHT_REGENERATION";
+    private static final String LLM_BUDGET = "llm";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BatchJobRepository batchJobRepository;
+    private final B2BTransactionRepository transactionRepository;
+    private final AIInsightService insightService;
+    private final MeterRegistry meterRegistry;
+    private final RateLimiter llmBudget = new RateLimiter();
+    private final boolean enabled;
+    private final int workers;
+    private final long pollIntervalMs;
+    private final long leaseMs;
+    private final int maxAttempts;
+    private final int batchSize;
+    private final long llmEmissionIntervalNanos;
+    private final int llmBurst;
+
+    private final ScheduledExecutorService executor;
+
+    public InsightRegenerationWorker(JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     BatchJobRepository batchJobRepository,
+                                     B2BTransactionRepository transactionRepository,
+                                     AIInsightService insightService,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${jobs.enabled:true}") boolean enabled,
+                                     @Value("${jobs.workers:2}") int workers,
+                                     @Value("${jobs.poll-interval-ms:2000}") long pollIntervalMs,
+                                     @Value("${jobs.lease-ms:300000}") long leaseMs,
+                                     @Value("${jobs.max-attempts:3}") int maxAttempts,
+                                     @Value("${insights.batch.max-size:10}") int batchSize,
+                                     @Value("${jobs.insights.llm-requests-per-second:1.0}") double llmRequestsPerSecond,
+                                     @Value("${jobs.insights.llm-burst:2}") int llmBurst) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchJobRepository = batchJobRepository;
+        this.transactionRepository = transactionRepository;
+        this.insightService = insightService;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.workers = Math.max(1, workers);
+        this.pollIntervalMs = pollIntervalMs;
+        this.leaseMs = leaseMs;
+        this.maxAttempts = maxAttempts;
+        this.batchSize = Math.max(1, batchSize);
+        this.llmEmissionIntervalNanos = (long) (1_000_000_000L / llmRequestsPerSecond);
+        this.llmBurst = Math.max(1, llmBurst);
+        this.executor = Executors.newScheduledThreadPool(this.workers,
+                Thread.ofPlatform().name("batch-job-", 0).daemon().factory());
+    }
+
+    @PostConstruct
+    public void start() {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_batch_job_chunks_open ON batch_job_chunks (job_id, chunk_no) "
+                + "WHERE status IN ('PENDING', 'RUNNING')");
+        if (enabled) {
+            for (int i = 0; i < workers; i++) {
+                executor.scheduleWithFixedDelay(this::work, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private void work() {
+        try {
+            Chunk chunk;
+            while (!executor.isShutdown() && (chunk = claim()) != null) {
+                process(chunk);
+            }
+        } catch (Exception e) {
+            log.warn("Batch job worker failed: {}", e.getMessage());
+        }
+    }
+
+    private Chunk claim() {
+        // Autocommit: the lease, not a held row lock, protects the chunk while it is processed
+        List<Chunk> claimed = jdbcTemplate.query(
+                "UPDATE batch_job_chunks SET status = 'RUNNING', lease_until = now() + make_interval(secs => ?), "
+                        + "attempts = attempts + 1 WHERE id = (SELECT c.id FROM batch_job_chunks c "
+                        + "JOIN batch_jobs j ON j.id = c.job_id WHERE j.status = 'RUNNING' "
+                        + "AND (c.status = 'PENDING' OR (c.status = 'RUNNING' AND c.lease_until < now())) "
+                        + "ORDER BY c.job_id, c.chunk_no LIMIT 1 FOR UPDATE OF c SKIP LOCKED) "
+                        + "RETURNING id, job_id, start_id, end_id, row_count, attempts",
+                (resultSet, rowNum) -> new Chunk(resultSet.getLong("id"), resultSet.getLong("job_id"),
+                        resultSet.getLong("start_id"), resultSet.getLong("end_id"),
+                        resultSet.getInt("row_count"), resultSet.getInt("attempts")),
+                leaseMs / 1000.0);
+        return claimed.isEmpty() ? planNextChunk() : claimed.get(0);
+    }
+
+    private Chunk planNextChunk() {
+        return transactionTemplate.execute(status -> {
+            List<BatchJob> jobs = jdbcTemplate.query("SELECT id, plan_cursor, max_id, chunk_size, total_chunks, "
+                            + "min_risk_score, created_from, created_to FROM batch_jobs "
+                            + "WHERE status = 'RUNNING' AND NOT planned ORDER BY id LIMIT 1 FOR UPDATE SKIP LOCKED",
+                    (resultSet, rowNum) -> BatchJob.builder()
+                            .id(resultSet.getLong("id"))
+                            .planCursor(resultSet.getLong("plan_cursor"))
+                            .maxId(resultSet.getLong("max_id"))
+                            .chunkSize(resultSet.getInt("chunk_size"))
+                            .totalChunks(resultSet.getInt("total_chunks"))
+                            .minRiskScore((Integer) resultSet.getObject("min_risk_score"))
+                            .createdFrom(toLocalDateTime(resultSet.getTimestamp("created_from")))
+                            .createdTo(toLocalDateTime(resultSet.getTimestamp("created_to")))
+                            .build());
+            if (jobs.isEmpty()) {
+                return null;
+            }
+            BatchJob job = jobs.get(0);
+
+            List<Object> args = new ArrayList<>(List.of(job.getPlanCursor(), job.getMaxId()));
+            StringBuilder sql = new StringBuilder("SELECT id FROM b2b_transactions WHERE id > ? AND id <= ?");
+            BatchJobService.appendFilter(sql, args, job.getMinRiskScore(), job.getCreatedFrom(), job.getCreatedTo());
+            sql.append(" ORDER BY id LIMIT ?");
+            args.add(job.getChunkSize());
+            List<Long> ids = jdbcTemplate.queryForList(sql.toString(), Long.class, args.toArray());
+
+            if (ids.isEmpty()) {
+                jdbcTemplate.update("UPDATE batch_jobs SET planned = true, updated_at = now() WHERE id = ?", job.getId());
+                completeIfDone(job.getId());
+                return null;
+            }
+
+            long startId = ids.get(0);
+            long endId = ids.get(ids.size() - 1);
+            Long chunkId = jdbcTemplate.queryForObject("INSERT INTO batch_job_chunks (job_id, chunk_no, start_id, end_id, "
+                            + "row_count, status, attempts, lease_until, created_at) "
+                            + "VALUES (?, ?, ?, ?, ?, 'RUNNING', 1, now() + make_interval(secs => ?), now()) RETURNING id",
+                    Long.class, job.getId(), job.getTotalChunks(), startId, endId, ids.size(), leaseMs / 1000.0);
+            jdbcTemplate.update("UPDATE batch_jobs SET plan_cursor = ?, total_chunks = total_chunks + 1, "
+                    + "updated_at = now() WHERE id = ?", endId, job.getId());
+            return new Chunk(chunkId, job.getId(), startId, endId, ids.size(), 1);
+        });
+    }
+
+    private void process(Chunk chunk) {
+        long start = System.nanoTime();
+        BatchJob job = batchJobRepository.findById(chunk.jobId()).orElseThrow();
+        if (chunk.attempt() > maxAttempts) {
+            fail(chunk, "Gave up after " + maxAttempts + " attempts");
+            record("failed", start);
+            return;
+        }
+
+        try {
+            List<B2BTransaction> rows = transactionRepository.findByIdBetweenOrderByIdAsc(chunk.startId(), chunk.endId())
+                    .stream().filter(transaction -> matches(job, transaction)).toList();
+            Progress progress = new Progress();
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                String jobStatus = heartbeat(chunk);
+                if (jobStatus == null) {
+                    log.warn("Lost the lease on chunk {} of batch job {}", chunk.id(), chunk.jobId());
+                    return;
+                }
+                if (!BatchJob.Status.RUNNING.name().equals(jobStatus)) {
+                    release(chunk);
+                    return;
+                }
+
+                List<B2BTransaction> batch = rows.subList(from, Math.min(rows.size(), from + batchSize));
+                progress.modelCalls++;
+                progress.processed += batch.size();
+                if (job.getDryRun()) {
+                    continue;
+                }
+
+                awaitLlmBudget();
+                List<String> insights = insightService.generateAIInsights(batch);
+                LocalDateTime now = LocalDateTime.now();
+                for (int i = 0; i < batch.size(); i++) {
+                    // Keep the previous analysis rather than overwriting it with the fallback text
+                    if (AIInsightService.INSIGHTS_UNAVAILABLE.equals(insights.get(i))) {
+                        progress.failed++;
+                    } else {
+                        transactionRepository.updateAiInsights(batch.get(i).getId(), insights.get(i), now);
+                        progress.updated++;
+                    }
+                }
+            }
+            complete(chunk, progress);
+            record("success", start);
+        } catch (Exception e) {
+            String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            if (chunk.attempt() >= maxAttempts) {
+                fail(chunk, error);
+                record("failed", start);
+                log.error("Chunk {} of batch job {} gave up after {} attempts: {}",
+                        chunk.id(), chunk.jobId(), chunk.attempt(), error);
+            } else {
+                jdbcTemplate.update("UPDATE batch_job_chunks SET status = 'PENDING', lease_until = NULL, last_error = ? "
+                        + "WHERE id = ? AND attempts = ?", error, chunk.id(), chunk.attempt());
+                record("retry", start);
+                log.warn("Chunk {} of batch job {} failed (attempt {}), retrying: {}",
+                        chunk.id(), chunk.jobId(), chunk.attempt(), error);
+            }
+        }
+    }
+
+    private static boolean matches(BatchJob job, B2BTransaction transaction) {
+        return (job.getMinRiskScore() == null || transaction.getRiskScore() == null
+                || transaction.getRiskScore() >= job.getMinRiskScore())
+                && (job.getCreatedFrom() == null || !transaction.getCreatedAt().isBefore(job.getCreatedFrom()))
+                && (job.getCreatedTo() == null || transaction.getCreatedAt().isBefore(job.getCreatedTo()));
+    }
+
+    private void awaitLlmBudget() {
+        long wait;
+        while ((wait = llmBudget.tryAcquire(LLM_BUDGET, llmEmissionIntervalNanos, llmBurst)) > 0) {
+            LockSupport.parkNanos(wait);
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IllegalStateException("Interrupted while waiting for the LLM budget");
+            }
+        }
+    }
+
+    /**
+     * Extends the lease and returns the job status, or null when another worker has taken the chunk over.
+     */
+    private String heartbeat(Chunk chunk) {
+        List<String> status = jdbcTemplate.queryForList("UPDATE batch_job_chunks c "
+                        + "SET lease_until = now() + make_interval(secs => ?) FROM batch_jobs j "
+                        + "WHERE c.id = ? AND c.attempts = ? AND c.status = 'RUNNING' AND j.id = c.job_id RETURNING j.status",
+                String.class, leaseMs / 1000.0, chunk.id(), chunk.attempt());
+        return status.isEmpty() ? null : status.get(0);
+    }
+
+    // A paused or cancelled job hands its chunk back without spending an attempt
+    private void release(Chunk chunk) {
+        jdbcTemplate.update("UPDATE batch_job_chunks SET status = 'PENDING', lease_until = NULL, attempts = attempts - 1 "
+                + "WHERE id = ? AND attempts = ?", chunk.id(), chunk.attempt());
+    }
+
+    // The chunk row is updated before the job row in each transaction: the job row lock then orders
+    // concurrent finishers, so whichever commits last sees every other chunk closed and completes the job
+    private void complete(Chunk chunk, Progress progress) {
+        transactionTemplate.executeWithoutResult(status -> {
+            int closed = jdbcTemplate.update("UPDATE batch_job_chunks SET status = 'DONE', lease_until = NULL, "
+                    + "last_error = NULL, finished_at = now() WHERE id = ? AND attempts = ?", chunk.id(), chunk.attempt());
+            if (closed == 0) {
+                return;
+            }
+            jdbcTemplate.update("UPDATE batch_jobs SET completed_chunks = completed_chunks + 1, "
+                            + "processed_rows = processed_rows + ?, updated_rows = updated_rows + ?, "
+                            + "failed_rows = failed_rows + ?, model_calls = model_calls + ?, updated_at = now() WHERE id = ?",
+                    progress.processed, progress.updated, progress.failed, progress.modelCalls, chunk.jobId());
+            completeIfDone(chunk.jobId());
+        });
+    }
+
+    private void fail(Chunk chunk, String error) {
+        transactionTemplate.executeWithoutResult(status -> {
+            int closed = jdbcTemplate.update("UPDATE batch_job_chunks SET status = 'FAILED', lease_until = NULL, "
+                    + "last_error = ?, finished_at = now() WHERE id = ? AND attempts = ?", error, chunk.id(), chunk.attempt());
+            if (closed == 0) {
+                return;
+            }
+            jdbcTemplate.update("UPDATE batch_jobs SET failed_chunks = failed_chunks + 1, "
+                            + "processed_rows = processed_rows + ?, failed_rows = failed_rows + ?, last_error = ?, "
+                            + "updated_at = now() WHERE id = ?",
+                    chunk.rowCount(), chunk.rowCount(), error, chunk.jobId());
+            completeIfDone(chunk.jobId());
+        });
+    }
+
+    private void completeIfDone(long jobId) {
+        int completed = jdbcTemplate.update("UPDATE batch_jobs SET status = 'COMPLETED', finished_at = now(), "
+                + "updated_at = now() WHERE id = ? AND status = 'RUNNING' AND planned AND NOT EXISTS "
+                + "(SELECT 1 FROM batch_job_chunks WHERE job_id = ? AND status IN ('PENDING', 'RUNNING'))", jobId, jobId);
+        if (completed > 0) {
+            log.info("Batch job {} completed", jobId);
+        }
+    }
+
+    private void record(String result, long start) {
+        Timer.builder("batch_jobs.chunk")
+                .tag("type", TYPE)
+                .tag("result", result)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private record Chunk(long id, long jobId, long startId, long endId, int rowCount, int attempt) {
+    }
+
+    private static final class Progress {
+        long processed;
+        long updated;
+        long failed;
+        long modelCalls;
+    }
+}
@@ -0,0 +1,8 @@
+package com.springai.b2b.service;
+
+public class InvalidStatusTransitionException extends RuntimeException {
+
+    public InvalidStatusTransitionException(String message) {
+        super(message);
+    }
+}
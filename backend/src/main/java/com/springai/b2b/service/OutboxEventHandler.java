@@ -0,0 +1,25 @@
+package com.springai.b2b.service;
+
+/**
+ * A downstream integration fed by the transactional outbox. Every handler bean gets its own outbox
+ * row per matching event, so handlers retry independently. Delivery is at-least-once and, across
+ * events for the same aggregate, unordered: implementations must be idempotent and should read
+ * current state rather than trust the payload to be the latest.
+ */
+public interface OutboxEventHandler {
+
+    /**
+     * Stable identifier stored on outbox rows; renaming it orphans pending rows.
+     */
+    String name();
+
+    boolean supports(String aggregateType, String eventType);
+
+    /**
+     * Throwing schedules a retry with backoff.
+     */
+    void handle(OutboxMessage message) throws Exception;
+
+    record OutboxMessage(long id, String aggregateType, String aggregateId, String eventType, String payload, int attempt) {
+    }
+}
@@ -0,0 +1,207 @@
+package com.springai.b2b.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers outbox rows to their handlers. Each poll claims a batch with
+ * {@code FOR UPDATE SKIP LOCKED} and stamps a lease on it in a short transaction, so several
+ * nodes can relay concurrently without double-claiming; rows whose node dies mid-delivery become
+ * claimable again when the lease expires. Failures back off exponentially up to
+ * {@code max-attempts}, after which the row is parked as DEAD.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, OutboxEventHandler> handlers;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final long leaseMs;
+    private final int maxAttempts;
+    private final long backoffBaseMs;
+    private final long backoffMaxMs;
+    private final MeterRegistry meterRegistry;
+    private final Counter deadLettered;
+
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("outbox-relay").daemon().factory());
+    private final ExecutorService dispatcher;
+
+    private volatile long pendingCount;
+    private volatile double oldestPendingSeconds;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate,
+                       List<OutboxEventHandler> handlers,
+                       MeterRegistry meterRegistry,
+                       @Value("${outbox.enabled:true}") boolean enabled,
+                       @Value("${outbox.batch-size:100}") int batchSize,
+                       @Value("${outbox.concurrency:4}") int concurrency,
+                       @Value("${outbox.poll-interval-ms:500}") long pollIntervalMs,
+                       @Value("${outbox.lease-ms:60000}") long leaseMs,
+                       @Value("${outbox.max-attempts:10}") int maxAttempts,
+                       @Value("${outbox.backoff-base-ms:1000}") long backoffBaseMs,
+                       @Value("${outbox.backoff-max-ms:600000}") long backoffMaxMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.handlers = handlers.stream().collect(Collectors.toMap(OutboxEventHandler::name, Function.identity()));
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.leaseMs = leaseMs;
+        this.maxAttempts = maxAttempts;
+        this.backoffBaseMs = backoffBaseMs;
+        this.backoffMaxMs = backoffMaxMs;
+        this.meterRegistry = meterRegistry;
+        this.dispatcher = Executors.newFixedThreadPool(concurrency,
+                Thread.ofPlatform().name("outbox-dispatcher-", 0).daemon().factory());
+
+        Gauge.builder("outbox.pending", this, relay -> relay.pendingCount).register(meterRegistry);
+        Gauge.builder("outbox.lag", this, relay -> relay.oldestPendingSeconds).baseUnit("seconds").register(meterRegistry);
+        this.deadLettered = Counter.builder("outbox.dead").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_outbox_events_pending ON outbox_events (next_attempt_at, id) "
+                + "WHERE status = 'PENDING'");
+        if (enabled) {
+            poller.scheduleWithFixedDelay(this::poll, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.cleanup-interval-ms:3600000}")
+    public void cleanup() {
+        jdbcTemplate.update("DELETE FROM outbox_events WHERE status = 'DONE' AND processed_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(1)));
+    }
+
+    @PreDestroy
+    public void stop() {
+        poller.shutdown();
+        dispatcher.shutdown();
+        try {
+            dispatcher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void poll() {
+        try {
+            int claimed;
+            do {
+                claimed = relayBatch();
+            } while (claimed == batchSize && !poller.isShutdown());
+            updateLag();
+        } catch (Exception e) {
+            log.warn("Outbox relay poll failed: {}", e.getMessage());
+        }
+    }
+
+    private int relayBatch() {
+        // Autocommit: the claim commits immediately and the lease, not a held row lock, protects delivery
+        List<Claim> batch = jdbcTemplate.query(
+                "UPDATE outbox_events SET lease_until = now() + make_interval(secs => ?), attempts = attempts + 1 "
+                        + "WHERE id IN (SELECT id FROM outbox_events WHERE status = 'PENDING' AND next_attempt_at <= now() "
+                        + "AND (lease_until IS NULL OR lease_until < now()) ORDER BY next_attempt_at, id LIMIT ? "
+                        + "FOR UPDATE SKIP LOCKED) "
+                        + "RETURNING id, handler, aggregate_type, aggregate_id, event_type, payload, attempts",
+                (resultSet, rowNum) -> new Claim(resultSet.getString("handler"), new OutboxEventHandler.OutboxMessage(
+                        resultSet.getLong("id"),
+                        resultSet.getString("aggregate_type"),
+                        resultSet.getString("aggregate_id"),
+                        resultSet.getString("event_type"),
+                        resultSet.getString("payload"),
+                        resultSet.getInt("attempts"))),
+                leaseMs / 1000.0, batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        CompletableFuture.allOf(batch.stream()
+                .map(claim -> CompletableFuture.runAsync(() -> deliver(claim), dispatcher))
+                .toArray(CompletableFuture[]::new)).join();
+        return batch.size();
+    }
+
+    private void deliver(Claim claim) {
+        OutboxEventHandler.OutboxMessage message = claim.message();
+        OutboxEventHandler handler = handlers.get(claim.handler());
+        long start = System.nanoTime();
+        try {
+            if (handler == null) {
+                throw new IllegalStateException("No outbox handler named " + claim.handler());
+            }
+            handler.handle(message);
+            jdbcTemplate.update("UPDATE outbox_events SET status = 'DONE', processed_at = now(), lease_until = NULL, "
+                    + "last_error = NULL WHERE id = ?", message.id());
+            record(claim.handler(), "success", start);
+        } catch (Exception e) {
+            String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            if (message.attempt() >= maxAttempts) {
+                jdbcTemplate.update("UPDATE outbox_events SET status = 'DEAD', processed_at = now(), lease_until = NULL, "
+                        + "last_error = ? WHERE id = ?", error, message.id());
+                deadLettered.increment();
+                record(claim.handler(), "dead", start);
+                log.error("Outbox event {} for {} gave up after {} attempts: {}",
+                        message.id(), claim.handler(), message.attempt(), error);
+            } else {
+                jdbcTemplate.update("UPDATE outbox_events SET next_attempt_at = ?, lease_until = NULL, last_error = ? "
+                        + "WHERE id = ?", Timestamp.valueOf(LocalDateTime.now().plusNanos(backoff(message.attempt()) * 1_000_000)),
+                        error, message.id());
+                record(claim.handler(), "retry", start);
+                log.warn("Outbox event {} for {} failed (attempt {}), retrying: {}",
+                        message.id(), claim.handler(), message.attempt(), error);
+            }
+        }
+    }
+
+    // Full jitter, so a downstream outage does not turn into synchronized retry waves
+    private long backoff(int attempt) {
+        long ceiling = Math.min(backoffMaxMs, backoffBaseMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(backoffBaseMs / 2, Math.max(backoffBaseMs / 2 + 1, ceiling));
+    }
+
+    private void record(String handler, String result, long start) {
+        Timer.builder("outbox.delivery")
+                .tag("handler", handler)
+                .tag("result", result)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void updateLag() {
+        jdbcTemplate.query("SELECT count(*), COALESCE(EXTRACT(EPOCH FROM now() - min(created_at)), 0) "
+                + "FROM outbox_events WHERE status = 'PENDING'", resultSet -> {
+            pendingCount = resultSet.getLong(1);
+            oldestPendingSeconds = resultSet.getDouble(2);
+        });
+    }
+
+    private record Claim(String handler, OutboxEventHandler.OutboxMessage message) {
+    }
+}
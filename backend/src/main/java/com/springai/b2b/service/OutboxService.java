@@ -0,0 +1,77 @@
+package com.springai.b2b.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springai.b2b.entity.OutboxEvent;
+import com.springai.b2b.event.TransactionChangedEvent;
+import com.springai.b2b.event.TransactionOverdueEvent;
+import com.springai.b2b.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Turns domain events into outbox rows inside the publishing transaction, so a change and the
+ * deliveries it owes commit or roll back together.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    static final String TRANSACTION_AGGREGATE = "transaction";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OutboxEventHandler> handlers;
+    private final ObjectMapper objectMapper;
+
+    // BEFORE_COMMIT still runs inside the transaction. Events replayed from other nodes are skipped:
+    // their origin node already wrote the rows, and every other node would write them again
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        if (ClusterEventBus.isDispatchingRemote()) {
+            return;
+        }
+        record(TRANSACTION_AGGREGATE, event.transactionId(), event.type().name(), event);
+    }
+
+    // No handler supports OVERDUE yet, so this writes no rows until one is registered; escalations
+    // are visible through sla_escalated_at, the at-risk endpoint and the sla.escalations counter
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onTransactionOverdue(TransactionOverdueEvent event) {
+        if (ClusterEventBus.isDispatchingRemote()) {
+            return;
+        }
+        record(TRANSACTION_AGGREGATE, event.transactionId(), TransactionOverdueEvent.TYPE, event);
+    }
+
+    public void record(String aggregateType, String aggregateId, String eventType, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> rows = handlers.stream()
+                .filter(handler -> handler.supports(aggregateType, eventType))
+                .map(handler -> OutboxEvent.builder()
+                        .handler(handler.name())
+                        .aggregateType(aggregateType)
+                        .aggregateId(aggregateId)
+                        .eventType(eventType)
+                        .payload(json)
+                        .nextAttemptAt(now)
+                        .createdAt(now)
+                        .build())
+                .toList();
+        if (!rows.isEmpty()) {
+            outboxEventRepository.saveAll(rows);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.springai.b2b.service;
+
+import com.springai.b2b.dto.TransactionResponse;
+import com.springai.b2b.dto.TransactionSearchResponse;
+import com.springai.b2b.entity.B2BTransaction;
+import com.springai.b2b.security.UserPrincipal;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only queries over {@code b2b_transactions} through R2DBC, for the polling-heavy list,
+ * detail and search reads. Rows are fetched from a server-side cursor {@code fetch-size} at a
+ * time as the subscriber requests them, so a slow client holds neither a thread nor the whole
+ * result in memory. Writes stay on the JPA path in {@link TransactionService}.
+ */
+@Service
+public class ReactiveTransactionQueryService {
+
+    private static final String COLUMNS = "t.id, t.transaction_id, t.buyer_company, t.seller_company, "
+            + "t.buyer_company_id, t.seller_company_id, t.product_name, t.product_description, t.quantity, "
+            + "t.unit_price, t.total_amount, t.currency, t.reporting_amount, t.status, t.payment_terms, "
+            + "t.delivery_date, t.notes, t.ai_insights, t.risk_score, t.duplicate_of_id, t.created_at, t.updated_at";
+
+    private final DatabaseClient databaseClient;
+    private final AuditLogService auditLog;
+    private final int fetchSize;
+
+    public ReactiveTransactionQueryService(DatabaseClient databaseClient,
+                                           AuditLogService auditLog,
+                                           @Value("${reactive.fetch-size:100}") int fetchSize) {
+        this.databaseClient = databaseClient;
+        this.auditLog = auditLog;
+        this.fetchSize = fetchSize;
+    }
+
+    public Flux<TransactionResponse> getTransactions(LocalDateTime from, LocalDateTime to) {
+        UserPrincipal principal = getCurrentPrincipal();
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM b2b_transactions t WHERE t.user_id = :userId");
+        Map<String, Object> params = new HashMap<>();
+        params.put("userId", principal.getId());
+        if (from != null) {
+            sql.append(" AND t.created_at >= :from");
+            params.put("from", from);
+        }
+        if (to != null) {
+            sql.append(" AND t.created_at <= :to");
+            params.put("to", to);
+        }
+        sql.append(" ORDER BY t.created_at DESC, t.id DESC");
+
+        return databaseClient.sql(sql.toString())
+                .bindValues(params)
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(ReactiveTransactionQueryService::mapToResponse)
+                .all()
+                .doOnNext(transaction -> auditRead(principal, transaction));
+    }
+
+    public Mono<TransactionResponse> getTransactionById(Long id) {
+        UserPrincipal principal = getCurrentPrincipal();
+        return databaseClient.sql("SELECT t.user_id, " + COLUMNS + " FROM b2b_transactions t WHERE t.id = :id")
+                .bind("id", id)
+                .map(row -> {
+                    Long ownerId = row.get("user_id", Long.class);
+                    if (!principal.getId().equals(ownerId) && !principal.getRoles().contains("ADMIN")) {
+                        throw new RuntimeException("Unauthorized access to transaction");
+                    }
+                    return mapToResponse(row);
+                })
+                .one()
+                .doOnNext(transaction -> auditRead(principal, transaction))
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Transaction not found")));
+    }
+
+    /**
+     * Same ranking and cursor as {@link TransactionSearchService#search}, but returns the rows in
+     * the ranking query itself instead of loading them by id afterwards.
+     */
+    public Mono<TransactionSearchResponse> searchTransactions(String query, B2BTransaction.TransactionStatus status,
+                                                              LocalDateTime from, LocalDateTime to,
+                                                              String cursor, int limit) {
+        UserPrincipal principal = getCurrentPrincipal();
+        String tsQuery = TransactionSearchService.toPrefixQuery(query);
+        if (tsQuery.isEmpty()) {
+            return Mono.just(TransactionSearchResponse.builder().results(List.of()).build());
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + ", ts_rank_cd(t.search_vector, q) AS rank "
+                + "FROM b2b_transactions t, to_tsquery('simple', :query) q WHERE t.search_vector @@ q");
+        Map<String, Object> params = new HashMap<>();
+        params.put("query", tsQuery);
+        if (!principal.getRoles().contains("ADMIN")) {
+            sql.append(" AND t.user_id = :userId");
+            params.put("userId", principal.getId());
+        }
+        if (status != null) {
+            sql.append(" AND t.status = :status");
+            params.put("status", status.name());
+        }
+        if (from != null) {
+            sql.append(" AND t.created_at >= :from");
+            params.put("from", from);
+        }
+        if (to != null) {
+            sql.append(" AND t.created_at <= :to");
+            params.put("to", to);
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            TransactionSearchService.Cursor after = TransactionSearchService.Cursor.decode(cursor);
+            sql.append(" AND (ts_rank_cd(t.search_vector, q), t.id) < (CAST(:rank AS real), :afterId)");
+            params.put("rank", after.rank());
+            params.put("afterId", after.id());
+        }
+        sql.append(" ORDER BY rank DESC, t.id DESC LIMIT :limit");
+        params.put("limit", limit + 1);
+
+        return databaseClient.sql(sql.toString())
+                .bindValues(params)
+                .map(row -> new RankedRow(mapToResponse(row), row.get("rank", Float.class)))
+                .all()
+                .collectList()
+                .map(rows -> {
+                    String nextCursor = null;
+                    if (rows.size() > limit) {
+                        rows = rows.subList(0, limit);
+                        RankedRow last = rows.get(limit - 1);
+                        nextCursor = new TransactionSearchService.Cursor(last.rank(), last.transaction().getId()).encode();
+                    }
+                    rows.forEach(row -> auditRead(principal, row.transaction()));
+                    return TransactionSearchResponse.builder()
+                            .results(rows.stream().map(RankedRow::transaction).toList())
+                            .nextCursor(nextCursor)
+                            .build();
+                });
+    }
+
+    private void auditRead(UserPrincipal principal, TransactionResponse transaction) {
+        auditLog.record(AuditLogService.Action.READ, principal.getId(), transaction.getId());
+    }
+
+    private UserPrincipal getCurrentPrincipal() {
+        return (UserPrincipal) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    }
+
+    private static TransactionResponse mapToResponse(Readable row) {
+        return TransactionResponse.builder()
+                .id(row.get("id", Long.class))
+                .transactionId(row.get("transaction_id", String.class))
+                .buyerCompany(row.get("buyer_company", String.class))
+                .sellerCompany(row.get("seller_company", String.class))
+                .buyerCompanyId(row.get("buyer_company_id", Long.class))
+                .sellerCompanyId(row.get("seller_company_id", Long.class))
+                .productName(row.get("product_name", String.class))
+                .productDescription(row.get("product_description", String.class))
+                .quantity(row.get("quantity", Integer.class))
+                .unitPrice(row.get("unit_price", BigDecimal.class))
+                .totalAmount(row.get("total_amount", BigDecimal.class))
+                .currency(row.get("currency", String.class))
+                .reportingAmount(row.get("reporting_amount", BigDecimal.class))
+                .status(B2BTransaction.TransactionStatus.valueOf(row.get("status", String.class)))
+                .paymentTerms(row.get("payment_terms", String.class))
+                .deliveryDate(row.get("delivery_date", LocalDateTime.class))
+                .notes(row.get("notes", String.class))
+                .aiInsights(row.get("ai_insights", String.class))
+                .riskScore(row.get("risk_score", Integer.class))
+                .duplicateOf(row.get("duplicate_of_id", Long.class))
+                .createdAt(row.get("created_at", LocalDateTime.class))
+                .updatedAt(row.get("updated_at", LocalDateTime.class))
+                .build();
+    }
+
+    private record RankedRow(TransactionResponse transaction, float rank) {
+    }
+}
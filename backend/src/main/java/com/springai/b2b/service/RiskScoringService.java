@@ -0,0 +1,141 @@
+package com.springai.b2b.service;
+
+import com.springai.b2b.entity.B2BTransaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.OptionalDouble;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Deterministic risk score (0-100) computed from the transaction itself and the in-memory
+ * statistics, so only transactions at or above {@code risk.llm-threshold} pay for an AI analysis.
+ */
+@Service
+public class RiskScoringService {
+
+    // "2/10 net 30", "2%/10, n/30": the discount window is optional, the net term is what is financed
+    private static final Pattern DISCOUNT_NET = Pattern.compile(
+            "\\b\\d{1,2}(?:\\.\\d+)?%?\\s*/\\s*\\d{1,3}\\s*,?\\s*(?:net\\s*[/-]?\\s*|n/)(\\d{1,3})\\b");
+    // "net 30", "Net-45", "n/60"
+    private static final Pattern NET = Pattern.compile("\\b(?:net\\s*[/-]?\\s*|n/)(\\d{1,3})\\b");
+    // "60 days", "90 days from invoice"
+    private static final Pattern DAYS = Pattern.compile("\\b(\\d{1,3})\\s*days?\\b");
+    private static final Pattern IMMEDIATE = Pattern.compile("\\b(?:cod|cia|cwo|prepaid|prepayment|prepay|advance|"
+            + "upfront|up front|cash on delivery|cash in advance|due on receipt|upon receipt)\\b");
+
+    private final TransactionStatisticsService statisticsService;
+    private final int llmThreshold;
+    private final BigDecimal largeAmount;
+    private final BigDecimal veryLargeAmount;
+    private final double priceDeviation;
+
+    public RiskScoringService(TransactionStatisticsService statisticsService,
+                              @Value("${risk.llm-threshold:40}") int llmThreshold,
+                              @Value("${risk.large-amount:100000}") BigDecimal largeAmount,
+                              @Value("${risk.very-large-amount:1000000}") BigDecimal veryLargeAmount,
+                              @Value("${risk.price-deviation:0.25}") double priceDeviation) {
+        this.statisticsService = statisticsService;
+        this.llmThreshold = llmThreshold;
+        this.largeAmount = largeAmount;
+        this.veryLargeAmount = veryLargeAmount;
+        this.priceDeviation = priceDeviation;
+    }
+
+    public RiskAssessment assess(B2BTransaction transaction) {
+        int score = 0;
+        List<String> reasons = new ArrayList<>();
+
+        BigDecimal total = transaction.getTotalAmount();
+        if (total.compareTo(veryLargeAmount) >= 0) {
+            score += 35;
+            reasons.add("very large order value");
+        } else if (total.compareTo(largeAmount) >= 0) {
+            score += 20;
+            reasons.add("large order value");
+        }
+
+        if (statisticsService.orderCount(transaction.getBuyerCompany()) == 0) {
+            score += 15;
+            reasons.add("first order from buyer");
+        } else if (statisticsService.failureRate(transaction.getBuyerCompany()) > 0.3) {
+            score += 15;
+            reasons.add("buyer has a high cancellation/rejection rate");
+        }
+        if (statisticsService.orderCount(transaction.getSellerCompany()) == 0) {
+            score += 10;
+            reasons.add("first order with seller");
+        } else if (statisticsService.failureRate(transaction.getSellerCompany()) > 0.3) {
+            score += 10;
+            reasons.add("seller has a high cancellation/rejection rate");
+        }
+
+        OptionalDouble median = statisticsService.medianUnitPrice(transaction.getProductName());
+        if (median.isEmpty() || median.getAsDouble() <= 0) {
+            score += 10;
+            reasons.add("no price history for product");
+        } else {
+            double deviation = Math.abs(transaction.getUnitPrice().doubleValue() - median.getAsDouble()) / median.getAsDouble();
+            if (deviation >= priceDeviation * 2) {
+                score += 35;
+                reasons.add(String.format("unit price %.0f%% away from product median %.2f", deviation * 100, median.getAsDouble()));
+            } else if (deviation >= priceDeviation) {
+                score += 20;
+                reasons.add(String.format("unit price %.0f%% away from product median %.2f", deviation * 100, median.getAsDouble()));
+            }
+        }
+
+        int termDays = paymentTermDays(transaction.getPaymentTerms());
+        if (termDays < 0) {
+            score += 5;
+            reasons.add("no payment terms");
+        } else if (termDays > 60) {
+            score += 15;
+            reasons.add("extended payment terms (" + termDays + " days)");
+        } else if (termDays > 30) {
+            score += 5;
+            reasons.add("payment terms over 30 days");
+        }
+
+        return new RiskAssessment(Math.min(score, 100), reasons);
+    }
+
+    public boolean requiresAIInsights(RiskAssessment assessment) {
+        return assessment.score() >= llmThreshold;
+    }
+
+    /**
+     * Days of credit granted by the payment terms: 0 for payment up front or on delivery, 30 for
+     * terms that name no recognizable period, -1 when there are none.
+     */
+    static int paymentTermDays(String paymentTerms) {
+        if (paymentTerms == null || paymentTerms.isBlank()) {
+            return -1;
+        }
+        String terms = paymentTerms.toLowerCase(Locale.ROOT);
+        for (Pattern pattern : List.of(DISCOUNT_NET, NET, DAYS)) {
+            Matcher days = pattern.matcher(terms);
+            if (days.find()) {
+                return Integer.parseInt(days.group(1));
+            }
+        }
+        return IMMEDIATE.matcher(terms).find() ? 0 : 30;
+    }
+
+    public record RiskAssessment(int score, List<String> reasons) {
+
+        public String summary() {
+            if (reasons.isEmpty()) {
+                return "Routine transaction (risk score " + score + "/100): no unusual amount, counterparty, "
+                        + "pricing or payment-term signals. Automated AI analysis was not required.";
+            }
+            return "Routine transaction (risk score " + score + "/100): " + String.join("; ", reasons)
+                    + ". Below the threshold for automated AI analysis.";
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.springai.b2b.service;
+
+import com.springai.b2b.entity.B2BTransaction;
+import com.springai.b2b.event.TransactionChangedEvent;
+import com.springai.b2b.event.TransactionOverdueEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Escalates open orders whose delivery date has passed. Due orders are read from a partial index
+ * over open, not yet escalated orders with a delivery date, one look-ahead window at a time, and
+ * parked in an in-memory timer wheel that fires them on time; orders created or re-dated inside the
+ * window are added from change events. Escalated orders leave that index, so each read touches only
+ * the orders due in the window, however many overdue orders stay open. Escalation is a guarded
+ * UPDATE, so several nodes can run the wheel without firing twice.
+ */
+@Service
+@Slf4j
+public class SlaMonitorService {
+
+    private static final String OPEN = TransactionWorkflowService.openStatuses().stream()
+            .map(status -> "'" + status.name() + "'")
+            .collect(Collectors.joining(", ", "status IN (", ")"));
+    private static final int ESCALATION_BATCH = 500;
+    private static final String PENDING_INDEX = "idx_b2b_transactions_sla_pending";
+    private static final String ESCALATED_INDEX = "idx_b2b_transactions_sla_escalated";
+    // Covered open orders whether escalated or not, so every window load walked all overdue ones
+    private static final String REPLACED_INDEX = "idx_b2b_transactions_sla_due";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionPartitionService partitionService;
+    private final boolean enabled;
+    private final long windowMs;
+    private final long tickMs;
+    private final Counter escalated;
+
+    // Slot i holds orders due in tick i (mod slots.length), keyed by id with their due time in millis
+    private final Map<Long, Long>[] slots;
+    private volatile long horizonMs;
+    private volatile long lastTick;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("sla-monitor").daemon().factory());
+
+    // Depends on the partition service, which builds the indexes on the partitioned table
+    @SuppressWarnings("unchecked")
+    public SlaMonitorService(JdbcTemplate jdbcTemplate,
+                             ApplicationEventPublisher eventPublisher,
+                             PlatformTransactionManager transactionManager,
+                             TransactionPartitionService partitionService,
+                             MeterRegistry meterRegistry,
+                             @Value("${sla.enabled:true}") boolean enabled,
+                             @Value("${sla.window-ms:300000}") long windowMs,
+                             @Value("${sla.tick-ms:1000}") long tickMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.partitionService = partitionService;
+        this.enabled = enabled;
+        this.windowMs = windowMs;
+        this.tickMs = tickMs;
+        this.escalated = Counter.builder("sla.escalations").register(meterRegistry);
+        // Two windows, so the next load can overlap the current one without wrapping around
+        this.slots = new Map[(int) (2 * windowMs / tickMs) + 2];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        partitionService.ensureIndex(PENDING_INDEX, "(delivery_date) WHERE " + OPEN
+                + " AND delivery_date IS NOT NULL AND sla_escalated_at IS NULL");
+        // Only for findAtRisk, which lists overdue orders that were already escalated too
+        partitionService.ensureIndex(ESCALATED_INDEX, "(delivery_date) WHERE " + OPEN
+                + " AND delivery_date IS NOT NULL AND sla_escalated_at IS NOT NULL");
+        partitionService.dropIndex(REPLACED_INDEX);
+        if (enabled) {
+            lastTick = System.currentTimeMillis() / tickMs;
+            scheduler.scheduleWithFixedDelay(this::loadWindow, 0, windowMs, TimeUnit.MILLISECONDS);
+            scheduler.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Open orders due within {@code horizonHours}, including overdue ones, soonest first.
+     *
+     * @param userId null for every user's orders
+     */
+    public List<Long> findAtRisk(Long userId, int horizonHours, int limit) {
+        // One ordered, limited scan per partial index, merged
+        String branch = "(SELECT id, delivery_date FROM b2b_transactions WHERE " + OPEN
+                + " AND delivery_date IS NOT NULL AND delivery_date <= ? AND sla_escalated_at IS %s NULL"
+                + (userId != null ? " AND user_id = ?" : "") + " ORDER BY delivery_date, id LIMIT ?)";
+        Timestamp horizon = Timestamp.valueOf(LocalDateTime.now().plusHours(horizonHours));
+        List<Object> args = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            args.add(horizon);
+            if (userId != null) {
+                args.add(userId);
+            }
+            args.add(limit);
+        }
+        args.add(limit);
+        return jdbcTemplate.queryForList("SELECT id FROM (" + branch.formatted("NOT") + " UNION ALL " + branch.formatted("")
+                + ") due ORDER BY delivery_date, id LIMIT ?", Long.class, args.toArray());
+    }
+
+    @TransactionalEventListener
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        if (enabled && event.deliveryDate() != null && event.status() != null
+                && TransactionWorkflowService.openStatuses().contains(event.status())
+                && (event.type() == TransactionChangedEvent.Type.CREATED || event.type() == TransactionChangedEvent.Type.UPDATED)) {
+            schedule(event.id(), toMillis(event.deliveryDate()));
+        }
+    }
+
+    private void loadWindow() {
+        try {
+            long horizon = System.currentTimeMillis() + 2 * windowMs;
+            horizonMs = horizon;
+            List<Object[]> due = jdbcTemplate.query("SELECT id, delivery_date FROM b2b_transactions WHERE " + OPEN
+                            + " AND delivery_date IS NOT NULL AND delivery_date <= ? AND sla_escalated_at IS NULL",
+                    (resultSet, rowNum) -> new Object[]{resultSet.getLong("id"), resultSet.getTimestamp("delivery_date")},
+                    new Timestamp(horizon));
+            due.forEach(row -> schedule((Long) row[0], ((Timestamp) row[1]).getTime()));
+            log.debug("Loaded {} orders due before {}", due.size(), new Timestamp(horizon));
+        } catch (Exception e) {
+            log.warn("Could not load SLA due queue: {}", e.getMessage());
+        }
+    }
+
+    private void schedule(Long id, long dueMs) {
+        if (dueMs > horizonMs) {
+            return;
+        }
+        // Overdue orders go into an upcoming slot, so every escalation runs on the wheel thread; two
+        // ticks ahead because the slot after lastTick may already be in progress
+        long tick = Math.max(dueMs / tickMs, lastTick + 2);
+        slots[(int) (tick % slots.length)].put(id, dueMs);
+    }
+
+    private void tick() {
+        try {
+            long now = System.currentTimeMillis();
+            long currentTick = now / tickMs;
+            List<Long> fired = new ArrayList<>();
+            for (long tick = lastTick + 1; tick <= currentTick; tick++) {
+                Map<Long, Long> slot = slots[(int) (tick % slots.length)];
+                slot.forEach((id, dueMs) -> {
+                    if (dueMs <= now && slot.remove(id, dueMs)) {
+                        fired.add(id);
+                    }
+                });
+            }
+            lastTick = currentTick;
+            for (int from = 0; from < fired.size(); from += ESCALATION_BATCH) {
+                escalate(fired.subList(from, Math.min(from + ESCALATION_BATCH, fired.size())));
+            }
+        } catch (Exception e) {
+            log.warn("SLA escalation failed: {}", e.getMessage());
+        }
+    }
+
+    private void escalate(List<Long> ids) {
+        List<TransactionOverdueEvent> overdue = transactionTemplate.execute(status -> {
+            // Re-checks status and date: the order may have been closed or re-dated since it was scheduled
+            List<TransactionOverdueEvent> events = jdbcTemplate.query("UPDATE b2b_transactions SET sla_escalated_at = ? "
+                            + "WHERE id = ANY(?) AND sla_escalated_at IS NULL AND " + OPEN + " AND delivery_date <= ? "
+                            + "RETURNING id, transaction_id, user_id, delivery_date, status",
+                    (resultSet, rowNum) -> new TransactionOverdueEvent(
+                            resultSet.getLong("id"),
+                            resultSet.getString("transaction_id"),
+                            resultSet.getLong("user_id"),
+                            resultSet.getTimestamp("delivery_date").toLocalDateTime(),
+                            B2BTransaction.TransactionStatus.valueOf(resultSet.getString("status"))),
+                    Timestamp.valueOf(LocalDateTime.now()), ids.toArray(Long[]::new), Timestamp.valueOf(LocalDateTime.now()));
+            events.forEach(eventPublisher::publishEvent);
+            return events;
+        });
+        if (overdue != null && !overdue.isEmpty()) {
+            escalated.increment(overdue.size());
+            log.info("Escalated {} overdue orders", overdue.size());
+        }
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
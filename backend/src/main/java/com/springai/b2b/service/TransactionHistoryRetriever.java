@@ -0,0 +1,179 @@
+package com.springai.b2b.service;
+
+import com.springai.b2b.entity.B2BTransaction;
+import com.springai.b2b.event.TransactionChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a summary of every transaction in the pgvector store and, for insight prompts, pulls the
+ * most similar past transactions for the same product and counterparty into a compact context
+ * block. Contexts are cached per search filter, i.e. per exact product name and buyer/seller pair.
+ * Any change to a transaction for a product can match the filter of every cached context for that
+ * product, so a change evicts them all; otherwise an entry lives until the TTL expires.
+ */
+@Service
+@Slf4j
+public class TransactionHistoryRetriever {
+
+    private final VectorStore vectorStore;
+    private final boolean enabled;
+    private final int topK;
+    private final long cacheTtlMs;
+    private final int cacheMaxEntries;
+
+    // productName -> (buyer, seller) -> context, mirroring the filter in retrieve()
+    private final Map<String, Map<Counterparties, CachedContext>> contextCache = new ConcurrentHashMap<>();
+    private final AtomicInteger cachedContexts = new AtomicInteger();
+
+    // A proxy until first used; see FastStartupConfig
+    public TransactionHistoryRetriever(@Lazy VectorStore vectorStore,
+                                       @Value("${insights.retrieval.enabled:true}") boolean enabled,
+                                       @Value("${insights.retrieval.top-k:5}") int topK,
+                                       @Value("${insights.retrieval.cache-ttl-seconds:600}") long cacheTtlSeconds,
+                                       @Value("${insights.retrieval.cache-max-entries:10000}") int cacheMaxEntries) {
+        this.vectorStore = vectorStore;
+        this.enabled = enabled;
+        this.topK = topK;
+        this.cacheTtlMs = cacheTtlSeconds * 1000;
+        this.cacheMaxEntries = cacheMaxEntries;
+    }
+
+    public String similarTransactionsContext(B2BTransaction transaction) {
+        if (!enabled) {
+            return "";
+        }
+
+        Counterparties key = new Counterparties(transaction.getBuyerCompany(), transaction.getSellerCompany());
+        long now = System.currentTimeMillis();
+        CachedContext cached = contextCache.getOrDefault(transaction.getProductName(), Map.of()).get(key);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.context();
+        }
+
+        String context;
+        try {
+            context = retrieve(transaction);
+        } catch (Exception e) {
+            log.debug("Similar transaction lookup failed: {}", e.getMessage());
+            return "";
+        }
+
+        if (cachedContexts.get() >= cacheMaxEntries) {
+            contextCache.clear();
+            cachedContexts.set(0);
+        }
+        if (contextCache.computeIfAbsent(transaction.getProductName(), product -> new ConcurrentHashMap<>())
+                .put(key, new CachedContext(context, now + cacheTtlMs)) == null) {
+            cachedContexts.incrementAndGet();
+        }
+        return context;
+    }
+
+    /**
+     * Writes (or replaces) the transaction's document in the vector store. Called by
+     * {@link TransactionIndexOutboxHandler}; failures propagate so the outbox retries.
+     */
+    public void store(B2BTransaction transaction) {
+        if (enabled) {
+            vectorStore.add(List.of(toDocument(transaction)));
+            evict(transaction.getProductName());
+        }
+    }
+
+    public void delete(String transactionId) {
+        if (enabled) {
+            vectorStore.delete(List.of(transactionId));
+        }
+    }
+
+    // Also evicts contexts on other nodes when ClusterEventBus replays their changes
+    @TransactionalEventListener
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        evict(event.productName());
+    }
+
+    private void evict(String productName) {
+        Map<Counterparties, CachedContext> evicted = productName != null ? contextCache.remove(productName) : null;
+        if (evicted != null) {
+            cachedContexts.addAndGet(-evicted.size());
+        }
+    }
+
+    private String retrieve(B2BTransaction transaction) {
+        FilterExpressionBuilder filter = new FilterExpressionBuilder();
+        SearchRequest request = SearchRequest.builder()
+                .query(summarize(transaction))
+                .topK(topK + 1)
+                .filterExpression(filter.and(
+                        filter.eq("productName", transaction.getProductName()),
+                        filter.or(
+                                filter.eq("buyerCompany", transaction.getBuyerCompany()),
+                                filter.eq("sellerCompany", transaction.getSellerCompany())
+                        )
+                ).build())
+                .build();
+
+        StringBuilder context = new StringBuilder();
+        int rows = 0;
+        for (Document document : vectorStore.similaritySearch(request)) {
+            if (rows == topK) {
+                break;
+            }
+            if (document.getId().equals(transaction.getTransactionId())) {
+                continue;
+            }
+            Map<String, Object> metadata = document.getMetadata();
+            context.append("- ")
+                    .append(metadata.get("quantity")).append(" @ ")
+                    .append(metadata.get("unitPrice")).append(' ').append(metadata.get("currency"))
+                    .append(", ").append(metadata.get("buyerCompany")).append(" <- ").append(metadata.get("sellerCompany"))
+                    .append(", terms ").append(metadata.get("paymentTerms"))
+                    .append(", outcome ").append(metadata.get("status"))
+                    .append('\n');
+            rows++;
+        }
+        return context.toString();
+    }
+
+    private Document toDocument(B2BTransaction transaction) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("productName", transaction.getProductName());
+        metadata.put("buyerCompany", transaction.getBuyerCompany());
+        metadata.put("sellerCompany", transaction.getSellerCompany());
+        metadata.put("quantity", transaction.getQuantity());
+        metadata.put("unitPrice", transaction.getUnitPrice().toPlainString());
+        metadata.put("currency", transaction.getCurrency());
+        metadata.put("paymentTerms", transaction.getPaymentTerms() != null ? transaction.getPaymentTerms() : "N/A");
+        metadata.put("status", transaction.getStatus().name());
+
+        return new Document(transaction.getTransactionId(), summarize(transaction), metadata);
+    }
+
+    private String summarize(B2BTransaction transaction) {
+        return transaction.getProductName() + " | "
+                + (transaction.getProductDescription() != null ? transaction.getProductDescription() + " | " : "")
+                + transaction.getBuyerCompany() + " buys from " + transaction.getSellerCompany()
+                + " | " + transaction.getQuantity() + " @ " + transaction.getUnitPrice() + " " + transaction.getCurrency();
+    }
+
+    // Case-sensitive, like the eq filters it stands for
+    private record Counterparties(String buyerCompany, String sellerCompany) {
+    }
+
+    private record CachedContext(String context, long expiresAt) {
+    }
+}
@@ -0,0 +1,63 @@
+package com.springai.b2b.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springai.b2b.entity.B2BTransaction;
+import com.springai.b2b.event.TransactionChangedEvent;
+import com.springai.b2b.repository.B2BTransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the similar-transaction vector index in step with {@code b2b_transactions}. It always
+ * indexes the row as it is now (or removes it if it is gone), so replays and reordering are harmless.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransactionIndexOutboxHandler implements OutboxEventHandler {
+
+    private static final Set<String> CHANGE_TYPES = Arrays.stream(TransactionChangedEvent.Type.values())
+            .map(Enum::name)
+            .collect(Collectors.toSet());
+
+    // A create or update whose row is still missing after this many attempts was deleted since
+    private static final int MISSING_ROW_ATTEMPTS = 3;
+
+    private final B2BTransactionRepository transactionRepository;
+    private final TransactionHistoryRetriever historyRetriever;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String name() {
+        return "vector-index";
+    }
+
+    @Override
+    public boolean supports(String aggregateType, String eventType) {
+        return OutboxService.TRANSACTION_AGGREGATE.equals(aggregateType) && CHANGE_TYPES.contains(eventType);
+    }
+
+    @Override
+    public void handle(OutboxMessage message) throws Exception {
+        TransactionChangedEvent event = objectMapper.readValue(message.payload(), TransactionChangedEvent.class);
+        // Read-write, so the row comes from the primary; repository reads on their own are read-only
+        // and go to a replica, where a lagging one would make a new row look deleted
+        Optional<B2BTransaction> transaction = transactionTemplate.execute(status -> transactionRepository.findById(event.id()));
+        if (transaction.isPresent()) {
+            historyRetriever.store(transaction.get());
+            return;
+        }
+        boolean expected = event.type() == TransactionChangedEvent.Type.CREATED
+                || event.type() == TransactionChangedEvent.Type.UPDATED;
+        if (expected && message.attempt() < MISSING_ROW_ATTEMPTS) {
+            throw new IllegalStateException("Transaction " + event.id() + " is not visible yet");
+        }
+        historyRetriever.delete(event.transactionId());
+    }
+}
@@ -0,0 +1,612 @@
+package com.springai.b2b.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.springai.b2b.dto.TransactionResponse;
+import com.springai.b2b.entity.B2BTransaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps {@code b2b_transactions} range-partitioned by month on {@code created_at}. An empty plain
+ * table created by Hibernate is converted at startup; one with rows is copied in the background into
+ * a partitioned shadow table, kept in sync by a trigger, and swapped in under a short exclusive lock.
+ * Partitions are created {@code months-ahead} in advance, and partitions older than {@code retention-months}
+ * are exported to gzip'd NDJSON files in {@code archive-dir} and dropped. Archived months can still
+ * be read back on demand through {@link #findArchived}. The statement triggers that count changes
+ * per user in {@code transaction_list_versions} live here too, since every swap has to recreate them.
+ */
+@Service
+@Slf4j
+public class TransactionPartitionService {
+
+    private static final String TABLE = "b2b_transactions";
+    private static final String DEFAULT_PARTITION = TABLE + "_default";
+    private static final String SHADOW = TABLE + "_partitioned";
+    private static final String SYNC_TRIGGER = TABLE + "_sync";
+    private static final String LIST_VERSION_TRIGGER = TABLE + "_list_version";
+    private static final String TRANSACTION_ID_INDEX = "uk_b2b_transactions_transaction_id";
+    // Shadow copies of the plain table's indexes carry this prefix until the swap renames them
+    private static final String SHADOW_INDEX_PREFIX = "p_";
+    private static final Pattern PARTITION_NAME = Pattern.compile(TABLE + "_y(\\d{4})m(\\d{2})");
+    private static final Pattern ARCHIVE_NAME = Pattern.compile(TABLE + "_(\\d{4}-\\d{2})\\.ndjson\\.gz");
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader archiveReader;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final Path archiveDir;
+    private final int conversionBatchSize;
+    private final long conversionPauseMs;
+    private final ExecutorService conversionExecutor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("partition-conversion").daemon().factory());
+
+    // The EntityManagerFactory dependency makes sure Hibernate's schema update has run first
+    public TransactionPartitionService(EntityManagerFactory entityManagerFactory,
+                                       JdbcTemplate jdbcTemplate,
+                                       TransactionTemplate transactionTemplate,
+                                       ObjectMapper objectMapper,
+                                       @Value("${transactions.partitioning.enabled:true}") boolean enabled,
+                                       @Value("${transactions.partitioning.months-ahead:3}") int monthsAhead,
+                                       @Value("${transactions.partitioning.retention-months:24}") int retentionMonths,
+                                       @Value("${transactions.partitioning.archive-dir:./archive}") String archiveDir,
+                                       @Value("${transactions.partitioning.conversion.batch-size:5000}") int conversionBatchSize,
+                                       @Value("${transactions.partitioning.conversion.pause-ms:50}") long conversionPauseMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.archiveReader = objectMapper.reader().with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.archiveDir = Path.of(archiveDir);
+        this.conversionBatchSize = conversionBatchSize;
+        this.conversionPauseMs = conversionPauseMs;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        transactionTemplate.executeWithoutResult(status -> {
+            lock();
+            ensureListVersionTriggers();
+        });
+        if (!enabled) {
+            return;
+        }
+
+        boolean partitioned = transactionTemplate.execute(status -> {
+            lock();
+            if ("p".equals(relkind(TABLE))) {
+                return true;
+            }
+            // Nothing to copy, so fresh installs start partitioned and later DDL lands on the final table
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + TABLE + ")", Boolean.class))) {
+                convertEmpty();
+                return true;
+            }
+            return false;
+        });
+        if (partitioned) {
+            createUpcomingPartitions();
+            conversionExecutor.submit(this::ensureTransactionIdUnique);
+        }
+    }
+
+    // After startup, so columns and indexes other services add to the plain table are copied too
+    @EventListener(ApplicationReadyEvent.class)
+    public void startConversion() {
+        if (enabled && !"p".equals(relkind(TABLE))) {
+            conversionExecutor.submit(this::convertOnline);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        conversionExecutor.shutdownNow();
+    }
+
+    @Scheduled(cron = "${transactions.partitioning.maintenance-cron:0 15 2 * * *}")
+    public void maintain() {
+        if (!enabled || !"p".equals(relkind(TABLE))) {
+            return;
+        }
+
+        createUpcomingPartitions();
+        if (retentionMonths > 0) {
+            YearMonth cutoff = YearMonth.now().minusMonths(retentionMonths);
+            for (String partition : partitions()) {
+                Matcher name = PARTITION_NAME.matcher(partition);
+                if (name.matches()) {
+                    YearMonth month = YearMonth.of(Integer.parseInt(name.group(1)), Integer.parseInt(name.group(2)));
+                    if (month.isBefore(cutoff)) {
+                        archive(partition, month);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a user's transactions from archived months overlapping {@code [from, to]}.
+     */
+    public List<TransactionResponse> findArchived(Long userId, LocalDateTime from, LocalDateTime to) {
+        List<TransactionResponse> transactions = new ArrayList<>();
+        if (!Files.isDirectory(archiveDir)) {
+            return transactions;
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(archiveDir, TABLE + "_*.ndjson.gz")) {
+            for (Path file : files) {
+                Matcher name = ARCHIVE_NAME.matcher(file.getFileName().toString());
+                if (!name.matches()) {
+                    continue;
+                }
+                YearMonth month = YearMonth.parse(name.group(1));
+                if (month.atEndOfMonth().atTime(23, 59, 59).isBefore(from) || month.atDay(1).atStartOfDay().isAfter(to)) {
+                    continue;
+                }
+                readArchive(file, userId, from, to, transactions);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return transactions;
+    }
+
+    private void convertEmpty() {
+        log.info("Converting empty {} to a range-partitioned table", TABLE);
+        createPartitioned(SHADOW, YearMonth.now());
+        copyForeignKeys();
+        jdbcTemplate.execute("DROP TABLE " + TABLE);
+        jdbcTemplate.execute("ALTER TABLE " + SHADOW + " RENAME TO " + TABLE);
+        createIdSequence();
+        ensureListVersionTriggers();
+    }
+
+    /**
+     * Copies the plain table into a partitioned shadow in id chunks while a trigger mirrors every
+     * write made in between, then swaps the two. Each chunk holds a SHARE lock on the plain table, so
+     * writes pause for one chunk at a time instead of for the whole copy. Safe to run on several
+     * nodes and to restart: chunks are idempotent and the swap re-checks under the DDL lock.
+     */
+    private void convertOnline() {
+        try {
+            String columns = insertableColumns(TABLE);
+            boolean pending = transactionTemplate.execute(status -> {
+                lock();
+                if ("p".equals(relkind(TABLE))) {
+                    return false;
+                }
+                if (relkind(SHADOW) == null) {
+                    prepareShadow(columns);
+                }
+                return true;
+            });
+            if (!pending) {
+                return;
+            }
+
+            // Rows above this id arrive through the trigger
+            Long maxId = jdbcTemplate.queryForObject("SELECT max(id) FROM " + TABLE, Long.class);
+            long copied = 0;
+            for (long from = 0; maxId != null && from < maxId; from += conversionBatchSize) {
+                if (Thread.currentThread().isInterrupted() || "p".equals(relkind(TABLE))) {
+                    return;
+                }
+                long lower = from;
+                long upper = Math.min(from + conversionBatchSize, maxId);
+                copied += transactionTemplate.execute(status -> {
+                    // Blocks writes for this chunk only, so a row cannot be deleted between being read and copied
+                    jdbcTemplate.execute("LOCK TABLE " + TABLE + " IN SHARE MODE");
+                    return jdbcTemplate.update("INSERT INTO " + SHADOW + " (" + columns + ") SELECT " + columns
+                            + " FROM " + TABLE + " WHERE id > ? AND id <= ? ON CONFLICT DO NOTHING", lower, upper);
+                });
+                Thread.sleep(conversionPauseMs);
+            }
+
+            transactionTemplate.executeWithoutResult(status -> {
+                lock();
+                if (!"p".equals(relkind(TABLE))) {
+                    swap();
+                }
+            });
+            createUpcomingPartitions();
+            log.info("Converted {} to monthly partitions ({} rows copied)", TABLE, copied);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Partition conversion of {} stopped, it resumes on the next start: {}", TABLE, e.getMessage());
+        }
+    }
+
+    private void prepareShadow(String columns) {
+        LocalDateTime oldest = jdbcTemplate.queryForObject("SELECT min(created_at) FROM " + TABLE, LocalDateTime.class);
+        log.info("Preparing partitioned copy of {} for background conversion", TABLE);
+
+        createPartitioned(SHADOW, oldest != null ? YearMonth.from(oldest) : YearMonth.now());
+        copyForeignKeys();
+        List<Map<String, Object>> indexes = jdbcTemplate.queryForList("SELECT i.relname AS name, pg_get_indexdef(i.oid) AS definition "
+                + "FROM pg_index x JOIN pg_class i ON i.oid = x.indexrelid JOIN pg_class t ON t.oid = x.indrelid "
+                + "JOIN pg_namespace n ON n.oid = t.relnamespace "
+                + "WHERE t.relname = ? AND n.nspname = current_schema() AND NOT x.indisunique", TABLE);
+        for (Map<String, Object> index : indexes) {
+            String name = (String) index.get("name");
+            jdbcTemplate.execute(((String) index.get("definition")).replaceFirst("^CREATE INDEX \\S+ ON (ONLY )?\\S+",
+                    "CREATE INDEX IF NOT EXISTS " + SHADOW_INDEX_PREFIX + name + " ON " + SHADOW));
+        }
+
+        String values = Arrays.stream(columns.split(", ")).map(column -> "NEW." + column).collect(Collectors.joining(", "));
+        jdbcTemplate.execute("CREATE OR REPLACE FUNCTION " + SYNC_TRIGGER + "() RETURNS trigger LANGUAGE plpgsql AS $$ BEGIN "
+                + "IF TG_OP <> 'INSERT' THEN DELETE FROM " + SHADOW + " WHERE id = OLD.id AND created_at = OLD.created_at; END IF; "
+                + "IF TG_OP <> 'DELETE' THEN INSERT INTO " + SHADOW + " (" + columns + ") VALUES (" + values + "); END IF; "
+                + "RETURN NULL; END $$");
+        jdbcTemplate.execute("CREATE TRIGGER " + SYNC_TRIGGER + " AFTER INSERT OR UPDATE OR DELETE ON " + TABLE
+                + " FOR EACH ROW EXECUTE FUNCTION " + SYNC_TRIGGER + "()");
+    }
+
+    private void swap() {
+        jdbcTemplate.execute("LOCK TABLE " + TABLE + " IN ACCESS EXCLUSIVE MODE");
+        List<String> shadowIndexes = jdbcTemplate.queryForList("SELECT i.relname FROM pg_index x "
+                + "JOIN pg_class i ON i.oid = x.indexrelid JOIN pg_class t ON t.oid = x.indrelid "
+                + "JOIN pg_namespace n ON n.oid = t.relnamespace WHERE t.relname = ? AND n.nspname = current_schema() "
+                + "AND i.relname LIKE '" + SHADOW_INDEX_PREFIX + "%'", String.class, SHADOW);
+
+        jdbcTemplate.execute("DROP TABLE " + TABLE);
+        jdbcTemplate.execute("DROP FUNCTION " + SYNC_TRIGGER + "()");
+        jdbcTemplate.execute("ALTER TABLE " + SHADOW + " RENAME TO " + TABLE);
+        for (String index : shadowIndexes) {
+            jdbcTemplate.execute("ALTER INDEX " + index + " RENAME TO " + index.substring(SHADOW_INDEX_PREFIX.length()));
+        }
+        createIdSequence();
+        ensureListVersionTriggers();
+    }
+
+    /**
+     * Bumps a per-user counter once per statement that inserts, updates or deletes that user's rows,
+     * whichever code path issues it (JPA, bulk updates, the FX backfill, company merges), so list
+     * ETags are one primary-key read instead of an aggregate over the user's rows.
+     */
+    private void ensureListVersionTriggers() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS transaction_list_versions "
+                + "(user_id BIGINT PRIMARY KEY, version BIGINT NOT NULL)");
+        Integer existing = jdbcTemplate.queryForObject("SELECT count(*) FROM pg_trigger WHERE tgrelid = ?::regclass "
+                + "AND tgname LIKE ?", Integer.class, TABLE, LIST_VERSION_TRIGGER + "_%");
+        if (existing != null && existing == 3) {
+            return;
+        }
+        // Users in id order, so two statements bumping the same users cannot deadlock
+        jdbcTemplate.execute("CREATE OR REPLACE FUNCTION " + LIST_VERSION_TRIGGER + "() RETURNS trigger LANGUAGE plpgsql AS $$ BEGIN "
+                + "INSERT INTO transaction_list_versions (user_id, version) "
+                + "SELECT DISTINCT user_id, 1 FROM changed WHERE user_id IS NOT NULL ORDER BY user_id "
+                + "ON CONFLICT (user_id) DO UPDATE SET version = transaction_list_versions.version + 1; "
+                + "RETURN NULL; END $$");
+        // Transition tables allow one event per trigger
+        for (String[] trigger : new String[][]{{"insert", "INSERT", "NEW"}, {"update", "UPDATE", "NEW"}, {"delete", "DELETE", "OLD"}}) {
+            jdbcTemplate.execute("DROP TRIGGER IF EXISTS " + LIST_VERSION_TRIGGER + "_" + trigger[0] + " ON " + TABLE);
+            jdbcTemplate.execute("CREATE TRIGGER " + LIST_VERSION_TRIGGER + "_" + trigger[0] + " AFTER " + trigger[1] + " ON " + TABLE
+                    + " REFERENCING " + trigger[2] + " TABLE AS changed FOR EACH STATEMENT EXECUTE FUNCTION " + LIST_VERSION_TRIGGER + "()");
+        }
+    }
+
+    private void createPartitioned(String table, YearMonth oldest) {
+        jdbcTemplate.execute("CREATE TABLE " + table + " (LIKE " + TABLE + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS "
+                + "INCLUDING GENERATED) PARTITION BY RANGE (created_at)");
+        jdbcTemplate.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF " + table + " DEFAULT");
+        for (YearMonth month = oldest, last = YearMonth.now().plusMonths(monthsAhead); !month.isAfter(last); month = month.plusMonths(1)) {
+            createPartition(table, month);
+        }
+
+        // Unique constraints must include the partition key
+        jdbcTemplate.execute("ALTER TABLE " + table + " ADD PRIMARY KEY (id, created_at)");
+        jdbcTemplate.execute("ALTER TABLE " + table + " ADD CONSTRAINT " + TRANSACTION_ID_INDEX
+                + " UNIQUE (transaction_id, created_at)");
+        jdbcTemplate.execute("CREATE INDEX idx_b2b_transactions_user_created ON " + table + " (user_id, created_at DESC)");
+    }
+
+    private void copyForeignKeys() {
+        List<Map<String, Object>> foreignKeys = jdbcTemplate.queryForList("SELECT c.conname AS name, "
+                + "pg_get_constraintdef(c.oid) AS definition FROM pg_constraint c JOIN pg_class t ON t.oid = c.conrelid "
+                + "JOIN pg_namespace n ON n.oid = t.relnamespace "
+                + "WHERE t.relname = ? AND n.nspname = current_schema() AND c.contype = 'f'", TABLE);
+        for (Map<String, Object> foreignKey : foreignKeys) {
+            jdbcTemplate.execute("ALTER TABLE " + SHADOW + " ADD CONSTRAINT " + foreignKey.get("name") + " "
+                    + foreignKey.get("definition"));
+        }
+    }
+
+    // Identity columns are not supported on partitioned tables before PostgreSQL 17
+    private void createIdSequence() {
+        jdbcTemplate.execute("CREATE SEQUENCE " + TABLE + "_id_seq OWNED BY " + TABLE + ".id");
+        jdbcTemplate.execute("SELECT setval('" + TABLE + "_id_seq', COALESCE((SELECT max(id) FROM " + TABLE + "), 0) + 1, false)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ALTER COLUMN id SET DEFAULT nextval('" + TABLE + "_id_seq')");
+    }
+
+    /**
+     * Tables converted before {@code transaction_id} was unique per {@code created_at} get the
+     * index built partition by partition with CONCURRENTLY, so writes are never blocked; the
+     * parent index becomes valid once every partition's index is attached.
+     */
+    private void ensureTransactionIdUnique() {
+        buildIndex(TRANSACTION_ID_INDEX, true, "(transaction_id, created_at)");
+    }
+
+    /**
+     * Builds an index on {@code b2b_transactions} in the background without blocking writes:
+     * CONCURRENTLY on the plain table, and on the partitioned one partition by partition under an
+     * index created ON ONLY the parent, which turns valid once every partition's index is attached.
+     * Runs after a pending conversion, and is safe to call on every start.
+     */
+    public void ensureIndex(String name, String definition) {
+        conversionExecutor.submit(() -> buildIndex(name, false, definition));
+    }
+
+    /**
+     * Drops an index that has been replaced, after the indexes submitted before it are built.
+     * CONCURRENTLY on the plain table; a partitioned index cannot be, and is dropped under a brief lock.
+     */
+    public void dropIndex(String name) {
+        conversionExecutor.submit(() -> {
+            try {
+                if (indexValid(name) != null) {
+                    jdbcTemplate.execute("DROP INDEX " + ("p".equals(relkind(TABLE)) ? "" : "CONCURRENTLY ") + "IF EXISTS " + name);
+                    log.info("Dropped index {} on {}", name, TABLE);
+                }
+            } catch (Exception e) {
+                log.warn("Could not drop index {} on {}: {}", name, TABLE, e.getMessage());
+            }
+        });
+    }
+
+    private void buildIndex(String name, boolean unique, String definition) {
+        String create = unique ? "CREATE UNIQUE INDEX " : "CREATE INDEX ";
+        try {
+            Boolean valid = indexValid(name);
+            if (Boolean.TRUE.equals(valid)) {
+                return;
+            }
+
+            if ("p".equals(relkind(TABLE))) {
+                jdbcTemplate.execute(create + "IF NOT EXISTS " + name + " ON ONLY " + TABLE + " " + definition);
+                // Partitions attached since the parent index exists already got theirs from PostgreSQL
+                List<String> missing = jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent "
+                        + "WHERE p.relname = ? AND NOT EXISTS (SELECT 1 FROM pg_inherits ii JOIN pg_index x ON x.indexrelid = ii.inhrelid "
+                        + "WHERE ii.inhparent = to_regclass(?) AND x.indrelid = c.oid) ORDER BY c.relname",
+                        String.class, TABLE, name);
+                for (String partition : missing) {
+                    // Short enough to stay under the 63-character identifier limit, e.g. b2b_transactions_y2026m01_buyer_company_id_idx
+                    String index = partition + "_" + name.replaceFirst("^(idx|uk)_" + TABLE + "_", "") + (unique ? "_key" : "_idx");
+                    dropIfInvalid(index);
+                    jdbcTemplate.execute(create + "CONCURRENTLY IF NOT EXISTS " + index + " ON " + partition + " " + definition);
+                    jdbcTemplate.execute("ALTER INDEX " + name + " ATTACH PARTITION " + index);
+                }
+            } else {
+                dropIfInvalid(name);
+                jdbcTemplate.execute(create + "CONCURRENTLY IF NOT EXISTS " + name + " ON " + TABLE + " " + definition);
+            }
+            log.info("Added index {} on {} {}", name, TABLE, definition);
+        } catch (Exception e) {
+            log.warn("Could not add index {} on {} {}: {}", name, TABLE, definition, e.getMessage());
+        }
+    }
+
+    // Null when the index does not exist
+    private Boolean indexValid(String name) {
+        return jdbcTemplate.query("SELECT x.indisvalid FROM pg_index x JOIN pg_class i ON i.oid = x.indexrelid "
+                        + "JOIN pg_namespace n ON n.oid = i.relnamespace WHERE i.relname = ? AND n.nspname = current_schema()",
+                rs -> rs.next() ? rs.getBoolean(1) : null, name);
+    }
+
+    // A CONCURRENTLY build interrupted by a restart leaves an invalid index that IF NOT EXISTS would keep
+    private void dropIfInvalid(String name) {
+        if (Boolean.FALSE.equals(indexValid(name))) {
+            jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + name);
+        }
+    }
+
+    private void createUpcomingPartitions() {
+        YearMonth month = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++, month = month.plusMonths(1)) {
+            YearMonth target = month;
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    lock();
+                    createPartition(TABLE, target);
+                });
+            } catch (Exception e) {
+                log.warn("Could not create partition for {}: {}", target, e.getMessage());
+            }
+        }
+    }
+
+    // Rows that already landed in the default partition for this month are moved before attaching
+    private void createPartition(String parent, YearMonth month) {
+        String partition = partitionName(month);
+        if (relkind(partition) != null) {
+            return;
+        }
+
+        String from = month.atDay(1).atStartOfDay().format(BOUND);
+        String to = month.plusMonths(1).atDay(1).atStartOfDay().format(BOUND);
+        String columns = insertableColumns(parent);
+        jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE " + parent + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS "
+                + "INCLUDING GENERATED)");
+        int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+                + " WHERE created_at >= '" + from + "' AND created_at < '" + to + "' RETURNING *) "
+                + "INSERT INTO " + partition + " (" + columns + ") SELECT " + columns + " FROM moved");
+        jdbcTemplate.execute("ALTER TABLE " + parent + " ATTACH PARTITION " + partition
+                + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+
+        log.info("Created partition {}{}", partition, moved > 0 ? " (" + moved + " rows moved from default)" : "");
+    }
+
+    // Export and drop happen in one transaction with writes to the partition blocked, so the file
+    // always matches what was dropped; a failed run leaves the partition in place for the next one
+    private void archive(String partition, YearMonth month) {
+        Path target = archiveDir.resolve(TABLE + "_" + month + ".ndjson.gz");
+        Path temp = archiveDir.resolve(target.getFileName() + ".tmp");
+
+        try {
+            Files.createDirectories(archiveDir);
+            long rows = transactionTemplate.execute(status -> {
+                jdbcTemplate.execute("LOCK TABLE " + partition + " IN SHARE MODE");
+                long written = export(partition, temp);
+                move(temp, target);
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition);
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                return written;
+            });
+            log.info("Archived partition {} to {} ({} rows)", partition, target, rows);
+        } catch (Exception e) {
+            log.warn("Could not archive partition {}: {}", partition, e.getMessage());
+        }
+    }
+
+    private long export(String partition, Path file) {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(file)), StandardCharsets.UTF_8))) {
+            long[] rows = {0};
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement("SELECT row_to_json(t)::text FROM " + partition + " t ORDER BY t.id");
+                statement.setFetchSize(1000);
+                return statement;
+            }, resultSet -> {
+                try {
+                    writer.write(resultSet.getString(1));
+                    writer.write('\n');
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return rows[0];
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void readArchive(Path file, Long userId, LocalDateTime from, LocalDateTime to, List<TransactionResponse> into)
+            throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JsonNode row = archiveReader.readTree(line);
+                if (row.path("user_id").asLong() != userId) {
+                    continue;
+                }
+                LocalDateTime createdAt = timestamp(row, "created_at");
+                if (createdAt == null || createdAt.isBefore(from) || createdAt.isAfter(to)) {
+                    continue;
+                }
+                into.add(TransactionResponse.builder()
+                        .id(row.path("id").asLong())
+                        .transactionId(text(row, "transaction_id"))
+                        .buyerCompany(text(row, "buyer_company"))
+                        .sellerCompany(text(row, "seller_company"))
+                        .productName(text(row, "product_name"))
+                        .productDescription(text(row, "product_description"))
+                        .quantity(row.hasNonNull("quantity") ? row.get("quantity").asInt() : null)
+                        .unitPrice(row.hasNonNull("unit_price") ? row.get("unit_price").decimalValue() : null)
+                        .totalAmount(row.hasNonNull("total_amount") ? row.get("total_amount").decimalValue() : null)
+                        .currency(text(row, "currency"))
+                        .reportingAmount(row.hasNonNull("reporting_amount") ? row.get("reporting_amount").decimalValue() : null)
+                        .status(row.hasNonNull("status") ? B2BTransaction.TransactionStatus.valueOf(row.get("status").asText()) : null)
+                        .paymentTerms(text(row, "payment_terms"))
+                        .deliveryDate(timestamp(row, "delivery_date"))
+                        .notes(text(row, "notes"))
+                        .aiInsights(text(row, "ai_insights"))
+                        .riskScore(row.hasNonNull("risk_score") ? row.get("risk_score").asInt() : null)
+                        .duplicateOf(row.hasNonNull("duplicate_of_id") ? row.get("duplicate_of_id").asLong() : null)
+                        .createdAt(createdAt)
+                        .updatedAt(timestamp(row, "updated_at"))
+                        .build());
+            }
+        }
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i "
+                + "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent "
+                + "WHERE p.relname = ? ORDER BY c.relname", String.class, TABLE);
+    }
+
+    // Generated columns (e.g. search_vector) are recomputed on insert and cannot be copied
+    private String insertableColumns(String table) {
+        return String.join(", ", jdbcTemplate.queryForList("SELECT quote_ident(column_name) FROM information_schema.columns "
+                + "WHERE table_schema = current_schema() AND table_name = ? AND is_generated = 'NEVER' ORDER BY ordinal_position",
+                String.class, table));
+    }
+
+    private String relkind(String relation) {
+        List<String> kinds = jdbcTemplate.queryForList("SELECT c.relkind::text FROM pg_class c "
+                + "JOIN pg_namespace n ON n.oid = c.relnamespace WHERE c.relname = ? AND n.nspname = current_schema()",
+                String.class, relation);
+        return kinds.isEmpty() ? null : kinds.get(0);
+    }
+
+    // Serializes partition DDL across application instances
+    private void lock() {
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(hashtext('" + TABLE + "_partitions'))");
+    }
+
+    private static String partitionName(YearMonth month) {
+        return String.format("%s_y%04dm%02d", TABLE, month.getYear(), month.getMonthValue());
+    }
+
+    private static void move(Path from, Path to) {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String text(JsonNode row, String column) {
+        return row.hasNonNull(column) ? row.get(column).asText() : null;
+    }
+
+    private static LocalDateTime timestamp(JsonNode row, String column) {
+        return row.hasNonNull(column) ? LocalDateTime.parse(row.get(column).asText()) : null;
+    }
+}
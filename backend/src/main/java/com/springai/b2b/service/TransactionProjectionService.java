@@ -0,0 +1,114 @@
+package com.springai.b2b.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Sparse fieldsets for {@code ?fields=}: only the requested columns are selected, so large text
+ * such as {@code aiInsights} and {@code notes} is neither read nor serialized unless asked for.
+ * Field names are checked against {@link #FIELDS} before they reach the query.
+ */
+@Service
+public class TransactionProjectionService {
+
+    private static final Set<String> FIELDS = Set.of(
+            "id", "transactionId", "buyerCompany", "sellerCompany", "productName", "productDescription",
+            "quantity", "unitPrice", "totalAmount", "currency", "reportingAmount", "status", "paymentTerms",
+            "deliveryDate", "notes", "aiInsights", "riskScore", "duplicateOf", "createdAt", "updatedAt");
+
+    private static final String OWNER = "ownerId";
+
+    private final EntityManager entityManager;
+
+    public TransactionProjectionService(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    public static List<String> parseFields(String fields) {
+        Set<String> parsed = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.strip();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!FIELDS.contains(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+            parsed.add(name);
+        }
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("No fields requested");
+        }
+        return new ArrayList<>(parsed);
+    }
+
+    public List<Map<String, Object>> findByUser(Long userId, List<String> fields, LocalDateTime from, LocalDateTime to,
+                                                boolean byValue) {
+        StringBuilder jpql = select(fields, "").append(" WHERE t.user.id = :userId");
+        if (from != null) {
+            jpql.append(" AND t.createdAt >= :from");
+        }
+        if (to != null) {
+            jpql.append(" AND t.createdAt <= :to");
+        }
+        jpql.append(byValue ? " ORDER BY t.reportingAmount DESC NULLS LAST" : " ORDER BY t.createdAt DESC");
+
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql.toString(), Tuple.class)
+                .setParameter("userId", userId);
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        return query.getResultStream().map(TransactionProjectionService::toMap).toList();
+    }
+
+    /**
+     * The row with its owner, so the caller can apply the same access check as for full reads.
+     */
+    public Optional<Projection> findById(Long id, List<String> fields) {
+        StringBuilder jpql = select(fields, ", t.user.id AS " + OWNER).append(" WHERE t.id = :id");
+        return entityManager.createQuery(jpql.toString(), Tuple.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst()
+                .map(tuple -> new Projection((Long) tuple.get(OWNER), toMap(tuple)));
+    }
+
+    private static StringBuilder select(List<String> fields, String extraColumns) {
+        StringBuilder jpql = new StringBuilder("SELECT ");
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                jpql.append(", ");
+            }
+            jpql.append("t.").append(fields.get(i)).append(" AS ").append(fields.get(i));
+        }
+        return jpql.append(extraColumns).append(" FROM B2BTransaction t");
+    }
+
+    private static Map<String, Object> toMap(Tuple tuple) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (TupleElement<?> element : tuple.getElements()) {
+            if (!OWNER.equals(element.getAlias())) {
+                row.put(element.getAlias(), tuple.get(element));
+            }
+        }
+        return row;
+    }
+
+    public record Projection(Long ownerId, Map<String, Object> fields) {
+    }
+}
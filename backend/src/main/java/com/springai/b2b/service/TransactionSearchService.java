@@ -0,0 +1,129 @@
+package com.springai.b2b.service;
+
+import com.springai.b2b.entity.B2BTransaction;
+import jakarta.annotation.PostConstruct;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Keyword search over product name, description and notes using a stored, generated
+ * {@code tsvector} column with a GIN index. Every term is matched as a prefix and results are
+ * ranked with {@code ts_rank_cd}; pages are addressed by an opaque (rank, id) keyset cursor.
+ * Semantic similarity stays in {@link TransactionHistoryRetriever}.
+ */
+@Service
+public class TransactionSearchService {
+
+    // 'simple' keeps product codes and names as-is instead of stemming them as English words
+    private static final String SEARCH_VECTOR = "setweight(to_tsvector('simple', coalesce(product_name, '')), 'A') || "
+            + "setweight(to_tsvector('simple', coalesce(product_description, '')), 'B') || "
+            + "setweight(to_tsvector('simple', coalesce(notes, '')), 'C')";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Depends on the partition service so the column is added to the partitioned table
+    public TransactionSearchService(JdbcTemplate jdbcTemplate, TransactionPartitionService partitionService) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        jdbcTemplate.execute("ALTER TABLE b2b_transactions ADD COLUMN IF NOT EXISTS search_vector tsvector "
+                + "GENERATED ALWAYS AS (" + SEARCH_VECTOR + ") STORED");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_b2b_transactions_search ON b2b_transactions USING GIN (search_vector)");
+    }
+
+    /**
+     * @param userId null to search every user's transactions
+     */
+    public SearchPage search(Long userId, String query, B2BTransaction.TransactionStatus status,
+                             LocalDateTime from, LocalDateTime to, String cursor, int limit) {
+        String tsQuery = toPrefixQuery(query);
+        if (tsQuery.isEmpty()) {
+            return new SearchPage(List.of(), null);
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT t.id, ts_rank_cd(t.search_vector, q) AS rank "
+                + "FROM b2b_transactions t, to_tsquery('simple', ?) q WHERE t.search_vector @@ q");
+        List<Object> args = new ArrayList<>();
+        args.add(tsQuery);
+        if (userId != null) {
+            sql.append(" AND t.user_id = ?");
+            args.add(userId);
+        }
+        if (status != null) {
+            sql.append(" AND t.status = ?");
+            args.add(status.name());
+        }
+        if (from != null) {
+            sql.append(" AND t.created_at >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND t.created_at <= ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            Cursor after = Cursor.decode(cursor);
+            sql.append(" AND (ts_rank_cd(t.search_vector, q), t.id) < (?::real, ?)");
+            args.add(after.rank());
+            args.add(after.id());
+        }
+        sql.append(" ORDER BY rank DESC, t.id DESC LIMIT ?");
+        args.add(limit + 1);
+
+        List<Cursor> rows = jdbcTemplate.query(sql.toString(),
+                (resultSet, rowNum) -> new Cursor(resultSet.getFloat("rank"), resultSet.getLong("id")),
+                args.toArray());
+
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            nextCursor = rows.get(limit - 1).encode();
+        }
+        return new SearchPage(rows.stream().map(Cursor::id).collect(Collectors.toList()), nextCursor);
+    }
+
+    // Only letters and digits reach to_tsquery, so user input can never produce a syntax error
+    static String toPrefixQuery(String query) {
+        if (query == null) {
+            return "";
+        }
+        List<String> terms = new ArrayList<>();
+        for (String term : query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!term.isEmpty()) {
+                terms.add(term + ":*");
+            }
+        }
+        return String.join(" & ", terms);
+    }
+
+    public record SearchPage(List<Long> ids, String nextCursor) {
+    }
+
+    record Cursor(float rank, long id) {
+
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((rank + ":" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+                return new Cursor(Float.parseFloat(parts[0]), Long.parseLong(parts[1]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid search cursor");
+            }
+        }
+    }
+}
@@ -1,25 +1,46 @@
 package com.springai.b2b.service;
 
+import com.springai.b2b.dto.BulkStatusUpdateRequest;
+import com.springai.b2b.dto.BulkStatusUpdateResponse;
 import com.springai.b2b.dto.TransactionRequest;
 import com.springai.b2b.dto.TransactionResponse;
+import com.springai.b2b.dto.TransactionSearchResponse;
+import com.springai.b2b.dto.TransactionSummaryResponse;
 import com.springai.b2b.entity.B2BTransaction;
 import com.springai.b2b.entity.User;
+import com.springai.b2b.event.TransactionChangedEvent;
 import com.springai.b2b.repository.B2BTransactionRepository;
 import com.springai.b2b.repository.UserRepository;
 import com.springai.b2b.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
-import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.prompt.Prompt;
-import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,7 +49,26 @@ public class TransactionService {
 
     private final B2BTransactionRepository transactionRepository;
     private final UserRepository userRepository;
-    private final ChatClient.Builder chatClientBuilder;
+    private final InsightBatcher insightBatcher;
+    private final AIInsightService insightService;
+    private final RiskScoringService riskScoringService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionPartitionService partitionService;
+    private final TransactionSearchService searchService;
+    private final FxRateService fxRateService;
+    private final TransactionWorkflowService workflowService;
+    private final TransactionProjectionService projectionService;
+    private final CompanyDirectoryService companyDirectory;
+    private final SlaMonitorService slaMonitorService;
+    private final AuditLogService auditLog;
+    private final DuplicateDetectionService duplicateDetection;
+
+    @Value("${transactions.bulk-status.max-items:1000}")
+    private int bulkStatusMaxItems;
+
+    @Value("${transactions.list-window-days:365}")
+    private int listWindowDays;
 
     private User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -37,10 +77,108 @@ public class TransactionService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
-    @Transactional
-    public TransactionResponse createTransaction(TransactionRequest request) {
+    private UserPrincipal getCurrentPrincipal() {
+        return (UserPrincipal) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    }
+
+    /**
+     * Strong validator for the caller's transaction list, read from the user's change counter
+     * instead of the rows themselves. Every statement that inserts, deletes or updates one of their
+     * rows, FX backfills and company merges included, bumps it.
+     */
+    @Transactional(readOnly = true)
+    public String getTransactionsETag(String sort) {
+        UserPrincipal principal = getCurrentPrincipal();
+        return eTag("list", principal.getId(), sort, listWindowStart(), transactionRepository.findListVersion(principal.getId()));
+    }
+
+    /**
+     * Validator for one transaction, or null when it does not exist or belongs to someone else so
+     * the caller falls through to the regular lookup and its error handling.
+     */
+    @Transactional(readOnly = true)
+    public String getTransactionETag(Long id) {
+        UserPrincipal principal = getCurrentPrincipal();
+        return transactionRepository.findVersionById(id)
+                .filter(version -> version.getUserId().equals(principal.getId()) || principal.getRoles().contains("ADMIN"))
+                .map(version -> eTag("item", id, version.getUpdatedAt(), version.getFxRateVersion()))
+                .orElse(null);
+    }
+
+    private static String eTag(Object... parts) {
+        String key = Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining(":"));
+        return "\"" + DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    // Not @Transactional: the model call runs first, and only the insert holds a connection
+    public TransactionResponse createTransaction(TransactionRequest request, boolean allowDuplicates) {
         User user = getCurrentUser();
+        B2BTransaction transaction = buildTransaction(request, user);
+        duplicateDetection.screen(List.of(transaction), allowDuplicates);
+
+        // Score risk and generate AI insights when warranted
+        assessAndGenerateInsights(List.of(transaction));
+
+        B2BTransaction saved = transactionTemplate.execute(status -> {
+            B2BTransaction created = transactionRepository.save(transaction);
+            // Catches an identical order screened at the same time, here or on another node
+            duplicateDetection.claim(List.of(created), allowDuplicates);
+            eventPublisher.publishEvent(TransactionChangedEvent.created(created));
+            return created;
+        });
 
+        return mapToResponse(saved);
+    }
+
+    public List<TransactionResponse> createTransactions(List<TransactionRequest> requests, boolean allowDuplicates) {
+        User user = getCurrentUser();
+        List<B2BTransaction> transactions = requests.stream()
+                .map(request -> buildTransaction(request, user))
+                .collect(Collectors.toList());
+        Map<Integer, Integer> batchDuplicates = duplicateDetection.screen(transactions, allowDuplicates);
+
+        // Score risk and generate AI insights in batched model calls when warranted
+        assessAndGenerateInsights(transactions);
+
+        List<B2BTransaction> saved = transactionTemplate.execute(status -> {
+            List<B2BTransaction> created = transactionRepository.saveAll(transactions);
+            // Repeats within the batch can only point at their original once it has an id
+            for (Map.Entry<Integer, Integer> link : batchDuplicates.entrySet()) {
+                created.get(link.getKey()).setDuplicateOf(created.get(link.getValue()).getId());
+            }
+            duplicateDetection.claim(created, allowDuplicates);
+            created.forEach(transaction -> eventPublisher.publishEvent(TransactionChangedEvent.created(transaction)));
+            return created;
+        });
+
+        return saved.stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+
+    private void assessAndGenerateInsights(List<B2BTransaction> transactions) {
+        List<B2BTransaction> escalated = new ArrayList<>();
+        for (B2BTransaction transaction : transactions) {
+            RiskScoringService.RiskAssessment assessment = riskScoringService.assess(transaction);
+            transaction.setRiskScore(assessment.score());
+            if (riskScoringService.requiresAIInsights(assessment)) {
+                escalated.add(transaction);
+            } else {
+                transaction.setAiInsights(assessment.summary());
+            }
+        }
+
+        if (escalated.size() == 1) {
+            escalated.get(0).setAiInsights(insightBatcher.submit(escalated.get(0)).join());
+        } else if (!escalated.isEmpty()) {
+            List<String> aiInsights = insightBatcher.generateAll(escalated);
+            for (int i = 0; i < escalated.size(); i++) {
+                escalated.get(i).setAiInsights(aiInsights.get(i));
+            }
+        }
+    }
+
+    private B2BTransaction buildTransaction(TransactionRequest request, User user) {
         BigDecimal totalAmount = request.getUnitPrice().multiply(BigDecimal.valueOf(request.getQuantity()));
 
         B2BTransaction transaction = B2BTransaction.builder()
@@ -48,6 +186,8 @@ public class TransactionService {
                 .user(user)
                 .buyerCompany(request.getBuyerCompany())
                 .sellerCompany(request.getSellerCompany())
+                .buyerCompanyId(companyDirectory.resolve(request.getBuyerCompany()))
+                .sellerCompanyId(companyDirectory.resolve(request.getSellerCompany()))
                 .productName(request.getProductName())
                 .productDescription(request.getProductDescription())
                 .quantity(request.getQuantity())
@@ -59,24 +199,169 @@ public class TransactionService {
                 .notes(request.getNotes())
                 .status(B2BTransaction.TransactionStatus.PENDING)
                 .build();
+        applyReportingAmount(transaction);
+        return transaction;
+    }
 
-        // Generate AI insights
-        String aiInsights = generateAIInsights(transaction);
-        transaction.setAiInsights(aiInsights);
+    // Left null when the currency has no rate yet; FxRateService backfills it once one is imported
+    private void applyReportingAmount(B2BTransaction transaction) {
+        FxRateService.Conversion conversion = fxRateService.toReporting(transaction.getTotalAmount(), transaction.getCurrency());
+        transaction.setReportingAmount(conversion != null ? conversion.amount() : null);
+        transaction.setFxRateVersion(conversion != null ? conversion.fxRateVersion() : null);
+    }
 
-        transaction = transactionRepository.save(transaction);
+    @Transactional(readOnly = true)
+    public List<TransactionResponse> getTransactionsByValue() {
+        User user = getCurrentUser();
+        List<TransactionResponse> transactions = transactionRepository
+                .findByUserAndCreatedAtGreaterThanEqual(user, listWindowStart(),
+                        Sort.by(Sort.Order.desc("reportingAmount").nullsLast())).stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+        return audited(user.getId(), transactions);
+    }
 
-        return mapToResponse(transaction);
+    @Transactional(readOnly = true)
+    public TransactionSummaryResponse getTransactionSummary() {
+        User user = getCurrentUser();
+        List<TransactionSummaryResponse.StatusTotal> byStatus = new ArrayList<>();
+        long count = 0;
+        long unconverted = 0;
+        BigDecimal total = BigDecimal.ZERO;
+        for (B2BTransactionRepository.StatusTotalView row : transactionRepository.summarizeByStatus(user)) {
+            BigDecimal statusTotal = row.getTotal() != null ? row.getTotal() : BigDecimal.ZERO;
+            byStatus.add(new TransactionSummaryResponse.StatusTotal(row.getStatus(), row.getCount(), statusTotal));
+            count += row.getCount();
+            unconverted += row.getCount() - row.getConvertedCount();
+            total = total.add(statusTotal);
+        }
+
+        return TransactionSummaryResponse.builder()
+                .reportingCurrency(fxRateService.current().reportingCurrency())
+                .count(count)
+                .unconvertedCount(unconverted)
+                .totalAmount(total)
+                .byStatus(byStatus)
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getTransactionFields(List<String> fields, LocalDateTime from, LocalDateTime to,
+                                                          boolean byValue) {
+        Long userId = getCurrentPrincipal().getId();
+        List<Map<String, Object>> rows = projectionService.findByUser(userId, fields, from, to, byValue);
+        rows.forEach(row -> {
+            if (row.get("id") instanceof Long id) {
+                auditLog.record(AuditLogService.Action.READ, userId, id);
+            }
+        });
+        return rows;
     }
 
+    @Transactional(readOnly = true)
+    public Map<String, Object> getTransactionFieldsById(Long id, List<String> fields) {
+        UserPrincipal principal = getCurrentPrincipal();
+        TransactionProjectionService.Projection projection = projectionService.findById(id, fields)
+                .orElseThrow(() -> new RuntimeException("Transaction not found"));
+
+        if (!projection.ownerId().equals(principal.getId()) && !principal.getRoles().contains("ADMIN")) {
+            throw new RuntimeException("Unauthorized access to transaction");
+        }
+
+        auditLog.record(AuditLogService.Action.READ, principal.getId(), id);
+        return projection.fields();
+    }
+
+    @Transactional(readOnly = true)
+    public List<TransactionResponse> getTransactionsByCompany(Long companyId) {
+        User user = getCurrentUser();
+        List<B2BTransaction> transactions = user.getRoles().contains("ADMIN")
+                ? transactionRepository.findByCompanyId(companyId)
+                : transactionRepository.findByCompanyIdAndUser(companyId, user);
+        return audited(user.getId(), transactions.stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList()));
+    }
+
+    @Transactional(readOnly = true)
     public List<TransactionResponse> getAllTransactions() {
         User user = getCurrentUser();
-        List<B2BTransaction> transactions = transactionRepository.findByUserOrderByCreatedAtDesc(user);
-        return transactions.stream()
+        List<B2BTransaction> transactions = transactionRepository
+                .findByUserAndCreatedAtGreaterThanEqualOrderByCreatedAtDesc(user, listWindowStart());
+        return audited(user.getId(), transactions.stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList()));
+    }
+
+    // Whole days, so the list and its ETag only move on when a day rolls over
+    private LocalDateTime listWindowStart() {
+        return LocalDate.now().minusDays(listWindowDays).atStartOfDay();
+    }
+
+    /**
+     * Transactions created in {@code [from, to]}; the range lets PostgreSQL prune to the matching
+     * monthly partitions. Archived months are only read when {@code includeArchived} is set.
+     */
+    @Transactional(readOnly = true)
+    public List<TransactionResponse> getTransactions(LocalDateTime from, LocalDateTime to, boolean includeArchived) {
+        User user = getCurrentUser();
+        LocalDateTime start = from != null ? from : LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+
+        List<TransactionResponse> transactions = transactionRepository
+                .findByUserAndCreatedAtBetweenOrderByCreatedAtDesc(user, start, end).stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (!includeArchived) {
+            return audited(user.getId(), transactions);
+        }
+
+        // A partition whose archive run failed after writing the file is still live, so skip ids seen twice
+        Set<Long> ids = transactions.stream().map(TransactionResponse::getId).collect(Collectors.toSet());
+        partitionService.findArchived(user.getId(), start, end).stream()
+                .filter(archived -> ids.add(archived.getId()))
+                .forEach(transactions::add);
+        transactions.sort(Comparator.comparing(TransactionResponse::getCreatedAt).reversed());
+        return audited(user.getId(), transactions);
+    }
+
+    @Transactional(readOnly = true)
+    public TransactionSearchResponse searchTransactions(String query, B2BTransaction.TransactionStatus status,
+                                                        LocalDateTime from, LocalDateTime to, String cursor, int limit) {
+        User user = getCurrentUser();
+        TransactionSearchService.SearchPage page = searchService.search(
+                user.getRoles().contains("ADMIN") ? null : user.getId(), query, status, from, to, cursor, limit);
+
+        Map<Long, B2BTransaction> byId = transactionRepository.findAllById(page.ids()).stream()
+                .collect(Collectors.toMap(B2BTransaction::getId, Function.identity()));
+        List<TransactionResponse> results = page.ids().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
+
+        return TransactionSearchResponse.builder()
+                .results(audited(user.getId(), results))
+                .nextCursor(page.nextCursor())
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public List<TransactionResponse> getAtRiskTransactions(int horizonHours, int limit) {
+        User user = getCurrentUser();
+        List<Long> ids = slaMonitorService.findAtRisk(
+                user.getRoles().contains("ADMIN") ? null : user.getId(), horizonHours, limit);
+
+        Map<Long, B2BTransaction> byId = transactionRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(B2BTransaction::getId, Function.identity()));
+        return audited(user.getId(), ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(this::mapToResponse)
+                .collect(Collectors.toList()));
     }
 
+    @Transactional(readOnly = true)
     public TransactionResponse getTransactionById(Long id) {
         User user = getCurrentUser();
         B2BTransaction transaction = transactionRepository.findById(id)
@@ -86,11 +371,11 @@ public class TransactionService {
             throw new RuntimeException("Unauthorized access to transaction");
         }
 
+        auditLog.record(AuditLogService.Action.READ, user.getId(), id);
         return mapToResponse(transaction);
     }
 
-    @Transactional
-    public TransactionResponse updateTransaction(Long id, TransactionRequest request) {
+    public Flux<String> streamTransactionInsights(Long id) {
         User user = getCurrentUser();
         B2BTransaction transaction = transactionRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Transaction not found"));
@@ -99,25 +384,96 @@ public class TransactionService {
             throw new RuntimeException("Unauthorized access to transaction");
         }
 
+        auditLog.record(AuditLogService.Action.READ, user.getId(), id);
+        // Only a fully received completion replaces the stored insights; a cancelled stream leaves them as they were
+        StringBuilder aiInsights = new StringBuilder();
+        return insightService.streamAIInsights(transaction)
+                .doOnNext(aiInsights::append)
+                // Blocking JDBC, so it runs on boundedElastic rather than on the Reactor thread that completed the stream
+                .concatWith(Mono.<String>fromRunnable(() -> saveAiInsights(id, aiInsights.toString()))
+                        .subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    // Saved through the entity, not a bulk UPDATE, so the change event reaches the outbox, caches and other nodes
+    private void saveAiInsights(Long id, String aiInsights) {
+        transactionTemplate.executeWithoutResult(status -> transactionRepository.findById(id).ifPresent(transaction -> {
+            transaction.setAiInsights(aiInsights);
+            transactionRepository.save(transaction);
+            eventPublisher.publishEvent(TransactionChangedEvent.updated(transaction, transaction.getUnitPrice()));
+        }));
+    }
+
+    // Not @Transactional for the same reason as createTransaction
+    public TransactionResponse updateTransaction(Long id, TransactionRequest request) {
+        User user = getCurrentUser();
+        // Read-write, so the row comes from the primary and not from a replica that may lag behind it
+        B2BTransaction transaction = transactionTemplate.execute(status -> transactionRepository.findById(id))
+                .orElseThrow(() -> new RuntimeException("Transaction not found"));
+
+        if (!transaction.getUser().getId().equals(user.getId()) && !user.getRoles().contains("ADMIN")) {
+            throw new RuntimeException("Unauthorized access to transaction");
+        }
+
+        // Scored on this detached copy, outside the write transaction, since insights may call the model
         transaction.setBuyerCompany(request.getBuyerCompany());
         transaction.setSellerCompany(request.getSellerCompany());
+        transaction.setBuyerCompanyId(companyDirectory.resolve(request.getBuyerCompany()));
+        transaction.setSellerCompanyId(companyDirectory.resolve(request.getSellerCompany()));
         transaction.setProductName(request.getProductName());
         transaction.setProductDescription(request.getProductDescription());
         transaction.setQuantity(request.getQuantity());
         transaction.setUnitPrice(request.getUnitPrice());
         transaction.setTotalAmount(request.getUnitPrice().multiply(BigDecimal.valueOf(request.getQuantity())));
         transaction.setCurrency(request.getCurrency() != null ? request.getCurrency() : "USD");
+        applyReportingAmount(transaction);
         transaction.setPaymentTerms(request.getPaymentTerms());
         transaction.setDeliveryDate(request.getDeliveryDate());
         transaction.setNotes(request.getNotes());
 
-        // Regenerate AI insights
-        String aiInsights = generateAIInsights(transaction);
-        transaction.setAiInsights(aiInsights);
-
-        transaction = transactionRepository.save(transaction);
+        // Rescore risk and regenerate AI insights when warranted
+        assessAndGenerateInsights(List.of(transaction));
+
+        B2BTransaction saved = transactionTemplate.execute(status -> {
+            // Re-read, so a status change, streamed insights or an escalation committed while scoring ran
+            // is kept: only the request's fields and what was computed from them are written back
+            B2BTransaction current = transactionRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Transaction not found"));
+            String previousProductName = current.getProductName();
+            String previousBuyerCompany = current.getBuyerCompany();
+            String previousSellerCompany = current.getSellerCompany();
+            BigDecimal previousUnitPrice = current.getUnitPrice();
+            if (!Objects.equals(current.getDeliveryDate(), transaction.getDeliveryDate())) {
+                current.setSlaEscalatedAt(null);
+            }
+            copyEditableFields(transaction, current);
+
+            B2BTransaction updated = transactionRepository.save(current);
+            eventPublisher.publishEvent(TransactionChangedEvent.updated(updated, previousProductName,
+                    previousBuyerCompany, previousSellerCompany, previousUnitPrice));
+            return updated;
+        });
+
+        return mapToResponse(saved);
+    }
 
-        return mapToResponse(transaction);
+    private static void copyEditableFields(B2BTransaction source, B2BTransaction target) {
+        target.setBuyerCompany(source.getBuyerCompany());
+        target.setSellerCompany(source.getSellerCompany());
+        target.setBuyerCompanyId(source.getBuyerCompanyId());
+        target.setSellerCompanyId(source.getSellerCompanyId());
+        target.setProductName(source.getProductName());
+        target.setProductDescription(source.getProductDescription());
+        target.setQuantity(source.getQuantity());
+        target.setUnitPrice(source.getUnitPrice());
+        target.setTotalAmount(source.getTotalAmount());
+        target.setCurrency(source.getCurrency());
+        target.setReportingAmount(source.getReportingAmount());
+        target.setFxRateVersion(source.getFxRateVersion());
+        target.setPaymentTerms(source.getPaymentTerms());
+        target.setDeliveryDate(source.getDeliveryDate());
+        target.setNotes(source.getNotes());
+        target.setRiskScore(source.getRiskScore());
+        target.setAiInsights(source.getAiInsights());
     }
 
     @Transactional
@@ -130,12 +486,90 @@ public class TransactionService {
             throw new RuntimeException("Unauthorized access to transaction");
         }
 
+        B2BTransaction.TransactionStatus previousStatus = transaction.getStatus();
+        TransactionWorkflowService.requireTransition(previousStatus, status);
+        if (previousStatus == status) {
+            return mapToResponse(transaction);
+        }
         transaction.setStatus(status);
         transaction = transactionRepository.save(transaction);
+        eventPublisher.publishEvent(TransactionChangedEvent.statusChanged(transaction, previousStatus));
 
         return mapToResponse(transaction);
     }
 
+    /**
+     * Applies one target status to many transactions with one guarded UPDATE per source status,
+     * reporting an outcome for every selected id. Transactions the caller does not own are reported
+     * as not found.
+     */
+    @Transactional
+    public BulkStatusUpdateResponse bulkUpdateStatus(BulkStatusUpdateRequest request) {
+        boolean byIds = request.getIds() != null && !request.getIds().isEmpty();
+        if (byIds == (request.getFilter() != null)) {
+            throw new IllegalArgumentException("Provide either ids or a filter");
+        }
+        if (byIds && request.getIds().size() > bulkStatusMaxItems) {
+            throw new IllegalArgumentException("At most " + bulkStatusMaxItems + " ids per request");
+        }
+
+        User user = getCurrentUser();
+        Long ownerId = user.getRoles().contains("ADMIN") ? null : user.getId();
+        B2BTransaction.TransactionStatus target = request.getStatus();
+
+        List<TransactionWorkflowService.Candidate> candidates;
+        boolean hasMore = false;
+        if (byIds) {
+            candidates = workflowService.findByIds(ownerId, request.getIds());
+        } else {
+            BulkStatusUpdateRequest.Filter filter = request.getFilter();
+            candidates = workflowService.findByFilter(ownerId, filter.getStatus(), filter.getFrom(), filter.getTo(),
+                    filter.getAfterId(), bulkStatusMaxItems + 1);
+            if (candidates.size() > bulkStatusMaxItems) {
+                candidates = candidates.subList(0, bulkStatusMaxItems);
+                hasMore = true;
+            }
+        }
+
+        Map<Long, BulkStatusUpdateResponse.Result> results = new LinkedHashMap<>();
+        if (byIds) {
+            request.getIds().forEach(id -> results.put(id,
+                    new BulkStatusUpdateResponse.Result(id, null, BulkStatusUpdateResponse.Outcome.NOT_FOUND)));
+        }
+        Map<B2BTransaction.TransactionStatus, List<Long>> bySource = new EnumMap<>(B2BTransaction.TransactionStatus.class);
+        for (TransactionWorkflowService.Candidate candidate : candidates) {
+            BulkStatusUpdateResponse.Outcome outcome;
+            if (candidate.status() == target) {
+                outcome = BulkStatusUpdateResponse.Outcome.UNCHANGED;
+            } else if (TransactionWorkflowService.canTransition(candidate.status(), target)) {
+                bySource.computeIfAbsent(candidate.status(), status -> new ArrayList<>()).add(candidate.id());
+                // Becomes UPDATED below if the guarded UPDATE matches; otherwise the row changed concurrently
+                outcome = BulkStatusUpdateResponse.Outcome.CONFLICT;
+            } else {
+                outcome = BulkStatusUpdateResponse.Outcome.INVALID_TRANSITION;
+            }
+            results.put(candidate.id(), new BulkStatusUpdateResponse.Result(candidate.id(), candidate.status(), outcome));
+        }
+
+        Map<Long, B2BTransaction.TransactionStatus> updated = new LinkedHashMap<>();
+        bySource.forEach((source, ids) -> workflowService.transition(ownerId, ids, source, target).forEach(id -> {
+            updated.put(id, source);
+            results.get(id).setOutcome(BulkStatusUpdateResponse.Outcome.UPDATED);
+        }));
+
+        // Loaded after the UPDATEs, so the events carry the new status
+        transactionRepository.findAllById(updated.keySet()).forEach(transaction -> eventPublisher.publishEvent(
+                TransactionChangedEvent.statusChanged(transaction, updated.get(transaction.getId()))));
+
+        return BulkStatusUpdateResponse.builder()
+                .status(target)
+                .updatedCount(updated.size())
+                .hasMore(hasMore)
+                .nextAfterId(hasMore ? candidates.get(candidates.size() - 1).id() : null)
+                .results(new ArrayList<>(results.values()))
+                .build();
+    }
+
     @Transactional
     public void deleteTransaction(Long id) {
         User user = getCurrentUser();
@@ -147,47 +581,12 @@ public class TransactionService {
         }
 
         transactionRepository.delete(transaction);
+        eventPublisher.publishEvent(TransactionChangedEvent.deleted(transaction));
     }
 
-    private String generateAIInsights(B2BTransaction transaction) {
-        try {
-            ChatClient chatClient = chatClientBuilder.build();
-
-            String promptText = """
-                Analyze this B2B transaction and provide brief insights:
-
-                Buyer: {buyer}
-                Seller: {seller}
-                Product: {product}
-                Quantity: {quantity}
-                Unit Price: {unitPrice} {currency}
-                Total Amount: {totalAmount} {currency}
-                Payment Terms: {paymentTerms}
-
-                Provide a brief analysis covering:
-                1. Risk assessment
-                2. Pricing analysis
-                3. Key recommendations
-
-                Keep the response concise (3-4 sentences).
-                """;
-
-            PromptTemplate promptTemplate = new PromptTemplate(promptText);
-            Prompt prompt = promptTemplate.create(Map.of(
-                    "buyer", transaction.getBuyerCompany(),
-                    "seller", transaction.getSellerCompany(),
-                    "product", transaction.getProductName(),
-                    "quantity", transaction.getQuantity().toString(),
-                    "unitPrice", transaction.getUnitPrice().toString(),
-                    "totalAmount", transaction.getTotalAmount().toString(),
-                    "currency", transaction.getCurrency(),
-                    "paymentTerms", transaction.getPaymentTerms() != null ? transaction.getPaymentTerms() : "N/A"
-            ));
-
-            return chatClient.prompt(prompt).call().content();
-        } catch (Exception e) {
-            return "AI insights unavailable. Please configure your OpenAI API key.";
-        }
+    private List<TransactionResponse> audited(Long userId, List<TransactionResponse> transactions) {
+        transactions.forEach(transaction -> auditLog.record(AuditLogService.Action.READ, userId, transaction.getId()));
+        return transactions;
     }
 
     private TransactionResponse mapToResponse(B2BTransaction transaction) {
@@ -196,17 +595,22 @@ public class TransactionService {
                 .transactionId(transaction.getTransactionId())
                 .buyerCompany(transaction.getBuyerCompany())
                 .sellerCompany(transaction.getSellerCompany())
+                .buyerCompanyId(transaction.getBuyerCompanyId())
+                .sellerCompanyId(transaction.getSellerCompanyId())
                 .productName(transaction.getProductName())
                 .productDescription(transaction.getProductDescription())
                 .quantity(transaction.getQuantity())
                 .unitPrice(transaction.getUnitPrice())
                 .totalAmount(transaction.getTotalAmount())
                 .currency(transaction.getCurrency())
+                .reportingAmount(transaction.getReportingAmount())
                 .status(transaction.getStatus())
                 .paymentTerms(transaction.getPaymentTerms())
                 .deliveryDate(transaction.getDeliveryDate())
                 .notes(transaction.getNotes())
                 .aiInsights(transaction.getAiInsights())
+                .riskScore(transaction.getRiskScore())
+                .duplicateOf(transaction.getDuplicateOf())
                 .createdAt(transaction.getCreatedAt())
                 .updatedAt(transaction.getUpdatedAt())
                 .build();
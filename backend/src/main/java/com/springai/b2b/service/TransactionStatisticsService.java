@@ -0,0 +1,723 @@
+package com.springai.b2b.service;
+
+import com.springai.b2b.dto.PriceAnomalyResponse;
+import com.springai.b2b.dto.PriceStatisticsResponse;
+import com.springai.b2b.entity.B2BTransaction;
+import com.springai.b2b.entity.PriceStatisticsCheckpoint;
+import com.springai.b2b.entity.PriceStatisticsSnapshot;
+import com.springai.b2b.event.TransactionChangedEvent;
+import com.springai.b2b.repository.B2BTransactionRepository;
+import com.springai.b2b.repository.PriceStatisticsCheckpointRepository;
+import com.springai.b2b.repository.PriceStatisticsSnapshotRepository;
+import com.tdunning.math.stats.MergingDigest;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * In-memory unit-price statistics per product and per counterparty: running mean/variance
+ * (Welford) plus a t-digest for quantiles, fed by transaction change events so "is this price
+ * unusual?" is answered without touching {@code b2b_transactions}.
+ * <p>
+ * Every order counts once with its current price and status: an update or delete first takes the
+ * order's previous contribution back out. Welford's update is reversible; a t-digest is not, so
+ * removed prices go into a second digest that is subtracted when quantiles are read.
+ * <p>
+ * The statistics include every transaction id up to a watermark except a set of gaps, ids that had
+ * not committed when a higher id arrived. A gap that commits later is still counted; gaps not seen
+ * within {@code statistics.gap-retention-ms} are taken to be rolled back. Dirty entries are
+ * checkpointed to {@code price_statistics} together with the watermark and the gaps, and on restart
+ * only rows above the watermark or in a gap are replayed, in the background with the node reporting
+ * itself not ready until that is done. Changes to older rows made after the last
+ * checkpoint are lost if the node dies without checkpointing on shutdown.
+ */
+@Service
+@Slf4j
+public class TransactionStatisticsService {
+
+    // Largest run of missing ids remembered at once; anything older in a longer run was committed long ago or never will be
+    private static final int MAX_GAP_RUN = 10_000;
+
+    private final B2BTransactionRepository transactionRepository;
+    private final PriceStatisticsSnapshotRepository snapshotRepository;
+    private final PriceStatisticsCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterEventBus clusterEventBus;
+    private final ApplicationEventPublisher eventPublisher;
+    private final double digestCompression;
+    private final double anomalyZScore;
+    private final long contributionRetentionMs;
+    private final long gapRetentionMs;
+    private final long replayMarginMs;
+    private final int restoreBatchSize;
+    private final ExecutorService restoreExecutor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("statistics-restore").daemon().factory());
+
+    private final Map<String, PriceStatistics> products = new ConcurrentHashMap<>();
+    private final Map<String, PriceStatistics> counterparties = new ConcurrentHashMap<>();
+
+    // Guards everything below and every change to the statistics, so a checkpoint captures them at one point
+    private final Object lock = new Object();
+    // What recently changed orders contribute, so a repeated event is a no-op and a change removes exactly what was added
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+    private final Map<Long, Long> touchedAt = new HashMap<>();
+    // Ids at or below the watermark that are not counted yet, with when the watermark passed them
+    private final Map<Long, Long> gaps = new HashMap<>();
+    private final List<TransactionChangedEvent> pending = new ArrayList<>();
+    private long watermark;
+    private Long checkpointedClusterEventId;
+    private boolean restored;
+    private boolean discardSnapshots;
+
+    public TransactionStatisticsService(B2BTransactionRepository transactionRepository,
+                                        PriceStatisticsSnapshotRepository snapshotRepository,
+                                        PriceStatisticsCheckpointRepository checkpointRepository,
+                                        TransactionTemplate transactionTemplate,
+                                        ClusterEventBus clusterEventBus,
+                                        ApplicationEventPublisher eventPublisher,
+                                        @Value("${statistics.digest-compression:100}") double digestCompression,
+                                        @Value("${statistics.anomaly-z-score:3.0}") double anomalyZScore,
+                                        @Value("${statistics.contribution-retention-ms:3600000}") long contributionRetentionMs,
+                                        @Value("${statistics.gap-retention-ms:86400000}") long gapRetentionMs,
+                                        @Value("${statistics.replay-margin-ms:60000}") long replayMarginMs,
+                                        @Value("${statistics.restore-batch-size:5000}") int restoreBatchSize) {
+        this.transactionRepository = transactionRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.clusterEventBus = clusterEventBus;
+        this.eventPublisher = eventPublisher;
+        this.digestCompression = digestCompression;
+        this.anomalyZScore = anomalyZScore;
+        this.contributionRetentionMs = contributionRetentionMs;
+        this.gapRetentionMs = gapRetentionMs;
+        this.replayMarginMs = replayMarginMs;
+        this.restoreBatchSize = restoreBatchSize;
+    }
+
+    // Off the event thread, so neither startup nor the listeners after this one wait for the replay
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRestore() {
+        restoreExecutor.submit(() -> {
+            try {
+                if (!restore()) {
+                    return;
+                }
+            } catch (RuntimeException e) {
+                // Readiness stays down rather than serving statistics that are missing part of the table
+                log.error("Restoring price statistics failed", e);
+                return;
+            }
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+        });
+    }
+
+    // Spring Boot reports the node ready right after ApplicationReadyEvent; that is taken back until the replay is done
+    @EventListener
+    public void onReadinessChanged(AvailabilityChangeEvent<ReadinessState> event) {
+        synchronized (lock) {
+            if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC && !restored) {
+                AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+            }
+        }
+    }
+
+    /**
+     * Loads the last checkpoint and replays the rows after it in chunks of {@code statistics.restore-batch-size},
+     * each read in its own short transaction so a large table never pins one snapshot or connection for the
+     * whole replay. Rows changed between chunks are read as they are then and the held-back events for them
+     * apply once, as with rows changed while the replay runs.
+     *
+     * @return false if the thread was interrupted before the replay finished
+     */
+    public boolean restore() {
+        long start = System.currentTimeMillis();
+        // Taken before anything is read: the bus delivers every change after this id, the replay below the rest
+        OptionalLong busStart = clusterEventBus.startedAfterId();
+
+        // Read-write so the replay reads the primary; a row missing from a lagging replica would never be counted
+        List<TransactionChangedEvent> missed = transactionTemplate.execute(status -> load(busStart, start));
+        long restoredWatermark = watermark;
+
+        long replayed = 0;
+        List<Long> gapIds = List.copyOf(gaps.keySet());
+        for (int from = 0; from < gapIds.size() && !Thread.currentThread().isInterrupted(); from += restoreBatchSize) {
+            List<Long> ids = gapIds.subList(from, Math.min(from + restoreBatchSize, gapIds.size()));
+            List<B2BTransactionRepository.StatisticsView> rows = transactionTemplate.execute(status ->
+                    transactionRepository.findStatisticsViewsByIdIn(ids));
+            rows.forEach(row -> replay(row, start));
+            replayed += rows.size();
+        }
+        long after = watermark;
+        while (!Thread.currentThread().isInterrupted()) {
+            long lastId = after;
+            List<B2BTransactionRepository.StatisticsView> rows = transactionTemplate.execute(status ->
+                    transactionRepository.findStatisticsViewsAfter(lastId, Limit.of(restoreBatchSize)));
+            rows.forEach(row -> replay(row, start));
+            replayed += rows.size();
+            if (rows.size() < restoreBatchSize) {
+                break;
+            }
+            after = rows.get(rows.size() - 1).getId();
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            log.info("Price statistics restore interrupted after {} rows", replayed);
+            return false;
+        }
+
+        // Changes committed while replaying were held back; rows the replay already read are tracked, so they apply once
+        synchronized (lock) {
+            // Oldest first; where the checkpoint already has some of them, the tracked contribution makes them no-ops
+            missed.forEach(event -> apply(event, start));
+            pending.forEach(event -> apply(event, System.currentTimeMillis()));
+            pending.clear();
+            restored = true;
+        }
+
+        log.info("Price statistics restored for {} products and {} counterparties ({} rows replayed after id {}, {} cluster changes) in {} ms",
+                products.size(), counterparties.size(), replayed, restoredWatermark, missed.size(), System.currentTimeMillis() - start);
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        restoreExecutor.shutdownNow();
+        checkpoint();
+    }
+
+    // Also sees changes replayed from other nodes by ClusterEventBus
+    @TransactionalEventListener
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        synchronized (lock) {
+            if (!restored) {
+                pending.add(event);
+                return;
+            }
+            apply(event, System.currentTimeMillis());
+        }
+    }
+
+    public OptionalDouble medianUnitPrice(String productName) {
+        PriceStatistics statistics = products.get(key(productName));
+        return statistics != null ? statistics.quantile(0.5) : OptionalDouble.empty();
+    }
+
+    public long orderCount(String company) {
+        PriceStatistics statistics = counterparties.get(key(company));
+        return statistics != null ? statistics.orders() : 0;
+    }
+
+    public double failureRate(String company) {
+        PriceStatistics statistics = counterparties.get(key(company));
+        return statistics != null ? statistics.failureRate() : 0;
+    }
+
+    public Optional<PriceStatisticsResponse> productStatistics(String productName) {
+        return Optional.ofNullable(products.get(key(productName))).map(statistics -> statistics.toResponse(productName));
+    }
+
+    public Optional<PriceStatisticsResponse> counterpartyStatistics(String company) {
+        return Optional.ofNullable(counterparties.get(key(company))).map(statistics -> statistics.toResponse(company));
+    }
+
+    public Optional<PriceAnomalyResponse> checkUnitPrice(String productName, BigDecimal unitPrice) {
+        return Optional.ofNullable(products.get(key(productName)))
+                .map(statistics -> statistics.check(productName, unitPrice.doubleValue(), anomalyZScore));
+    }
+
+    public String priceContext(B2BTransaction transaction) {
+        PriceStatistics statistics = products.get(key(transaction.getProductName()));
+        if (statistics == null || statistics.sampleCount() < 5) {
+            return "";
+        }
+        PriceStatisticsResponse summary = statistics.toResponse(transaction.getProductName());
+        PriceAnomalyResponse check = statistics.check(transaction.getProductName(),
+                transaction.getUnitPrice().doubleValue(), anomalyZScore);
+        return String.format(Locale.ROOT,
+                "Price history for this product: median %.2f, p10-p90 %.2f-%.2f over %d prices; this unit price is at percentile %.0f (z %.1f).",
+                summary.getP50(), summary.getP10(), summary.getP90(), summary.getCount(),
+                check.getPercentile() * 100, check.getZScore());
+    }
+
+    @Scheduled(fixedDelayString = "${statistics.checkpoint-interval-ms:300000}",
+            initialDelayString = "${statistics.checkpoint-interval-ms:300000}")
+    public void checkpoint() {
+        // Read first: everything up to it is applied by the time the lock below is held
+        OptionalLong settled = clusterEventBus.settledId(replayMarginMs);
+        Long clusterEventId = settled.isPresent() ? settled.getAsLong() : null;
+        List<PriceStatistics> captured = new ArrayList<>();
+        List<PriceStatisticsSnapshot> snapshots = new ArrayList<>();
+        PriceStatisticsCheckpoint checkpoint;
+        boolean discard;
+        synchronized (lock) {
+            if (!restored) {
+                // Nothing consistent to save yet, and saving now would overwrite the last good checkpoint
+                return;
+            }
+            long now = System.currentTimeMillis();
+            touchedAt.entrySet().removeIf(entry -> {
+                boolean expired = entry.getValue() < now - contributionRetentionMs;
+                if (expired) {
+                    contributions.remove(entry.getKey());
+                }
+                return expired;
+            });
+            int gapCount = gaps.size();
+            gaps.values().removeIf(since -> since < now - gapRetentionMs);
+            if (gaps.size() < gapCount) {
+                log.debug("Dropped {} transaction ids below the statistics watermark that never committed", gapCount - gaps.size());
+            }
+
+            LocalDateTime updatedAt = LocalDateTime.now();
+            capture(PriceStatisticsSnapshot.Scope.PRODUCT, products, updatedAt, captured, snapshots);
+            capture(PriceStatisticsSnapshot.Scope.COUNTERPARTY, counterparties, updatedAt, captured, snapshots);
+            if (snapshots.isEmpty() && gaps.size() == gapCount && !discardSnapshots
+                    && Objects.equals(clusterEventId, checkpointedClusterEventId)) {
+                return;
+            }
+            // Only a restart that replays cluster changes needs them
+            List<PriceStatisticsCheckpoint.TrackedOrder> tracked = null;
+            if (clusterEventId != null) {
+                tracked = new ArrayList<>(contributions.size());
+                for (Map.Entry<Long, Contribution> entry : contributions.entrySet()) {
+                    tracked.add(Contribution.toTracked(entry.getKey(), entry.getValue()));
+                }
+            }
+            checkpoint = PriceStatisticsCheckpoint.builder()
+                    .id(PriceStatisticsCheckpoint.ID)
+                    .watermarkId(watermark)
+                    .gapIds(gaps.keySet().toArray(Long[]::new))
+                    .clusterEventId(clusterEventId)
+                    .contributions(tracked)
+                    .updatedAt(updatedAt)
+                    .build();
+            discard = discardSnapshots;
+        }
+
+        // Entries and checkpoint row commit together, so a restart never pairs entries with another watermark
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (discard) {
+                    snapshotRepository.deleteAllInBatch();
+                }
+                snapshotRepository.saveAll(snapshots);
+                checkpointRepository.save(checkpoint);
+            });
+        } catch (RuntimeException e) {
+            captured.forEach(PriceStatistics::markDirty);
+            throw e;
+        }
+        synchronized (lock) {
+            discardSnapshots = discardSnapshots && !discard;
+            checkpointedClusterEventId = clusterEventId;
+        }
+        log.debug("Checkpointed {} price statistics entries at transaction id {} with {} gaps",
+                snapshots.size(), checkpoint.getWatermarkId(), checkpoint.getGapIds().length);
+    }
+
+    // Restores the checkpoint and returns the cluster changes made to orders below its watermark since it was taken
+    private List<TransactionChangedEvent> load(OptionalLong busStart, long start) {
+        Optional<PriceStatisticsCheckpoint> checkpoint = checkpointRepository.findById(PriceStatisticsCheckpoint.ID);
+        List<TransactionChangedEvent> missed = List.of();
+        if (checkpoint.isPresent() && busStart.isPresent()) {
+            // Changes to orders below the watermark are not in the rows read below, only in cluster_events
+            Long after = checkpoint.get().getClusterEventId();
+            Optional<List<TransactionChangedEvent>> changes = after != null
+                    ? clusterEventBus.transactionChanges(after, busStart.getAsLong()) : Optional.empty();
+            if (changes.isPresent()) {
+                missed = changes.get();
+            } else {
+                log.info("Changes since the price statistics checkpoint are no longer in cluster_events; rebuilding from b2b_transactions");
+                checkpoint = Optional.empty();
+                discardSnapshots = true;
+            }
+        }
+
+        if (checkpoint.isPresent()) {
+            for (PriceStatisticsSnapshot snapshot : snapshotRepository.findAll()) {
+                scope(snapshot.getScope()).put(snapshot.getStatKey(), PriceStatistics.fromSnapshot(snapshot, digestCompression));
+            }
+            watermark = checkpoint.get().getWatermarkId();
+            checkpointedClusterEventId = checkpoint.get().getClusterEventId();
+            if (checkpoint.get().getGapIds() != null) {
+                for (Long id : checkpoint.get().getGapIds()) {
+                    gaps.put(id, start);
+                }
+            }
+            if (checkpoint.get().getContributions() != null) {
+                for (PriceStatisticsCheckpoint.TrackedOrder order : checkpoint.get().getContributions()) {
+                    track(order.id(), Contribution.of(order), start);
+                }
+            }
+        } else if (snapshotRepository.count() > 0) {
+            // Snapshots without a checkpoint row predate per-order contributions and counted updates twice
+            log.info("Discarding price statistics snapshots without a checkpoint; rebuilding from b2b_transactions");
+            discardSnapshots = true;
+        }
+        return missed;
+    }
+
+    private void capture(PriceStatisticsSnapshot.Scope scope, Map<String, PriceStatistics> entries, LocalDateTime now,
+                         List<PriceStatistics> captured, List<PriceStatisticsSnapshot> snapshots) {
+        entries.forEach((key, statistics) -> statistics.snapshotIfDirty(scope, key, watermark, now).ifPresent(snapshot -> {
+            captured.add(statistics);
+            snapshots.add(snapshot);
+        }));
+    }
+
+    private void replay(B2BTransactionRepository.StatisticsView row, long now) {
+        synchronized (lock) {
+            long id = row.getId();
+            if (contributions.containsKey(id)) {
+                return;
+            }
+            if (id > watermark) {
+                advanceWatermark(id, now);
+            } else if (gaps.remove(id) == null) {
+                return;
+            }
+            Contribution contribution = Contribution.of(row.getProductName(), row.getBuyerCompany(),
+                    row.getSellerCompany(), row.getUnitPrice(), row.getStatus());
+            change(null, contribution);
+            track(id, contribution, now);
+        }
+    }
+
+    private void apply(TransactionChangedEvent event, long now) {
+        long id = event.id();
+        Contribution current = event.type() == TransactionChangedEvent.Type.DELETED ? null
+                : Contribution.of(event.productName(), event.buyerCompany(), event.sellerCompany(), event.unitPrice(), event.status());
+
+        Contribution previous;
+        if (contributions.containsKey(id)) {
+            previous = contributions.get(id);
+            if (previous == null || event.type() == TransactionChangedEvent.Type.CREATED) {
+                // Deleted already, or a repeated create
+                return;
+            }
+        } else if (id > watermark) {
+            // First sight of this order; across nodes a change can arrive before its create
+            advanceWatermark(id, now);
+            previous = null;
+        } else if (gaps.remove(id) != null) {
+            // Committed after a higher id had already been counted
+            previous = null;
+        } else if (event.type() == TransactionChangedEvent.Type.CREATED) {
+            return;
+        } else {
+            // Counted before this node tracked it, so its previous state comes from the event
+            previous = Contribution.of(
+                    Objects.requireNonNullElse(event.previousProductName(), event.productName()),
+                    Objects.requireNonNullElse(event.previousBuyerCompany(), event.buyerCompany()),
+                    Objects.requireNonNullElse(event.previousSellerCompany(), event.sellerCompany()),
+                    event.previousUnitPrice(), event.previousStatus());
+        }
+
+        change(previous, current);
+        track(id, current, now);
+    }
+
+    private void advanceWatermark(long id, long now) {
+        for (long skipped = Math.max(watermark + 1, id - MAX_GAP_RUN); skipped < id; skipped++) {
+            gaps.put(skipped, now);
+        }
+        watermark = id;
+    }
+
+    private void track(long id, Contribution contribution, long now) {
+        // A null contribution marks a deleted order, so a late or repeated event for it is ignored
+        contributions.put(id, contribution);
+        touchedAt.put(id, now);
+    }
+
+    private void change(Contribution previous, Contribution current) {
+        if (previous != null && current != null && previous.samePrice(current)) {
+            if (previous.failed() != current.failed()) {
+                int delta = current.failed() ? 1 : -1;
+                forEach(current, statistics -> statistics.adjustFailures(delta));
+            }
+            return;
+        }
+        if (previous != null) {
+            forEach(previous, statistics -> statistics.remove(previous.unitPrice(), previous.failed()));
+        }
+        if (current != null) {
+            forEach(current, statistics -> statistics.add(current.unitPrice(), current.failed()));
+        }
+    }
+
+    private void forEach(Contribution contribution, Consumer<PriceStatistics> update) {
+        update.accept(products.computeIfAbsent(contribution.product(), k -> new PriceStatistics(digestCompression)));
+        update.accept(counterparties.computeIfAbsent(contribution.buyer(), k -> new PriceStatistics(digestCompression)));
+        update.accept(counterparties.computeIfAbsent(contribution.seller(), k -> new PriceStatistics(digestCompression)));
+    }
+
+    private Map<String, PriceStatistics> scope(PriceStatisticsSnapshot.Scope scope) {
+        return scope == PriceStatisticsSnapshot.Scope.PRODUCT ? products : counterparties;
+    }
+
+    private static boolean isFailed(B2BTransaction.TransactionStatus status) {
+        return status == B2BTransaction.TransactionStatus.CANCELLED || status == B2BTransaction.TransactionStatus.REJECTED;
+    }
+
+    private static String key(String name) {
+        return name == null ? "" : name.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private record Contribution(String product, String buyer, String seller, Double unitPrice, boolean failed) {
+
+        static Contribution of(String productName, String buyerCompany, String sellerCompany, BigDecimal unitPrice,
+                               B2BTransaction.TransactionStatus status) {
+            return new Contribution(key(productName), key(buyerCompany), key(sellerCompany),
+                    unitPrice == null ? null : unitPrice.doubleValue(), isFailed(status));
+        }
+
+        static Contribution of(PriceStatisticsCheckpoint.TrackedOrder order) {
+            return order.deleted() ? null
+                    : new Contribution(order.product(), order.buyer(), order.seller(), order.unitPrice(), order.failed());
+        }
+
+        static PriceStatisticsCheckpoint.TrackedOrder toTracked(long id, Contribution contribution) {
+            return contribution == null ? new PriceStatisticsCheckpoint.TrackedOrder(id, true, null, null, null, null, false)
+                    : new PriceStatisticsCheckpoint.TrackedOrder(id, false, contribution.product(), contribution.buyer(),
+                    contribution.seller(), contribution.unitPrice(), contribution.failed());
+        }
+
+        boolean samePrice(Contribution other) {
+            return product.equals(other.product) && buyer.equals(other.buyer) && seller.equals(other.seller)
+                    && Objects.equals(unitPrice, other.unitPrice);
+        }
+    }
+
+    private static final class PriceStatistics {
+        private final double compression;
+        private MergingDigest digest;
+        // Prices taken back out by updates and deletes; subtracted from digest when reading quantiles
+        private MergingDigest removed;
+        private long orders;
+        private long failedOrders;
+        private long count;
+        private double mean;
+        private double m2;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private boolean dirty;
+
+        private PriceStatistics(double compression) {
+            this.compression = compression;
+            this.digest = new MergingDigest(compression);
+            this.removed = new MergingDigest(compression);
+        }
+
+        static PriceStatistics fromSnapshot(PriceStatisticsSnapshot snapshot, double compression) {
+            PriceStatistics statistics = new PriceStatistics(compression);
+            statistics.digest = MergingDigest.fromBytes(ByteBuffer.wrap(snapshot.getDigest()));
+            if (snapshot.getRemovedDigest() != null) {
+                statistics.removed = MergingDigest.fromBytes(ByteBuffer.wrap(snapshot.getRemovedDigest()));
+            }
+            statistics.orders = snapshot.getOrders();
+            statistics.failedOrders = snapshot.getFailedOrders();
+            statistics.count = snapshot.getSampleCount();
+            statistics.mean = snapshot.getMean();
+            statistics.m2 = snapshot.getM2();
+            statistics.min = snapshot.getMinValue();
+            statistics.max = snapshot.getMaxValue();
+            return statistics;
+        }
+
+        synchronized void add(Double unitPrice, boolean failed) {
+            orders++;
+            if (failed) {
+                failedOrders++;
+            }
+            dirty = true;
+            if (unitPrice == null) {
+                return;
+            }
+            double value = unitPrice;
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            digest.add(value);
+        }
+
+        synchronized void remove(Double unitPrice, boolean failed) {
+            orders = Math.max(0, orders - 1);
+            if (failed) {
+                failedOrders = Math.max(0, failedOrders - 1);
+            }
+            dirty = true;
+            if (unitPrice == null || count == 0) {
+                return;
+            }
+            if (count == 1) {
+                // Empty again, so start from exact state rather than carrying both digests
+                count = 0;
+                mean = 0;
+                m2 = 0;
+                min = Double.POSITIVE_INFINITY;
+                max = Double.NEGATIVE_INFINITY;
+                digest = new MergingDigest(compression);
+                removed = new MergingDigest(compression);
+                return;
+            }
+            double value = unitPrice;
+            double previousMean = mean;
+            mean = (count * mean - value) / (count - 1);
+            m2 = Math.max(0, m2 - (value - mean) * (value - previousMean));
+            count--;
+            removed.add(value);
+        }
+
+        synchronized void adjustFailures(int delta) {
+            failedOrders = Math.max(0, failedOrders + delta);
+            dirty = true;
+        }
+
+        synchronized void markDirty() {
+            dirty = true;
+        }
+
+        synchronized long orders() {
+            return orders;
+        }
+
+        synchronized long sampleCount() {
+            return count;
+        }
+
+        synchronized double failureRate() {
+            return orders == 0 ? 0 : (double) failedOrders / orders;
+        }
+
+        synchronized OptionalDouble quantile(double q) {
+            return count == 0 ? OptionalDouble.empty() : OptionalDouble.of(valueAt(q));
+        }
+
+        synchronized PriceAnomalyResponse check(String key, double value, double zThreshold) {
+            double stdDev = standardDeviation();
+            double zScore = stdDev > 0 ? (value - mean) / stdDev : 0;
+            double percentile = count == 0 ? 0 : cdf(value);
+            return PriceAnomalyResponse.builder()
+                    .key(key)
+                    .unitPrice(value)
+                    .percentile(percentile)
+                    .zScore(zScore)
+                    .unusual(count >= 5 && (Math.abs(zScore) >= zThreshold || percentile <= 0.01 || percentile >= 0.99))
+                    .build();
+        }
+
+        synchronized PriceStatisticsResponse toResponse(String key) {
+            boolean empty = count == 0;
+            // min and max cover every price ever added; once prices were removed they come from the net distribution
+            boolean exact = removed.size() == 0;
+            return PriceStatisticsResponse.builder()
+                    .key(key)
+                    .orders(orders)
+                    .failedOrders(failedOrders)
+                    .count(count)
+                    .mean(mean)
+                    .stdDev(standardDeviation())
+                    .min(empty ? null : exact ? min : valueAt(0))
+                    .max(empty ? null : exact ? max : valueAt(1))
+                    .p10(empty ? null : valueAt(0.10))
+                    .p50(empty ? null : valueAt(0.50))
+                    .p90(empty ? null : valueAt(0.90))
+                    .p99(empty ? null : valueAt(0.99))
+                    .build();
+        }
+
+        synchronized Optional<PriceStatisticsSnapshot> snapshotIfDirty(PriceStatisticsSnapshot.Scope scope, String key,
+                                                                        long watermark, LocalDateTime now) {
+            if (!dirty) {
+                return Optional.empty();
+            }
+            dirty = false;
+
+            return Optional.of(PriceStatisticsSnapshot.builder()
+                    .id(scope.name() + ":" + key)
+                    .scope(scope)
+                    .statKey(key)
+                    .orders(orders)
+                    .failedOrders(failedOrders)
+                    .sampleCount(count)
+                    .mean(mean)
+                    .m2(m2)
+                    .minValue(min)
+                    .maxValue(max)
+                    .digest(bytes(digest))
+                    .removedDigest(removed.size() == 0 ? null : bytes(removed))
+                    .watermarkId(watermark)
+                    .updatedAt(now)
+                    .build());
+        }
+
+        // Fraction of current prices at or below value: everything added minus everything removed
+        private double cdf(double value) {
+            if (removed.size() == 0) {
+                return digest.cdf(value);
+            }
+            double below = digest.size() * digest.cdf(value) - removed.size() * removed.cdf(value);
+            return Math.min(1, Math.max(0, below / count));
+        }
+
+        private double valueAt(double q) {
+            if (removed.size() == 0) {
+                return digest.quantile(q);
+            }
+            // The net distribution has no quantile function of its own; bisect its cdf over the range ever seen
+            double target = Math.min(Math.max(q, 0.5 / count), 1 - 0.5 / count);
+            double low = digest.getMin();
+            double high = digest.getMax();
+            for (int i = 0; i < 50 && low < high; i++) {
+                double mid = (low + high) / 2;
+                if (cdf(mid) < target) {
+                    low = mid;
+                } else {
+                    high = mid;
+                }
+            }
+            return high;
+        }
+
+        private double standardDeviation() {
+            return count > 1 ? Math.sqrt(m2 / (count - 1)) : 0;
+        }
+
+        private static byte[] bytes(MergingDigest digest) {
+            ByteBuffer bytes = ByteBuffer.allocate(digest.byteSize());
+            digest.asBytes(bytes);
+            return bytes.array();
+        }
+    }
+}
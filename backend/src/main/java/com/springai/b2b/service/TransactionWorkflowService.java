@@ -0,0 +1,146 @@
+package com.springai.b2b.service;
+
+import com.springai.b2b.entity.B2BTransaction.TransactionStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The transaction status state machine, and the set-based queries the bulk status endpoint uses to
+ * apply it. Every update is guarded by the expected source status, so a row changed concurrently
+ * since it was read is left alone instead of being forced through an illegal transition.
+ */
+@Service
+public class TransactionWorkflowService {
+
+    private static final Map<TransactionStatus, Set<TransactionStatus>> TRANSITIONS = new EnumMap<>(TransactionStatus.class);
+
+    static {
+        TRANSITIONS.put(TransactionStatus.PENDING,
+                EnumSet.of(TransactionStatus.APPROVED, TransactionStatus.REJECTED, TransactionStatus.CANCELLED));
+        TRANSITIONS.put(TransactionStatus.APPROVED,
+                EnumSet.of(TransactionStatus.IN_PROGRESS, TransactionStatus.COMPLETED, TransactionStatus.CANCELLED));
+        TRANSITIONS.put(TransactionStatus.IN_PROGRESS,
+                EnumSet.of(TransactionStatus.COMPLETED, TransactionStatus.CANCELLED));
+        TRANSITIONS.put(TransactionStatus.COMPLETED, EnumSet.noneOf(TransactionStatus.class));
+        TRANSITIONS.put(TransactionStatus.CANCELLED, EnumSet.noneOf(TransactionStatus.class));
+        TRANSITIONS.put(TransactionStatus.REJECTED, EnumSet.noneOf(TransactionStatus.class));
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransactionWorkflowService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Statuses with somewhere left to go, i.e. orders that are still open.
+     */
+    public static Set<TransactionStatus> openStatuses() {
+        Set<TransactionStatus> open = EnumSet.noneOf(TransactionStatus.class);
+        TRANSITIONS.forEach((status, targets) -> {
+            if (!targets.isEmpty()) {
+                open.add(status);
+            }
+        });
+        return open;
+    }
+
+    public static boolean canTransition(TransactionStatus from, TransactionStatus to) {
+        return TRANSITIONS.get(from).contains(to);
+    }
+
+    public static void requireTransition(TransactionStatus from, TransactionStatus to) {
+        if (from != to && !canTransition(from, to)) {
+            throw new InvalidStatusTransitionException("Cannot change status from " + from + " to " + to);
+        }
+    }
+
+    /**
+     * @param userId null to match every user's transactions
+     */
+    public List<Candidate> findByIds(Long userId, Collection<Long> ids) {
+        StringBuilder sql = new StringBuilder("SELECT id, status FROM b2b_transactions WHERE id = ANY(?)");
+        List<Object> args = new ArrayList<>();
+        args.add(ids.toArray(Long[]::new));
+        if (userId != null) {
+            sql.append(" AND user_id = ?");
+            args.add(userId);
+        }
+        return query(sql, args);
+    }
+
+    /**
+     * Up to {@code limit} transactions matching the filter, oldest id first.
+     *
+     * @param userId null to match every user's transactions
+     * @param afterId null to start from the first matching id
+     */
+    public List<Candidate> findByFilter(Long userId, TransactionStatus status, LocalDateTime from, LocalDateTime to,
+                                        Long afterId, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT id, status FROM b2b_transactions WHERE true");
+        List<Object> args = new ArrayList<>();
+        if (afterId != null) {
+            sql.append(" AND id > ?");
+            args.add(afterId);
+        }
+        if (userId != null) {
+            sql.append(" AND user_id = ?");
+            args.add(userId);
+        }
+        if (status != null) {
+            sql.append(" AND status = ?");
+            args.add(status.name());
+        }
+        if (from != null) {
+            sql.append(" AND created_at >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND created_at <= ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        sql.append(" ORDER BY id LIMIT ?");
+        args.add(limit);
+        return query(sql, args);
+    }
+
+    /**
+     * Moves the given transactions from {@code from} to {@code to} in one statement and returns the
+     * ids that actually changed; ids whose status is no longer {@code from} are skipped.
+     *
+     * @param userId null to allow every user's transactions
+     */
+    public List<Long> transition(Long userId, Collection<Long> ids, TransactionStatus from, TransactionStatus to) {
+        requireTransition(from, to);
+        StringBuilder sql = new StringBuilder("UPDATE b2b_transactions SET status = ?, updated_at = ? "
+                + "WHERE id = ANY(?) AND status = ?");
+        List<Object> args = new ArrayList<>(List.of(to.name(), Timestamp.valueOf(LocalDateTime.now()),
+                ids.toArray(Long[]::new), from.name()));
+        if (userId != null) {
+            sql.append(" AND user_id = ?");
+            args.add(userId);
+        }
+        sql.append(" RETURNING id");
+        return jdbcTemplate.queryForList(sql.toString(), Long.class, args.toArray());
+    }
+
+    private List<Candidate> query(StringBuilder sql, List<Object> args) {
+        return jdbcTemplate.query(sql.toString(),
+                (resultSet, rowNum) -> new Candidate(resultSet.getLong("id"),
+                        TransactionStatus.valueOf(resultSet.getString("status"))),
+                args.toArray());
+    }
+
+    public record Candidate(long id, TransactionStatus status) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.springai.b2b.service;
+
+import com.springai.b2b.entity.User;
+import com.springai.b2b.event.UserChangedEvent;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Drops a user's second-level cache entries when another node reports a change to it. Locally
+ * Hibernate already keeps the cache consistent, so the extra eviction after our own commits is
+ * only a cheap re-read.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserCacheInvalidator {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @TransactionalEventListener
+    public void onUserChanged(UserChangedEvent event) {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictEntityData(User.class, event.userId());
+        cache.evictCollectionData(User.class.getName() + ".roles", event.userId());
+        // Cached findByUsername results (including "not found") may refer to the old state
+        cache.evictDefaultQueryRegion();
+    }
+}
@@ -0,0 +1,56 @@
+package com.springai.b2b;
+
+import com.springai.b2b.repository.B2BTransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts the whole application against PostgreSQL, so the JDBC pool behind JPA and the R2DBC
+ * connection factory behind the reactive read path are both wired up and reach the same database.
+ */
+@SpringBootTest(properties = {
+        "spring.ai.vectorstore.pgvector.initialize-schema=true",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("stub-ai")
+@Testcontainers(disabledWithoutDocker = true)
+class B2BPlatformApplicationTests {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>(
+            DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private B2BTransactionRepository transactionRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Test
+    void jdbcAndR2dbcBothReachTheDatabase() {
+        assertThat(jdbcTemplate.queryForObject("SELECT current_database()", String.class))
+                .isEqualTo(POSTGRES.getDatabaseName());
+        assertThat(transactionRepository.count()).isZero();
+
+        String reactive = databaseClient.sql("SELECT current_database()")
+                .map(row -> row.get(0, String.class))
+                .one()
+                .block();
+        assertThat(reactive).isEqualTo(POSTGRES.getDatabaseName());
+    }
+}
@@ -0,0 +1,112 @@
+package com.springai.b2b;
+
+import com.springai.b2b.dto.AuthResponse;
+import com.springai.b2b.dto.RegisterRequest;
+import com.springai.b2b.dto.TransactionRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Submits the same order twice at once over HTTP. Both requests pass the in-memory index before
+ * either is indexed, so only the fingerprint claim taken in the inserting transaction keeps the
+ * second one out.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.ai.vectorstore.pgvector.initialize-schema=true",
+        "spring.jpa.show-sql=false",
+        "rate-limit.enabled=false",
+        "duplicates.exact=REJECT"
+})
+@ActiveProfiles("stub-ai")
+@Testcontainers(disabledWithoutDocker = true)
+class DuplicateTransactionTests {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>(
+            DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"));
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentIdenticalOrdersCreateOneTransaction() throws Exception {
+        HttpHeaders headers = authenticate("buyer");
+        TransactionRequest order = new TransactionRequest("Acme", "Globex", "Hex bolts M8", null, 100,
+                new BigDecimal("0.25"), "USD", "Net 30", LocalDateTime.now().plusDays(14).withNano(0), null);
+
+        CyclicBarrier start = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<CompletableFuture<ResponseEntity<Map>>> submissions = List.of(
+                    CompletableFuture.supplyAsync(() -> submit(order, headers, start), executor),
+                    CompletableFuture.supplyAsync(() -> submit(order, headers, start), executor));
+            List<ResponseEntity<Map>> responses = submissions.stream()
+                    .map(future -> future.orTimeout(60, TimeUnit.SECONDS).join())
+                    .toList();
+
+            assertThat(responses).extracting(ResponseEntity::getStatusCode)
+                    .containsExactlyInAnyOrder(HttpStatus.CREATED, HttpStatus.CONFLICT);
+            ResponseEntity<Map> created = responses.stream()
+                    .filter(response -> response.getStatusCode() == HttpStatus.CREATED).findFirst().orElseThrow();
+            ResponseEntity<Map> rejected = responses.stream()
+                    .filter(response -> response.getStatusCode() == HttpStatus.CONFLICT).findFirst().orElseThrow();
+            assertThat(rejected.getBody()).containsEntry("kind", "EXACT");
+            assertThat(((Number) rejected.getBody().get("duplicateOf")).longValue())
+                    .isEqualTo(((Number) created.getBody().get("id")).longValue());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM b2b_transactions WHERE product_name = ?",
+                Long.class, "Hex bolts M8")).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM transaction_fingerprints", Long.class)).isEqualTo(1);
+    }
+
+    private ResponseEntity<Map> submit(TransactionRequest order, HttpHeaders headers, CyclicBarrier start) {
+        try {
+            start.await(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return restTemplate.exchange("/transactions", HttpMethod.POST, new HttpEntity<>(order, headers), Map.class);
+    }
+
+    private HttpHeaders authenticate(String username) {
+        RegisterRequest register = new RegisterRequest(username, username + "@example.com", "secret-password",
+                "Test", "User", null, "Acme");
+        AuthResponse auth = restTemplate.postForObject("/auth/register", register, AuthResponse.class);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(auth.getToken());
+        return headers;
+    }
+}
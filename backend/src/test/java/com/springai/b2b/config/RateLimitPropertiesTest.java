@@ -0,0 +1,69 @@
+package com.springai.b2b.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.validation.BindValidationException;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitPropertiesTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(ValidationAutoConfiguration.class))
+            .withUserConfiguration(Config.class)
+            .withPropertyValues(
+                    "rate-limit.rules[0].name=transactions-write",
+                    "rate-limit.rules[0].path=/transactions/**",
+                    "rate-limit.rules[0].permits-per-second=5",
+                    "rate-limit.rules[0].burst=50");
+
+    @Test
+    void bindsAValidRule() {
+        contextRunner.run(context -> {
+            assertThat(context).hasNotFailed();
+            RateLimitProperties.Rule rule = context.getBean(RateLimitProperties.class).getRules().get(0);
+            assertThat(rule.getScope()).isEqualTo(RateLimitProperties.Scope.PRINCIPAL);
+            assertThat(rule.getPermitsPerSecond()).isEqualTo(5);
+        });
+    }
+
+    @Test
+    void rejectsANonPositiveRate() {
+        contextRunner.withPropertyValues("rate-limit.rules[0].permits-per-second=0")
+                .run(context -> assertFailsOn(context.getStartupFailure(), "rules[0].permitsPerSecond"));
+    }
+
+    @Test
+    void rejectsAnEmptyBurst() {
+        contextRunner.withPropertyValues("rate-limit.rules[0].burst=0")
+                .run(context -> assertFailsOn(context.getStartupFailure(), "rules[0].burst"));
+    }
+
+    @Test
+    void rejectsARuleWithoutAName() {
+        contextRunner.withPropertyValues("rate-limit.rules[1].path=/**", "rate-limit.rules[1].permits-per-second=1")
+                .run(context -> assertFailsOn(context.getStartupFailure(), "rules[1].name"));
+    }
+
+    @Test
+    void rejectsDuplicateRuleNames() {
+        contextRunner.withPropertyValues(
+                        "rate-limit.rules[1].name=transactions-write",
+                        "rate-limit.rules[1].permits-per-second=1")
+                .run(context -> assertFailsOn(context.getStartupFailure(), "ruleNamesUnique"));
+    }
+
+    private static void assertFailsOn(Throwable failure, String field) {
+        assertThat(failure).hasRootCauseInstanceOf(BindValidationException.class);
+        assertThat(failure).rootCause().hasMessageContaining(field);
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(RateLimitProperties.class)
+    static class Config {
+    }
+}
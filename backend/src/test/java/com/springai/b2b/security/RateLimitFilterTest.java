@@ -0,0 +1,134 @@
+package com.springai.b2b.security;
+
+import com.springai.b2b.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RateLimitFilter filter;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        if (filter != null) {
+            filter.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsOnceTheBurstIsUsedWithRetryAfter() throws Exception {
+        filter = filter(rule("user", RateLimitProperties.Scope.PRINCIPAL, null, "/**", 3));
+        signIn(1L, "Acme");
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(send("GET", "/transactions").getStatus()).isEqualTo(200);
+        }
+        MockHttpServletResponse limited = send("GET", "/transactions");
+
+        assertThat(limited.getStatus()).isEqualTo(429);
+        assertThat(limited.getHeader(HttpHeaders.RETRY_AFTER)).isNotNull();
+        assertThat(meterRegistry.get("rate_limit.rejected").tag("rule", "user").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void companyRejectionLeavesTheUsersTokenUnused() throws Exception {
+        filter = filter(
+                rule("user", RateLimitProperties.Scope.PRINCIPAL, null, "/**", 2),
+                rule("company-write", RateLimitProperties.Scope.COMPANY, "POST", "/transactions/**", 1));
+        signIn(1L, "Acme");
+
+        assertThat(send("POST", "/transactions").getStatus()).isEqualTo(200);
+        assertThat(send("POST", "/transactions").getStatus()).isEqualTo(429);
+        assertThat(meterRegistry.get("rate_limit.rejected").tag("rule", "company-write").counter().count()).isEqualTo(1);
+
+        // The rejected request did not consume the user's second token
+        assertThat(send("GET", "/transactions").getStatus()).isEqualTo(200);
+        assertThat(send("GET", "/transactions").getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void companyQuotaIsSharedAcrossUsers() throws Exception {
+        filter = filter(rule("company-write", RateLimitProperties.Scope.COMPANY, "POST", "/transactions/**", 1));
+
+        signIn(1L, "Acme");
+        assertThat(send("POST", "/transactions").getStatus()).isEqualTo(200);
+        signIn(2L, " acme ");
+        assertThat(send("POST", "/transactions").getStatus()).isEqualTo(429);
+        signIn(3L, "Globex");
+        assertThat(send("POST", "/transactions").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void firstMatchingRulePerScopeApplies() throws Exception {
+        RateLimitProperties.Rule admin = rule("admin", RateLimitProperties.Scope.PRINCIPAL, null, "/**", 3);
+        admin.setRole("ADMIN");
+        filter = filter(admin, rule("user", RateLimitProperties.Scope.PRINCIPAL, null, "/**", 1));
+
+        signIn(1L, "Acme", "ADMIN");
+        for (int i = 0; i < 3; i++) {
+            assertThat(send("GET", "/transactions").getStatus()).isEqualTo(200);
+        }
+        signIn(2L, "Acme", "USER");
+        assertThat(send("GET", "/transactions").getStatus()).isEqualTo(200);
+        assertThat(send("GET", "/transactions").getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void unauthenticatedRequestsAreNotLimited() throws Exception {
+        filter = filter(rule("user", RateLimitProperties.Scope.PRINCIPAL, null, "/**", 1));
+
+        assertThat(send("GET", "/auth/login").getStatus()).isEqualTo(200);
+        assertThat(send("GET", "/auth/login").getStatus()).isEqualTo(200);
+    }
+
+    private RateLimitFilter filter(RateLimitProperties.Rule... rules) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRules(List.of(rules));
+        return new RateLimitFilter(properties, meterRegistry);
+    }
+
+    // Slow enough that no token comes back while a test runs
+    private static RateLimitProperties.Rule rule(String name, RateLimitProperties.Scope scope, String method,
+                                                 String path, int burst) {
+        RateLimitProperties.Rule rule = new RateLimitProperties.Rule();
+        rule.setName(name);
+        rule.setScope(scope);
+        rule.setMethod(method);
+        rule.setPath(path);
+        rule.setPermitsPerSecond(0.001);
+        rule.setBurst(burst);
+        return rule;
+    }
+
+    private static void signIn(long id, String companyName, String... roles) {
+        List<SimpleGrantedAuthority> authorities = (roles.length > 0 ? List.of(roles) : List.of("USER")).stream()
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                .toList();
+        UserPrincipal principal = new UserPrincipal(id, "user" + id, "user" + id + "@example.com", null,
+                "Test", "User", companyName, authorities);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, authorities));
+    }
+
+    private MockHttpServletResponse send(String method, String path) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api" + path);
+        request.setContextPath("/api");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
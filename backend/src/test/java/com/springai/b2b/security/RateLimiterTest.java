@@ -0,0 +1,76 @@
+package com.springai.b2b.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final RateLimiter limiter = new RateLimiter();
+
+    @Test
+    void allowsExactlyTheBurstAtOnce() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("user", SECOND, 5)).isZero();
+        }
+
+        long wait = limiter.tryAcquire("user", SECOND, 5);
+        assertThat(wait).isPositive().isLessThanOrEqualTo(SECOND);
+        // A rejected attempt takes nothing, so the wait does not grow with retries
+        assertThat(limiter.tryAcquire("user", SECOND, 5)).isLessThanOrEqualTo(wait);
+    }
+
+    @Test
+    void refillsOneTokenPerEmissionInterval() throws InterruptedException {
+        long interval = TimeUnit.MILLISECONDS.toNanos(200);
+        assertThat(limiter.tryAcquire("user", interval, 2)).isZero();
+        assertThat(limiter.tryAcquire("user", interval, 2)).isZero();
+        long wait = limiter.tryAcquire("user", interval, 2);
+        assertThat(wait).isPositive().isLessThanOrEqualTo(interval);
+
+        TimeUnit.NANOSECONDS.sleep(wait + TimeUnit.MILLISECONDS.toNanos(10));
+
+        assertThat(limiter.tryAcquire("user", interval, 2)).isZero();
+        assertThat(limiter.tryAcquire("user", interval, 2)).isPositive();
+    }
+
+    @Test
+    void bucketsAreIndependentPerKey() {
+        assertThat(limiter.tryAcquire("a", SECOND, 1)).isZero();
+        assertThat(limiter.tryAcquire("a", SECOND, 1)).isPositive();
+        assertThat(limiter.tryAcquire("b", SECOND, 1)).isZero();
+    }
+
+    @Test
+    void waitNanosPeeksWithoutTakingOrCreating() {
+        assertThat(limiter.waitNanos("user", SECOND, 1)).isZero();
+        assertThat(limiter.size()).isZero();
+
+        assertThat(limiter.tryAcquire("user", SECOND, 1)).isZero();
+        long wait = limiter.waitNanos("user", SECOND, 1);
+        assertThat(wait).isPositive();
+        assertThat(limiter.waitNanos("user", SECOND, 1)).isLessThanOrEqualTo(wait);
+    }
+
+    @Test
+    void releaseGivesBackATakenToken() {
+        assertThat(limiter.tryAcquire("user", SECOND, 1)).isZero();
+        limiter.release("user", SECOND);
+
+        assertThat(limiter.tryAcquire("user", SECOND, 1)).isZero();
+        assertThat(limiter.tryAcquire("user", SECOND, 1)).isPositive();
+    }
+
+    @Test
+    void evictsOnlyBucketsThatAreFullAgain() {
+        limiter.tryAcquire("idle", 1, 1);
+        limiter.tryAcquire("busy", SECOND, 1);
+
+        assertThat(limiter.evictIdle(0)).isEqualTo(1);
+        assertThat(limiter.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,106 @@
+package com.springai.b2b.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class AuditLogServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AuditLogService service;
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void blockGivesUpAfterTheTimeoutAndCountsTheDrop() {
+        service = service(AuditLogService.Overflow.BLOCK, 100);
+        fill();
+
+        long start = System.nanoTime();
+        service.record(AuditLogService.Action.READ, 1L, 3);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(elapsedMs).isGreaterThanOrEqualTo(100);
+        assertThat(dropped()).isEqualTo(1);
+    }
+
+    @Test
+    void blockPublishesOnceTheWriterFreesSpace() throws Exception {
+        service = service(AuditLogService.Overflow.BLOCK, 10_000);
+        fill();
+
+        // The writer is only started after the producer is already waiting
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            service.start();
+        });
+        long start = System.nanoTime();
+        service.record(AuditLogService.Action.READ, 1L, 3);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        writer.get(10, TimeUnit.SECONDS);
+
+        assertThat(elapsedMs).isLessThan(10_000);
+        assertThat(dropped()).isZero();
+        service.stop();
+        assertThat(Files.list(dir).flatMap(AuditLogServiceTest::lines).count()).isEqualTo(3);
+    }
+
+    @Test
+    void dropReturnsImmediately() {
+        service = service(AuditLogService.Overflow.DROP, 10_000);
+        fill();
+
+        long start = System.nanoTime();
+        service.record(AuditLogService.Action.READ, 1L, 3);
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1_000);
+        assertThat(dropped()).isEqualTo(1);
+    }
+
+    // Not started, so nothing drains the two-slot buffer
+    private AuditLogService service(AuditLogService.Overflow overflow, long blockTimeoutMs) {
+        return new AuditLogService(mock(JdbcTemplate.class), meterRegistry, true, 2, 10, 20,
+                AuditLogService.Sink.FILE, overflow, blockTimeoutMs, dir.toString());
+    }
+
+    private void fill() {
+        service.record(AuditLogService.Action.CREATE, 1L, 1);
+        service.record(AuditLogService.Action.CREATE, 1L, 2);
+        assertThat(dropped()).isZero();
+    }
+
+    private double dropped() {
+        return meterRegistry.get("audit.dropped").counter().count();
+    }
+
+    private static Stream<String> lines(Path file) {
+        try {
+            return Files.readAllLines(file).stream();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.springai.b2b.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+class AuditRingBufferTest {
+
+    private static final int PRODUCERS = 4;
+
+    @Test
+    void capacityIsRoundedUpToAPowerOfTwo() {
+        assertThat(new AuditRingBuffer(1000).capacity()).isEqualTo(1024);
+        assertThat(new AuditRingBuffer(1024).capacity()).isEqualTo(1024);
+        assertThat(new AuditRingBuffer(1).capacity()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsOnlyWhenFullAndAcceptsAgainOnceDrained() {
+        AuditRingBuffer buffer = new AuditRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.tryPublish(i, 1, (byte) 0, i)).isTrue();
+        }
+        assertThat(buffer.tryPublish(4, 1, (byte) 0, 4)).isFalse();
+
+        AuditRingBuffer.Batch batch = new AuditRingBuffer.Batch(3);
+        assertThat(buffer.drain(batch)).isEqualTo(3);
+        assertThat(batch.transactionIds).containsExactly(0, 1, 2);
+        assertThat(buffer.tryPublish(4, 1, (byte) 0, 4)).isTrue();
+        assertThat(buffer.drain(batch)).isEqualTo(2);
+        assertThat(batch.transactionIds).startsWith(3, 4);
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    void concurrentProducersFillExactlyTheCapacity() throws Exception {
+        AuditRingBuffer buffer = new AuditRingBuffer(1 << 16);
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> accepted = new ArrayList<>();
+            for (int producer = 0; producer < PRODUCERS; producer++) {
+                long userId = producer;
+                accepted.add(executor.submit(() -> {
+                    start.await();
+                    int count = 0;
+                    // Nothing drains, so the first rejection means the buffer is full for good
+                    while (buffer.tryPublish(0, userId, (byte) 0, count)) {
+                        count++;
+                    }
+                    return count;
+                }));
+            }
+            start.countDown();
+
+            int total = 0;
+            for (Future<Integer> future : accepted) {
+                total += future.get(30, TimeUnit.SECONDS);
+            }
+            assertThat(total).isEqualTo(buffer.capacity());
+            assertThat(buffer.size()).isEqualTo(buffer.capacity());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void everyRecordIsDrainedOnceInEachProducersOrder() throws Exception {
+        int perProducer = 250_000;
+        AuditRingBuffer buffer = new AuditRingBuffer(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> producers = new ArrayList<>();
+            for (int producer = 0; producer < PRODUCERS; producer++) {
+                long userId = producer;
+                producers.add(executor.submit(() -> {
+                    start.await();
+                    for (long sequence = 0; sequence < perProducer; sequence++) {
+                        // The small capacity makes producers outrun the consumer, so they keep hitting a full buffer
+                        while (!buffer.tryPublish(System.nanoTime(), userId, (byte) (sequence % 5), sequence)) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+
+            long[] next = new long[PRODUCERS];
+            long drained = 0;
+            AuditRingBuffer.Batch batch = new AuditRingBuffer.Batch(100);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (drained < (long) PRODUCERS * perProducer) {
+                if (System.nanoTime() > deadline) {
+                    fail("Only " + drained + " records were drained");
+                }
+                int count = buffer.drain(batch);
+                for (int i = 0; i < count; i++) {
+                    int producer = (int) batch.userIds[i];
+                    if (batch.transactionIds[i] != next[producer] || batch.actions[i] != (byte) (next[producer] % 5)) {
+                        fail("Producer " + producer + " record " + batch.transactionIds[i] + " drained where "
+                                + next[producer] + " was expected");
+                    }
+                    next[producer]++;
+                }
+                drained += count;
+            }
+
+            for (Future<?> producer : producers) {
+                producer.get(30, TimeUnit.SECONDS);
+            }
+            assertThat(next).containsOnly(perProducer);
+            assertThat(buffer.size()).isZero();
+            assertThat(buffer.drain(batch)).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.springai.b2b.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springai.b2b.entity.B2BTransaction;
+import com.springai.b2b.entity.OutboxEvent;
+import com.springai.b2b.entity.User;
+import com.springai.b2b.event.TransactionChangedEvent;
+import com.springai.b2b.event.UserChangedEvent;
+import com.springai.b2b.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Several buses in one JVM against one PostgreSQL, each with its own node id and LISTEN connection,
+ * the way separate backend instances share the database.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ClusterEventBusTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>(
+            DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"));
+
+    private final List<ClusterEventBus> started = new ArrayList<>();
+    private final List<AuditLogService> audits = new ArrayList<>();
+    // Rows every node's OutboxService saved, as if they shared the outbox_events table
+    private final List<OutboxEvent> outboxRows = new CopyOnWriteArrayList<>();
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS cluster_events");
+        jdbcTemplate.execute("CREATE TABLE cluster_events (id bigserial PRIMARY KEY, origin_node varchar(255) NOT NULL, "
+                + "type varchar(255) NOT NULL, payload text NOT NULL, created_at timestamp NOT NULL)");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS audit_log");
+        jdbcTemplate.execute("CREATE TABLE audit_log (id bigserial PRIMARY KEY, occurred_at timestamp NOT NULL, "
+                + "user_id bigint, action varchar(255) NOT NULL, transaction_id bigint NOT NULL)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        started.forEach(ClusterEventBus::stop);
+        audits.forEach(AuditLogService::stop);
+    }
+
+    @Test
+    void deliversEventsToEveryOtherNodeOnce() throws InterruptedException {
+        Node a = start("a");
+        Node b = start("b");
+        Node c = start("c");
+
+        a.bus().onUserChanged(new UserChangedEvent(7L));
+
+        awaitReceived(b, new UserChangedEvent(7L));
+        awaitReceived(c, new UserChangedEvent(7L));
+        // Republished on b and c without being sent back out
+        Thread.sleep(300);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM cluster_events", Long.class)).isEqualTo(1);
+        assertThat(a.received()).isEmpty();
+        assertThat(b.received()).containsExactly(new UserChangedEvent(7L));
+    }
+
+    @Test
+    void catchesUpOnEventsSentWhileTheListenConnectionWasDown() {
+        Node a = start("a");
+        Node b = start("b");
+        a.bus().onUserChanged(new UserChangedEvent(1L));
+        awaitReceived(b, new UserChangedEvent(1L));
+
+        // Drops every listening connection; b reconnects after its backoff and reads what it missed
+        jdbcTemplate.queryForList("SELECT pg_terminate_backend(pid) FROM pg_stat_activity "
+                + "WHERE datname = current_database() AND pid <> pg_backend_pid() AND backend_type = 'client backend'");
+        a.bus().onUserChanged(new UserChangedEvent(2L));
+
+        awaitReceived(b, new UserChangedEvent(2L));
+        assertThat(b.received()).containsExactly(new UserChangedEvent(1L), new UserChangedEvent(2L));
+    }
+
+    @Test
+    void transactionChangesBeforeStartAreReadFromTheLog() {
+        Node a = start("a");
+        a.bus().onTransactionChanged(TransactionChangedEvent.created(order(1)));
+        a.bus().onUserChanged(new UserChangedEvent(1L));
+        a.bus().onTransactionChanged(TransactionChangedEvent.created(order(2)));
+        awaitRows(3);
+
+        Node c = start("c");
+        long startedAfter = c.bus().startedAfterId().orElseThrow();
+        assertThat(c.bus().transactionChanges(0, startedAfter)).hasValueSatisfying(events ->
+                assertThat(events).extracting(TransactionChangedEvent::id).containsExactly(1L, 2L));
+
+        // Once the oldest rows are pruned the range can no longer be replayed
+        jdbcTemplate.update("DELETE FROM cluster_events WHERE id = (SELECT min(id) FROM cluster_events)");
+        assertThat(c.bus().transactionChanges(0, startedAfter)).isEmpty();
+        assertThat(c.bus().transactionChanges(startedAfter, startedAfter)).hasValue(List.of());
+    }
+
+    @Test
+    void transactionChangeIsWrittenToTheOutboxAndAuditedOnlyOnItsOriginNode() throws InterruptedException {
+        Node a = start("a");
+        Node b = start("b");
+        Node c = start("c");
+
+        TransactionChangedEvent created = TransactionChangedEvent.created(order(5));
+        transactionTemplate.executeWithoutResult(status -> a.publisher().publishEvent(created));
+
+        awaitReceived(b, created);
+        awaitReceived(c, created);
+        // Give the replays' after-commit listeners and every audit writer time to flush
+        Thread.sleep(300);
+        assertThat(outboxRows).singleElement().satisfies(row -> {
+            assertThat(row.getAggregateId()).isEqualTo(created.transactionId());
+            assertThat(row.getEventType()).isEqualTo(created.type().name());
+        });
+        assertThat(jdbcTemplate.queryForList("SELECT action FROM audit_log WHERE transaction_id = 5", String.class))
+                .containsExactly(AuditLogService.Action.CREATE.name());
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM cluster_events", Long.class)).isEqualTo(1);
+    }
+
+    private Node start(String nodeId) {
+        JdbcConnectionDetails connectionDetails = new JdbcConnectionDetails() {
+            @Override
+            public String getUsername() {
+                return POSTGRES.getUsername();
+            }
+
+            @Override
+            public String getPassword() {
+                return POSTGRES.getPassword();
+            }
+
+            @Override
+            public String getJdbcUrl() {
+                return POSTGRES.getJdbcUrl();
+            }
+        };
+
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        OutboxEventRepository outboxRepository = mock(OutboxEventRepository.class);
+        when(outboxRepository.saveAll(any())).thenAnswer(invocation -> {
+            Iterable<OutboxEvent> rows = invocation.getArgument(0);
+            rows.forEach(outboxRows::add);
+            return rows;
+        });
+        OutboxService outbox = new OutboxService(outboxRepository, List.of(new RecordingHandler()), objectMapper);
+        AuditLogService audit = new AuditLogService(jdbcTemplate, new SimpleMeterRegistry(), true, 1024, 64, 20,
+                AuditLogService.Sink.DATABASE, AuditLogService.Overflow.DROP, 5,
+                Path.of(System.getProperty("java.io.tmpdir"), "audit-" + nodeId).toString());
+        audit.start();
+        audits.add(audit);
+
+        List<Object> received = new CopyOnWriteArrayList<>();
+        ClusterEventBus[] bus = new ClusterEventBus[1];
+        ApplicationEventPublisher publisher = event -> {
+            received.add(event);
+            // As Spring would, hand the republished event to the bus's own listener too
+            if (event instanceof UserChangedEvent userChanged) {
+                bus[0].onUserChanged(userChanged);
+            }
+            // and run the transactional listeners in the phases they declare
+            if (event instanceof TransactionChangedEvent changed && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void beforeCommit(boolean readOnly) {
+                        outbox.onTransactionChanged(changed);
+                    }
+
+                    @Override
+                    public void afterCommit() {
+                        audit.onTransactionChanged(changed);
+                        bus[0].onTransactionChanged(changed);
+                    }
+                });
+            }
+        };
+        bus[0] = new ClusterEventBus(jdbcTemplate, transactionTemplate, objectMapper, publisher,
+                connectionDetails, new SimpleMeterRegistry(), true, nodeId, 10, 200, 60);
+        bus[0].start();
+        started.add(bus[0]);
+        return new Node(bus[0], publisher, received);
+    }
+
+    private static void awaitReceived(Node node, Object event) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!node.received().contains(event)) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Node did not receive " + event + "; got " + node.received());
+            }
+            sleep();
+        }
+    }
+
+    private void awaitRows(long rows) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (jdbcTemplate.queryForObject("SELECT count(*) FROM cluster_events", Long.class) < rows) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Events were not flushed");
+            }
+            sleep();
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static B2BTransaction order(long id) {
+        return B2BTransaction.builder()
+                .id(id)
+                .transactionId("T-" + id)
+                .user(User.builder().id(1L).build())
+                .buyerCompany("Acme")
+                .sellerCompany("Globex")
+                .productName("Bolts")
+                .quantity(1)
+                .unitPrice(new BigDecimal("10.00"))
+                .status(B2BTransaction.TransactionStatus.PENDING)
+                .build();
+    }
+
+    private record Node(ClusterEventBus bus, ApplicationEventPublisher publisher, List<Object> received) {
+    }
+
+    private static class RecordingHandler implements OutboxEventHandler {
+
+        @Override
+        public String name() {
+            return "recording";
+        }
+
+        @Override
+        public boolean supports(String aggregateType, String eventType) {
+            return true;
+        }
+
+        @Override
+        public void handle(OutboxMessage message) {
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.springai.b2b.service;
+
+import com.springai.b2b.entity.B2BTransaction;
+import com.springai.b2b.entity.User;
+import com.springai.b2b.event.TransactionChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DuplicateDetectionServiceTest {
+
+    private static final LocalDateTime DELIVERY = LocalDateTime.of(2026, 3, 2, 0, 0);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @Test
+    void nearDuplicateIsFlagged() {
+        DuplicateDetectionService service = start(List.of());
+        service.onTransactionChanged(TransactionChangedEvent.created(order(1L, 1L, "Industrial hex bolts M8 zinc plated")));
+
+        B2BTransaction repeat = order(null, 1L, "Industrial hex bolt M8, zinc-plated");
+        assertThat(service.screen(List.of(repeat), false)).isEmpty();
+        assertThat(repeat.getDuplicateOf()).isEqualTo(1L);
+    }
+
+    @Test
+    void exactRepeatIsRejected() {
+        DuplicateDetectionService service = start(List.of());
+        service.onTransactionChanged(TransactionChangedEvent.created(order(1L, 1L, "Bolts")));
+
+        assertThatThrownBy(() -> service.screen(List.of(order(null, 1L, "Bolts")), false))
+                .isInstanceOfSatisfying(DuplicateTransactionException.class, e -> {
+                    assertThat(e.getKind()).isEqualTo(DuplicateDetectionService.Kind.EXACT);
+                    assertThat(e.getDuplicateOf()).isEqualTo(1L);
+                });
+    }
+
+    @Test
+    void anotherOwnersOrderDoesNotConflict() {
+        DuplicateDetectionService service = start(List.of());
+        service.onTransactionChanged(TransactionChangedEvent.created(order(1L, 1L, "Industrial hex bolts M8 zinc plated")));
+
+        B2BTransaction same = order(null, 2L, "Industrial hex bolts M8 zinc plated");
+        B2BTransaction similar = order(null, 2L, "Industrial hex bolt M8, zinc-plated");
+        assertThat(service.screen(List.of(same), false)).isEmpty();
+        assertThat(service.screen(List.of(similar), false)).isEmpty();
+        assertThat(same.getDuplicateOf()).isNull();
+        assertThat(similar.getDuplicateOf()).isNull();
+    }
+
+    @Test
+    void cancelledOrderMayBePlacedAgain() {
+        DuplicateDetectionService service = start(List.of());
+        B2BTransaction original = order(1L, 1L, "Bolts");
+        service.onTransactionChanged(TransactionChangedEvent.created(original));
+
+        original.setStatus(B2BTransaction.TransactionStatus.CANCELLED);
+        service.onTransactionChanged(TransactionChangedEvent.statusChanged(original, B2BTransaction.TransactionStatus.PENDING));
+
+        B2BTransaction again = order(null, 1L, "Bolts");
+        assertThat(service.screen(List.of(again), false)).isEmpty();
+        assertThat(again.getDuplicateOf()).isNull();
+    }
+
+    @Test
+    void ordersOlderThanTheWindowAgeOut() throws Exception {
+        // Rebuilt from a row created before the window, as a node that has been up that long would hold it
+        DuplicateDetectionService service = start(List.of(row(1L, 1L, "Bolts", LocalDateTime.now().minusDays(91))));
+        assertThatThrownBy(() -> service.screen(List.of(order(null, 1L, "Bolts")), false))
+                .isInstanceOf(DuplicateTransactionException.class);
+
+        service.evictExpired();
+
+        assertThat(service.screen(List.of(order(null, 1L, "Bolts")), false)).isEmpty();
+    }
+
+    @Test
+    void repeatWithinOneBatchIsLinkedToTheEarlierItem() {
+        DuplicateDetectionService service = start(List.of());
+
+        List<B2BTransaction> batch = List.of(order(null, 1L, "Bolts"), order(null, 1L, "Nuts"), order(null, 1L, "Bolts"));
+        assertThatThrownBy(() -> service.screen(batch, false))
+                .isInstanceOfSatisfying(DuplicateTransactionException.class, e -> {
+                    assertThat(e.getIndex()).isEqualTo(2);
+                    assertThat(e.getDuplicateOfIndex()).isZero();
+                });
+        assertThat(service.screen(batch, true)).containsEntry(2, 0);
+    }
+
+    private DuplicateDetectionService start(List<ResultSet> rows) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (ResultSet row : rows) {
+                handler.processRow(row);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Timestamp.class));
+
+        DuplicateDetectionService service = new DuplicateDetectionService(jdbcTemplate, new SimpleMeterRegistry(),
+                DuplicateDetectionService.Mode.REJECT, DuplicateDetectionService.Mode.FLAG, 90, 0.8, 0.02, 7, 32);
+        service.rebuild();
+        return service;
+    }
+
+    private static ResultSet row(long id, long userId, String product, LocalDateTime createdAt) throws Exception {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getLong("id")).thenReturn(id);
+        when(resultSet.getLong("user_id")).thenReturn(userId);
+        when(resultSet.getString("buyer_company")).thenReturn("Acme");
+        when(resultSet.getString("seller_company")).thenReturn("Globex");
+        when(resultSet.getString("product_name")).thenReturn(product);
+        when(resultSet.getObject("quantity")).thenReturn(100);
+        when(resultSet.getBigDecimal("unit_price")).thenReturn(new BigDecimal("10.00"));
+        when(resultSet.getTimestamp("delivery_date")).thenReturn(Timestamp.valueOf(DELIVERY));
+        when(resultSet.getTimestamp("created_at")).thenReturn(Timestamp.valueOf(createdAt));
+        return resultSet;
+    }
+
+    private static B2BTransaction order(Long id, long userId, String product) {
+        return B2BTransaction.builder()
+                .id(id)
+                .transactionId("T-" + id)
+                .user(User.builder().id(userId).build())
+                .buyerCompany("Acme")
+                .sellerCompany("Globex")
+                .productName(product)
+                .quantity(100)
+                .unitPrice(new BigDecimal("10.00"))
+                .deliveryDate(DELIVERY)
+                .status(B2BTransaction.TransactionStatus.PENDING)
+                .build();
+    }
+}
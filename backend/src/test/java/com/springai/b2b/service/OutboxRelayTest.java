@@ -0,0 +1,170 @@
+package com.springai.b2b.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Two relays polling one outbox table, the way two backend instances share it.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class OutboxRelayTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>(
+            DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"));
+
+    private final List<OutboxRelay> started = new ArrayList<>();
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword()));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS outbox_events");
+        jdbcTemplate.execute("CREATE TABLE outbox_events (id bigserial PRIMARY KEY, handler varchar(255) NOT NULL, "
+                + "aggregate_type varchar(255) NOT NULL, aggregate_id varchar(255) NOT NULL, "
+                + "event_type varchar(255) NOT NULL, payload text NOT NULL, status varchar(255) NOT NULL DEFAULT 'PENDING', "
+                + "attempts integer NOT NULL DEFAULT 0, next_attempt_at timestamp NOT NULL, lease_until timestamp, "
+                + "last_error text, created_at timestamp NOT NULL, processed_at timestamp)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        started.forEach(OutboxRelay::stop);
+    }
+
+    @Test
+    void twoRelaysDeliverEveryRowExactlyOnce() {
+        Map<Long, AtomicInteger> deliveries = new ConcurrentHashMap<>();
+        OutboxEventHandler handler = handler("index", message -> {
+            deliveries.computeIfAbsent(message.id(), id -> new AtomicInteger()).incrementAndGet();
+            // Long enough that both relays are claiming while the other still holds rows
+            Thread.sleep(2);
+        });
+        insert("index", 500);
+
+        start(handler, 10);
+        start(handler, 10);
+
+        awaitNone("status <> 'DONE'");
+        assertThat(deliveries).hasSize(500);
+        assertThat(deliveries.values()).allSatisfy(count -> assertThat(count).hasValue(1));
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM outbox_events WHERE attempts <> 1", Long.class))
+                .isZero();
+    }
+
+    @Test
+    void failedDeliveryIsRetriedAfterBackoff() {
+        List<Integer> attempts = new CopyOnWriteArrayList<>();
+        OutboxEventHandler handler = handler("webhook", message -> {
+            attempts.add(message.attempt());
+            if (message.attempt() == 1) {
+                throw new IllegalStateException("endpoint unavailable");
+            }
+        });
+        insert("webhook", 1);
+
+        start(handler, 10);
+        start(handler, 10);
+
+        awaitNone("status <> 'DONE'");
+        assertThat(attempts).containsExactly(1, 2);
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT attempts, last_error, lease_until FROM outbox_events");
+        assertThat(row).containsEntry("attempts", 2).containsEntry("last_error", null).containsEntry("lease_until", null);
+    }
+
+    @Test
+    void rowIsDeadLetteredAfterMaxAttempts() {
+        AtomicInteger calls = new AtomicInteger();
+        OutboxEventHandler handler = handler("webhook", message -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("rejected payload");
+        });
+        insert("webhook", 1);
+        insert("unknown", 1);
+
+        start(handler, 3);
+        start(handler, 3);
+
+        awaitNone("status = 'PENDING'");
+        assertThat(calls).hasValue(3);
+        assertThat(jdbcTemplate.queryForList("SELECT handler, status, attempts, last_error FROM outbox_events ORDER BY id"))
+                .satisfiesExactly(
+                        row -> assertThat(row).containsEntry("status", "DEAD").containsEntry("attempts", 3)
+                                .containsEntry("last_error", "IllegalStateException: rejected payload"),
+                        // A row for a handler no node has is parked the same way rather than retried forever
+                        row -> assertThat(row).containsEntry("status", "DEAD").containsEntry("attempts", 3)
+                                .containsEntry("last_error", "IllegalStateException: No outbox handler named unknown"));
+    }
+
+    private void start(OutboxEventHandler handler, int maxAttempts) {
+        OutboxRelay relay = new OutboxRelay(jdbcTemplate, List.of(handler), new SimpleMeterRegistry(), true,
+                20, 4, 20, 60_000, maxAttempts, 50, 100);
+        relay.start();
+        started.add(relay);
+    }
+
+    private void insert(String handler, int rows) {
+        jdbcTemplate.update("INSERT INTO outbox_events (handler, aggregate_type, aggregate_id, event_type, payload, "
+                + "next_attempt_at, created_at) SELECT ?, 'transaction', 'T-' || n, 'CREATED', '{}', now(), now() "
+                + "FROM generate_series(1, ?) n", handler, rows);
+    }
+
+    private void awaitNone(String condition) {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (jdbcTemplate.queryForObject("SELECT count(*) FROM outbox_events WHERE " + condition, Long.class) > 0) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Outbox rows still match " + condition + ": "
+                        + jdbcTemplate.queryForList("SELECT id, status, attempts, last_error FROM outbox_events"));
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static OutboxEventHandler handler(String name, Delivery delivery) {
+        return new OutboxEventHandler() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public boolean supports(String aggregateType, String eventType) {
+                return true;
+            }
+
+            @Override
+            public void handle(OutboxMessage message) throws Exception {
+                delivery.handle(message);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface Delivery {
+        void handle(OutboxEventHandler.OutboxMessage message) throws Exception;
+    }
+}
@@ -0,0 +1,64 @@
+package com.springai.b2b.service;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RiskScoringServiceTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = ';', value = {
+            "2/10 net 30; 30",
+            "2/10, n/30; 30",
+            "2%/10 Net 45; 45",
+            "1.5/15 net 60; 60",
+            "2/10 net 30 EOM; 30"
+    })
+    void discountTermsUseTheNetPeriod(String terms, int days) {
+        assertThat(RiskScoringService.paymentTermDays(terms)).isEqualTo(days);
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = ';', value = {
+            "Net 30; 30",
+            "net-45; 45",
+            "NET90; 90",
+            "n/60; 60",
+            "50% advance, balance net 30; 30"
+    })
+    void netTerms(String terms, int days) {
+        assertThat(RiskScoringService.paymentTermDays(terms)).isEqualTo(days);
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = ';', value = {
+            "90 days; 90",
+            "60 days from invoice; 60",
+            "1 day; 1"
+    })
+    void dayTerms(String terms, int days) {
+        assertThat(RiskScoringService.paymentTermDays(terms)).isEqualTo(days);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"COD", "Payment: cod", "CIA", "Cash on delivery", "Prepaid", "100% advance", "Due on receipt"})
+    void immediatePaymentIsZeroDays(String terms) {
+        assertThat(RiskScoringService.paymentTermDays(terms)).isZero();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"Decode on arrival", "Promo code SPRING", "Standard terms"})
+    void unrecognizedTermsDefaultToThirtyDays(String terms) {
+        assertThat(RiskScoringService.paymentTermDays(terms)).isEqualTo(30);
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = "   ")
+    void missingTerms(String terms) {
+        assertThat(RiskScoringService.paymentTermDays(terms)).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,193 @@
+package com.springai.b2b.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Converts a populated plain table, shaped like the one Hibernate creates, while it is being written to.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class TransactionPartitionServiceTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>(
+            DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"));
+
+    @TempDir
+    Path archiveDir;
+
+    private final List<TransactionPartitionService> started = new ArrayList<>();
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS b2b_transactions, transaction_list_versions, users CASCADE");
+        jdbcTemplate.execute("CREATE TABLE users (id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY)");
+        jdbcTemplate.execute("INSERT INTO users DEFAULT VALUES");
+        jdbcTemplate.execute("CREATE TABLE b2b_transactions (id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "transaction_id varchar(255) NOT NULL, user_id bigint NOT NULL REFERENCES users (id), "
+                + "buyer_company varchar(255), seller_company varchar(255), product_name varchar(255), quantity integer, "
+                + "status varchar(255), created_at timestamp NOT NULL, updated_at timestamp)");
+        jdbcTemplate.execute("CREATE INDEX idx_b2b_transactions_buyer ON b2b_transactions (buyer_company)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        started.forEach(TransactionPartitionService::shutdown);
+    }
+
+    @Test
+    void convertsAPopulatedTableWhileItIsWritten() throws InterruptedException {
+        // Spread over the last six months, so the copy needs several monthly partitions
+        jdbcTemplate.update("INSERT INTO b2b_transactions (transaction_id, user_id, buyer_company, seller_company, "
+                + "product_name, quantity, status, created_at) SELECT 'T-' || n, 1, 'Acme', 'Globex', 'Bolts', n, 'PENDING', "
+                + "now() - (n % 180) * interval '1 day' FROM generate_series(1, 1000) n");
+        long expectedQuantity = jdbcTemplate.queryForObject("SELECT sum(quantity) FROM b2b_transactions", Long.class);
+
+        TransactionPartitionService service = start(3);
+        assertThat(relkind("b2b_transactions")).isEqualTo("r");
+        service.startConversion();
+        service.ensureIndex("idx_b2b_transactions_seller", "(seller_company)");
+
+        // Writes keep going while chunks are copied; the sync trigger mirrors them into the shadow table
+        for (int i = 0; i < 50; i++) {
+            jdbcTemplate.update("INSERT INTO b2b_transactions (transaction_id, user_id, buyer_company, seller_company, "
+                    + "product_name, quantity, status, created_at) VALUES (?, 1, 'Acme', 'Globex', 'Nuts', 7, 'PENDING', now())",
+                    "N-" + i);
+            Thread.sleep(10);
+        }
+        expectedQuantity += 50 * 7;
+        expectedQuantity -= jdbcTemplate.queryForObject("WITH deleted AS (DELETE FROM b2b_transactions WHERE id <= 10 "
+                + "RETURNING quantity) SELECT sum(quantity) FROM deleted", Long.class);
+        expectedQuantity += 1000L * jdbcTemplate.update("UPDATE b2b_transactions SET quantity = quantity + 1000 "
+                + "WHERE id > 10 AND id <= 20");
+
+        // Queued behind the conversion, so it is valid only once the swap has happened
+        await(() -> Boolean.TRUE.equals(indexValid("idx_b2b_transactions_seller")));
+
+        assertThat(relkind("b2b_transactions")).isEqualTo("p");
+        assertThat(relkind("b2b_transactions_partitioned")).isNull();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM b2b_transactions", Long.class)).isEqualTo(1040);
+        assertThat(jdbcTemplate.queryForObject("SELECT sum(quantity) FROM b2b_transactions", Long.class))
+                .isEqualTo(expectedQuantity);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM b2b_transactions_default", Long.class)).isZero();
+        assertThat(partitions()).contains(
+                "b2b_transactions_default",
+                partitionName(YearMonth.now().minusMonths(5)),
+                partitionName(YearMonth.now()),
+                partitionName(YearMonth.now().plusMonths(3)));
+
+        List<String> indexes = jdbcTemplate.queryForList("SELECT indexname FROM pg_indexes "
+                + "WHERE schemaname = current_schema() AND tablename = 'b2b_transactions'", String.class);
+        assertThat(indexes).contains("idx_b2b_transactions_buyer", "idx_b2b_transactions_seller",
+                "idx_b2b_transactions_user_created", "uk_b2b_transactions_transaction_id");
+        assertThat(indexes).noneMatch(name -> name.startsWith("p_"));
+        assertThat(jdbcTemplate.queryForList("SELECT tgname FROM pg_trigger WHERE tgrelid = 'b2b_transactions'::regclass "
+                + "AND NOT tgisinternal", String.class))
+                .containsExactlyInAnyOrder("b2b_transactions_list_version_insert", "b2b_transactions_list_version_update",
+                        "b2b_transactions_list_version_delete");
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM pg_constraint WHERE conrelid = 'b2b_transactions'::regclass "
+                + "AND contype = 'f'", Long.class)).isEqualTo(1);
+
+        // New rows take ids after the copied ones and land in their month's partition
+        Long maxId = jdbcTemplate.queryForObject("SELECT max(id) FROM b2b_transactions", Long.class);
+        assertThat(insert("now()")).isGreaterThan(maxId);
+        assertThat(partitionOf("now()")).isEqualTo(partitionName(YearMonth.now()));
+    }
+
+    @Test
+    void rowsBeyondTheLastPartitionGoToDefaultUntilTheirMonthIsCreated() {
+        start(3);
+        // Empty, so converted synchronously
+        assertThat(relkind("b2b_transactions")).isEqualTo("p");
+
+        insert("now() + interval '2 years'");
+        assertThat(partitionOf("now() + interval '2 years'")).isEqualTo("b2b_transactions_default");
+
+        // A node configured further ahead creates the month on start, moving the row out of the default partition
+        start(30);
+
+        YearMonth month = YearMonth.now().plusYears(2);
+        assertThat(partitionOf("now() + interval '2 years'")).isEqualTo(partitionName(month));
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM b2b_transactions_default", Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM b2b_transactions", Long.class)).isEqualTo(1);
+    }
+
+    private TransactionPartitionService start(int monthsAhead) {
+        TransactionPartitionService service = new TransactionPartitionService(mock(EntityManagerFactory.class),
+                jdbcTemplate, transactionTemplate, new ObjectMapper().findAndRegisterModules(), true, monthsAhead, 24,
+                archiveDir.toString(), 50, 20);
+        service.initialize();
+        started.add(service);
+        return service;
+    }
+
+    private long insert(String createdAt) {
+        return jdbcTemplate.queryForObject("INSERT INTO b2b_transactions (transaction_id, user_id, quantity, created_at) "
+                + "VALUES (gen_random_uuid()::text, 1, 1, " + createdAt + ") RETURNING id", Long.class);
+    }
+
+    // Same day is close enough: the rows compared are the only ones in their month
+    private String partitionOf(String createdAt) {
+        return jdbcTemplate.queryForObject("SELECT tableoid::regclass::text FROM b2b_transactions "
+                + "WHERE created_at::date = (" + createdAt + ")::date ORDER BY id DESC LIMIT 1", String.class);
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                + "WHERE i.inhparent = 'b2b_transactions'::regclass", String.class);
+    }
+
+    private String relkind(String relation) {
+        List<String> kinds = jdbcTemplate.queryForList("SELECT relkind::text FROM pg_class WHERE relname = ?",
+                String.class, relation);
+        return kinds.isEmpty() ? null : kinds.get(0);
+    }
+
+    private Boolean indexValid(String name) {
+        List<Boolean> valid = jdbcTemplate.queryForList("SELECT x.indisvalid FROM pg_index x "
+                + "JOIN pg_class i ON i.oid = x.indexrelid WHERE i.relname = ?", Boolean.class, name);
+        return valid.isEmpty() ? null : valid.get(0);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return String.format("b2b_transactions_y%04dm%02d", month.getYear(), month.getMonthValue());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Conversion did not finish");
+            }
+            Thread.sleep(50);
+        }
+    }
+}
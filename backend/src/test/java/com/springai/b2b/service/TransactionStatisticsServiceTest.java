@@ -0,0 +1,392 @@
+package com.springai.b2b.service;
+
+import com.springai.b2b.dto.PriceStatisticsResponse;
+import com.springai.b2b.entity.B2BTransaction;
+import com.springai.b2b.entity.PriceStatisticsCheckpoint;
+import com.springai.b2b.entity.PriceStatisticsSnapshot;
+import com.springai.b2b.entity.User;
+import com.springai.b2b.event.TransactionChangedEvent;
+import com.springai.b2b.repository.B2BTransactionRepository;
+import com.springai.b2b.repository.PriceStatisticsCheckpointRepository;
+import com.springai.b2b.repository.PriceStatisticsSnapshotRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransactionStatisticsServiceTest {
+
+    private static final User USER = User.builder().id(1L).build();
+
+    @Test
+    void createCountsEachOrderOnce() {
+        Node node = Node.start(null, List.of());
+        B2BTransaction order = order(1, "Bolts", "10.00");
+
+        node.publish(TransactionChangedEvent.created(order));
+        node.publish(TransactionChangedEvent.created(order));
+
+        PriceStatisticsResponse bolts = node.product("Bolts");
+        assertThat(bolts.getOrders()).isEqualTo(1);
+        assertThat(bolts.getCount()).isEqualTo(1);
+        assertThat(node.service.orderCount("Acme")).isEqualTo(1);
+    }
+
+    @Test
+    void updateReplacesThePreviousPrice() {
+        Node node = Node.start(null, List.of());
+        node.publish(TransactionChangedEvent.created(order(1, "Bolts", "10.00")));
+        node.publish(TransactionChangedEvent.created(order(2, "Bolts", "20.00")));
+        B2BTransaction order = order(3, "Bolts", "30.00");
+        node.publish(TransactionChangedEvent.created(order));
+
+        node.publish(update(order, "Bolts", "12.00"));
+        node.publish(update(order, "Bolts", "12.00"));
+
+        PriceStatisticsResponse bolts = node.product("Bolts");
+        assertThat(bolts.getOrders()).isEqualTo(3);
+        assertThat(bolts.getCount()).isEqualTo(3);
+        assertThat(bolts.getMean()).isCloseTo(14.0, within(1e-9));
+        assertThat(bolts.getStdDev()).isCloseTo(Math.sqrt(28.0), within(1e-9));
+    }
+
+    @Test
+    void updateMovesTheOrderToItsNewProduct() {
+        Node node = Node.start(null, List.of());
+        B2BTransaction order = order(1, "Bolts", "10.00");
+        node.publish(TransactionChangedEvent.created(order));
+
+        node.publish(update(order, "Nuts", "4.00"));
+
+        assertThat(node.product("Bolts").getOrders()).isZero();
+        assertThat(node.product("Bolts").getCount()).isZero();
+        assertThat(node.product("Nuts").getOrders()).isEqualTo(1);
+        assertThat(node.product("Nuts").getMean()).isEqualTo(4.0);
+        assertThat(node.service.orderCount("Acme")).isEqualTo(1);
+    }
+
+    @Test
+    void failuresFollowStatusChangesAndDeletes() {
+        Node node = Node.start(null, List.of());
+        B2BTransaction first = order(1, "Bolts", "10.00");
+        B2BTransaction second = order(2, "Bolts", "10.00");
+        node.publish(TransactionChangedEvent.created(first));
+        node.publish(TransactionChangedEvent.created(second));
+
+        node.publish(status(first, B2BTransaction.TransactionStatus.CANCELLED));
+        assertThat(node.service.failureRate("Acme")).isEqualTo(0.5);
+
+        node.publish(status(first, B2BTransaction.TransactionStatus.PENDING));
+        assertThat(node.service.failureRate("Acme")).isZero();
+
+        node.publish(status(second, B2BTransaction.TransactionStatus.REJECTED));
+        node.publish(TransactionChangedEvent.deleted(second));
+        assertThat(node.service.failureRate("Acme")).isZero();
+        assertThat(node.service.orderCount("Acme")).isEqualTo(1);
+        assertThat(node.product("Bolts").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    void deleteRemovesThePriceFromQuantiles() {
+        Node node = Node.start(null, List.of());
+        List<B2BTransaction> orders = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            orders.add(order(i, "Bolts", i + ".00"));
+            node.publish(TransactionChangedEvent.created(orders.get(i - 1)));
+        }
+
+        orders.subList(50, 100).forEach(order -> node.publish(TransactionChangedEvent.deleted(order)));
+        node.publish(TransactionChangedEvent.deleted(orders.get(99)));
+
+        PriceStatisticsResponse bolts = node.product("Bolts");
+        assertThat(bolts.getOrders()).isEqualTo(50);
+        assertThat(bolts.getCount()).isEqualTo(50);
+        assertThat(bolts.getMean()).isCloseTo(25.5, within(1e-9));
+        assertThat(bolts.getP50()).isCloseTo(25.5, within(2.0));
+        assertThat(bolts.getMax()).isCloseTo(50.0, within(2.0));
+        assertThat(node.service.medianUnitPrice("Bolts")).hasValueCloseTo(25.5, within(2.0));
+    }
+
+    @Test
+    void replayAfterRestartDoesNotDoubleCount() {
+        Node first = Node.start(null, List.of());
+        first.publish(TransactionChangedEvent.created(order(1, "Bolts", "10.00")));
+        B2BTransaction order = order(2, "Bolts", "20.00");
+        first.publish(TransactionChangedEvent.created(order));
+        first.publish(update(order, "Bolts", "30.00"));
+        first.service.checkpoint();
+
+        // Row 3 committed after the checkpoint; rows 1 and 2 are already in it
+        Node second = Node.start(first.checkpoint(), first.snapshots(), row(3, "Bolts", "50.00"));
+
+        PriceStatisticsResponse bolts = second.product("Bolts");
+        assertThat(bolts.getOrders()).isEqualTo(3);
+        assertThat(bolts.getCount()).isEqualTo(3);
+        assertThat(bolts.getMean()).isCloseTo(30.0, within(1e-9));
+
+        // An order counted before the restart is updated from the previous state carried by the event
+        second.publish(update(order, "Bolts", "10.00"));
+        assertThat(second.product("Bolts").getCount()).isEqualTo(3);
+        assertThat(second.product("Bolts").getMean()).isCloseTo(70.0 / 3, within(1e-9));
+    }
+
+    @Test
+    void orderCommittedOutOfIdOrderIsCountedLate() {
+        Node first = Node.start(null, List.of());
+        first.publish(TransactionChangedEvent.created(order(1, "Bolts", "10.00")));
+        first.publish(TransactionChangedEvent.created(order(3, "Bolts", "30.00")));
+        first.service.checkpoint();
+        assertThat(first.checkpoint().getWatermarkId()).isEqualTo(3);
+        assertThat(first.checkpoint().getGapIds()).containsExactly(2L);
+
+        first.publish(TransactionChangedEvent.created(order(2, "Bolts", "20.00")));
+        assertThat(first.product("Bolts").getOrders()).isEqualTo(3);
+
+        // Restarted before order 2's event arrived: the replay picks the gap up from the table
+        Node second = Node.create(first.checkpoint(), first.snapshots());
+        when(second.transactions.findStatisticsViewsByIdIn(any())).thenReturn(List.of(row(2, "Bolts", "20.00")));
+        second.service.restore();
+        assertThat(second.product("Bolts").getOrders()).isEqualTo(3);
+        assertThat(second.product("Bolts").getMean()).isCloseTo(20.0, within(1e-9));
+    }
+
+    @Test
+    void changesDuringRestoreApplyAfterTheReplay() {
+        Node node = Node.create(null, List.of(), row(1, "Bolts", "10.00"));
+        B2BTransaction order = order(1, "Bolts", "10.00");
+        node.service.onTransactionChanged(TransactionChangedEvent.created(order));
+        node.service.onTransactionChanged(update(order, "Bolts", "20.00"));
+
+        node.service.restore();
+
+        PriceStatisticsResponse bolts = node.product("Bolts");
+        assertThat(bolts.getOrders()).isEqualTo(1);
+        assertThat(bolts.getMean()).isEqualTo(20.0);
+    }
+
+    @Test
+    void changesMissedWhileDownAreReplayedFromTheClusterLog() {
+        ClusterEventBus firstBus = mock(ClusterEventBus.class);
+        when(firstBus.startedAfterId()).thenReturn(OptionalLong.of(0));
+        when(firstBus.settledId(anyLong())).thenReturn(OptionalLong.of(1));
+        Node first = Node.start(null, List.of(), firstBus);
+        B2BTransaction order = order(1, "Bolts", "10.00");
+        TransactionChangedEvent created = TransactionChangedEvent.created(order);
+        first.publish(created);
+        TransactionChangedEvent counted = update(order, "Bolts", "20.00");
+        first.publish(counted);
+        first.service.checkpoint();
+        assertThat(first.checkpoint().getClusterEventId()).isEqualTo(1);
+
+        // Event 2 was applied before the checkpoint but logged after its settled id; event 3 came while down
+        TransactionChangedEvent missed = update(order, "Bolts", "30.00");
+        ClusterEventBus secondBus = mock(ClusterEventBus.class);
+        when(secondBus.startedAfterId()).thenReturn(OptionalLong.of(3));
+        when(secondBus.transactionChanges(1, 3)).thenReturn(Optional.of(List.of(counted, missed)));
+        Node second = Node.create(first.checkpoint(), first.snapshots(), secondBus);
+        second.service.restore();
+
+        PriceStatisticsResponse bolts = second.product("Bolts");
+        assertThat(bolts.getOrders()).isEqualTo(1);
+        assertThat(bolts.getCount()).isEqualTo(1);
+        assertThat(bolts.getMean()).isEqualTo(30.0);
+    }
+
+    @Test
+    void prunedClusterLogRebuildsFromTheTable() {
+        ClusterEventBus bus = mock(ClusterEventBus.class);
+        when(bus.startedAfterId()).thenReturn(OptionalLong.of(500));
+        when(bus.transactionChanges(1, 500)).thenReturn(Optional.empty());
+        PriceStatisticsCheckpoint stale = PriceStatisticsCheckpoint.builder()
+                .id(PriceStatisticsCheckpoint.ID).watermarkId(1L).clusterEventId(1L).build();
+        Node node = Node.create(stale, List.of(), bus, row(1, "Bolts", "15.00"));
+        when(node.snapshotRepository.count()).thenReturn(1L);
+
+        node.service.restore();
+
+        assertThat(node.product("Bolts").getMean()).isEqualTo(15.0);
+        node.service.checkpoint();
+        verify(node.snapshotRepository).deleteAllInBatch();
+    }
+
+    @Test
+    void readinessIsRefusedUntilTheReplayFinishes() {
+        Node node = Node.create(null, List.of(), row(1, "Bolts", "10.00"), row(2, "Bolts", "20.00"), row(3, "Bolts", "30.00"));
+        try {
+            // What Spring Boot publishes right after ApplicationReadyEvent
+            node.service.onReadinessChanged(new AvailabilityChangeEvent<>(this, ReadinessState.ACCEPTING_TRAFFIC));
+            verify(node.eventPublisher).publishEvent(readiness(ReadinessState.REFUSING_TRAFFIC));
+
+            node.service.startRestore();
+
+            verify(node.eventPublisher, timeout(5_000)).publishEvent(readiness(ReadinessState.ACCEPTING_TRAFFIC));
+            assertThat(node.product("Bolts").getOrders()).isEqualTo(3);
+            verify(node.transactions, times(2)).findStatisticsViewsAfter(anyLong(), any(Limit.class));
+
+            // Ready for good once restored
+            node.service.onReadinessChanged(new AvailabilityChangeEvent<>(this, ReadinessState.ACCEPTING_TRAFFIC));
+            verify(node.eventPublisher).publishEvent(readiness(ReadinessState.REFUSING_TRAFFIC));
+        } finally {
+            node.service.shutdown();
+        }
+    }
+
+    private static ApplicationEvent readiness(ReadinessState state) {
+        return argThat(event -> event instanceof AvailabilityChangeEvent<?> change && change.getState() == state);
+    }
+
+    private static B2BTransaction order(long id, String productName, String unitPrice) {
+        return B2BTransaction.builder()
+                .id(id)
+                .transactionId("T-" + id)
+                .user(USER)
+                .buyerCompany("Acme")
+                .sellerCompany("Globex")
+                .productName(productName)
+                .quantity(1)
+                .unitPrice(new BigDecimal(unitPrice))
+                .status(B2BTransaction.TransactionStatus.PENDING)
+                .build();
+    }
+
+    private static TransactionChangedEvent update(B2BTransaction order, String productName, String unitPrice) {
+        String previousProductName = order.getProductName();
+        BigDecimal previousUnitPrice = order.getUnitPrice();
+        order.setProductName(productName);
+        order.setUnitPrice(new BigDecimal(unitPrice));
+        return TransactionChangedEvent.updated(order, previousProductName, order.getBuyerCompany(),
+                order.getSellerCompany(), previousUnitPrice);
+    }
+
+    private static TransactionChangedEvent status(B2BTransaction order, B2BTransaction.TransactionStatus status) {
+        B2BTransaction.TransactionStatus previousStatus = order.getStatus();
+        order.setStatus(status);
+        return TransactionChangedEvent.statusChanged(order, previousStatus);
+    }
+
+    private static Row row(long id, String productName, String unitPrice) {
+        return new Row(id, productName, new BigDecimal(unitPrice), "Acme", "Globex", B2BTransaction.TransactionStatus.PENDING);
+    }
+
+    private record Row(Long id, String productName, BigDecimal unitPrice, String buyerCompany, String sellerCompany,
+                       B2BTransaction.TransactionStatus status) implements B2BTransactionRepository.StatisticsView {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getProductName() {
+            return productName;
+        }
+
+        @Override
+        public BigDecimal getUnitPrice() {
+            return unitPrice;
+        }
+
+        @Override
+        public String getBuyerCompany() {
+            return buyerCompany;
+        }
+
+        @Override
+        public String getSellerCompany() {
+            return sellerCompany;
+        }
+
+        @Override
+        public B2BTransaction.TransactionStatus getStatus() {
+            return status;
+        }
+    }
+
+    private record Node(TransactionStatisticsService service, B2BTransactionRepository transactions,
+                        PriceStatisticsSnapshotRepository snapshotRepository,
+                        PriceStatisticsCheckpointRepository checkpointRepository,
+                        ApplicationEventPublisher eventPublisher) {
+
+        static Node create(PriceStatisticsCheckpoint checkpoint, List<PriceStatisticsSnapshot> snapshots, Row... rows) {
+            return create(checkpoint, snapshots, mock(ClusterEventBus.class), rows);
+        }
+
+        static Node create(PriceStatisticsCheckpoint checkpoint, List<PriceStatisticsSnapshot> snapshots,
+                           ClusterEventBus clusterEventBus, Row... rows) {
+            B2BTransactionRepository transactions = mock(B2BTransactionRepository.class);
+            PriceStatisticsSnapshotRepository snapshotRepository = mock(PriceStatisticsSnapshotRepository.class);
+            PriceStatisticsCheckpointRepository checkpointRepository = mock(PriceStatisticsCheckpointRepository.class);
+            when(transactions.findStatisticsViewsAfter(anyLong(), any(Limit.class))).thenAnswer(invocation -> Stream.of(rows)
+                    .filter(row -> row.id() > invocation.<Long>getArgument(0))
+                    .limit(invocation.<Limit>getArgument(1).max())
+                    .toList());
+            when(snapshotRepository.findAll()).thenReturn(snapshots);
+            when(checkpointRepository.findById(PriceStatisticsCheckpoint.ID)).thenReturn(Optional.ofNullable(checkpoint));
+
+            ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+            // Two rows per chunk, so a replay of more than two rows reads several chunks
+            TransactionStatisticsService service = new TransactionStatisticsService(transactions, snapshotRepository,
+                    checkpointRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)), clusterEventBus,
+                    eventPublisher, 100, 3.0, 3_600_000, 86_400_000, 60_000, 2);
+            return new Node(service, transactions, snapshotRepository, checkpointRepository, eventPublisher);
+        }
+
+        static Node start(PriceStatisticsCheckpoint checkpoint, List<PriceStatisticsSnapshot> snapshots, Row... rows) {
+            Node node = create(checkpoint, snapshots, rows);
+            node.service.restore();
+            return node;
+        }
+
+        static Node start(PriceStatisticsCheckpoint checkpoint, List<PriceStatisticsSnapshot> snapshots,
+                          ClusterEventBus clusterEventBus, Row... rows) {
+            Node node = create(checkpoint, snapshots, clusterEventBus, rows);
+            node.service.restore();
+            return node;
+        }
+
+        void publish(TransactionChangedEvent event) {
+            service.onTransactionChanged(event);
+        }
+
+        PriceStatisticsResponse product(String productName) {
+            return service.productStatistics(productName).orElseThrow();
+        }
+
+        PriceStatisticsCheckpoint checkpoint() {
+            ArgumentCaptor<PriceStatisticsCheckpoint> checkpoint = ArgumentCaptor.forClass(PriceStatisticsCheckpoint.class);
+            verify(checkpointRepository).save(checkpoint.capture());
+            return checkpoint.getValue();
+        }
+
+        @SuppressWarnings("unchecked")
+        List<PriceStatisticsSnapshot> snapshots() {
+            ArgumentCaptor<List<PriceStatisticsSnapshot>> snapshots = ArgumentCaptor.forClass(List.class);
+            verify(snapshotRepository).saveAll(snapshots.capture());
+            return snapshots.getValue();
+        }
+    }
+}
@@ -58,6 +58,8 @@ export interface Transaction {
   transactionId: string;
   buyerCompany: string;
   sellerCompany: string;
+  buyerCompanyId?: number;
+  sellerCompanyId?: number;
   productName: string;
   productDescription?: string;
   quantity: number;
@@ -69,6 +71,9 @@ export interface Transaction {
   deliveryDate?: string;
   notes?: string;
   aiInsights?: string;
+  riskScore?: number;
+  duplicateOf?: number;
+  reportingAmount?: number;
   createdAt: string;
   updatedAt: string;
 }
@@ -0,0 +1,60 @@
+#!/bin/bash
+# Replays a dashboard polling workload against a running backend and compares plain, gzip and
+# conditional (If-None-Match) polling of GET /transactions: bytes on the wire, latency and the
+# server CPU time spent per request.
+#
+# Usage: BENCH_USER=alice BENCH_PASSWORD=secret ./polling-benchmark.sh [requests]
+
+set -e
+
+REQUESTS=${1:-200}
+BASE_URL=${BASE_URL:-http://localhost:8080/api}
+URL="$BASE_URL/transactions"
+
+TOKEN=$(curl -s -X POST "$BASE_URL/auth/login" -H 'Content-Type: application/json' \
+    -d "{\"username\":\"$BENCH_USER\",\"password\":\"$BENCH_PASSWORD\"}" | sed -n 's/.*"token":"\([^"]*\)".*/\1/p')
+if [ -z "$TOKEN" ]; then
+    echo "❌ Login failed; set BENCH_USER and BENCH_PASSWORD"
+    exit 1
+fi
+
+PORT=$(echo "$BASE_URL" | sed -n 's#.*:\([0-9]*\)/.*#\1#p')
+PID=$(lsof -Pi :"$PORT" -sTCP:LISTEN -t 2>/dev/null | head -1 || true)
+CLK_TCK=$(getconf CLK_TCK)
+
+# utime + stime of the backend process, in clock ticks (Linux only)
+cpu_ticks() {
+    if [ -n "$PID" ] && [ -r "/proc/$PID/stat" ]; then
+        awk '{print $14 + $15}' "/proc/$PID/stat"
+    else
+        echo 0
+    fi
+}
+
+ETAG=$(curl -s -o /dev/null -D - -H "Authorization: Bearer $TOKEN" "$URL" | sed -n 's/^[Ee][Tt]ag: *\(.*\)\r$/\1/p')
+
+run() {
+    local label=$1
+    shift
+    local bytes=0
+    local time=0
+    local before
+    before=$(cpu_ticks)
+    for _ in $(seq 1 "$REQUESTS"); do
+        read -r size seconds < <(curl -s -o /dev/null -w '%{size_download} %{time_total}\n' \
+            -H "Authorization: Bearer $TOKEN" "$@" "$URL")
+        bytes=$((bytes + size))
+        time=$(echo "$time + $seconds" | bc)
+    done
+    local cpu_ms=$(( ($(cpu_ticks) - before) * 1000 / CLK_TCK ))
+    printf "%-16s %10d bytes/req %8.1f ms/req %8.2f server CPU ms/req\n" "$label" \
+        $((bytes / REQUESTS)) "$(echo "$time * 1000 / $REQUESTS" | bc -l)" "$(echo "$cpu_ms / $REQUESTS" | bc -l)"
+}
+
+echo "📊 $REQUESTS polls of $URL"
+run plain
+run gzip -H 'Accept-Encoding: gzip'
+run if-none-match -H 'Accept-Encoding: gzip' -H "If-None-Match: $ETAG"
+if [ -z "$PID" ]; then
+    echo "(server CPU is only measured when the backend runs locally)"
+fi
@@ -0,0 +1,65 @@
+#!/bin/bash
+# Compares the blocking and reactive read paths under concurrent load: p99 latency and
+# throughput from `hey`, plus the peak JDBC connections, R2DBC connections and JVM threads
+# sampled from the actuator while each run is in flight.
+#
+# Start the backend with RATE_LIMIT_ENABLED=false, otherwise the default rule throttles the run.
+# Usage: BENCH_USER=alice BENCH_PASSWORD=secret ./reactive-benchmark.sh [concurrency] [requests]
+
+set -e
+
+CONCURRENCY=${1:-200}
+REQUESTS=${2:-5000}
+BASE_URL=${BASE_URL:-http://localhost:8080/api}
+
+if ! command -v hey >/dev/null 2>&1; then
+    echo "❌ hey is required: go install github.com/rakyll/hey@latest"
+    exit 1
+fi
+
+TOKEN=$(curl -s -X POST "$BASE_URL/auth/login" -H 'Content-Type: application/json' \
+    -d "{\"username\":\"$BENCH_USER\",\"password\":\"$BENCH_PASSWORD\"}" | sed -n 's/.*"token":"\([^"]*\)".*/\1/p')
+if [ -z "$TOKEN" ]; then
+    echo "❌ Login failed; set BENCH_USER and BENCH_PASSWORD"
+    exit 1
+fi
+
+metric() {
+    curl -s -H "Authorization: Bearer $TOKEN" "$BASE_URL/actuator/metrics/$1" \
+        | sed -n 's/.*"measurements":\[{"statistic":"[A-Z_]*","value":\([0-9.E]*\)}.*/\1/p'
+}
+
+# Prints the peak of each metric until the marker file disappears
+sample() {
+    local jdbc=0 r2dbc=0 threads=0 value
+    while [ -f "$1" ]; do
+        value=$(metric hikaricp.connections.active); jdbc=$(echo "if (${value:-0} > $jdbc) ${value:-0} else $jdbc" | bc)
+        value=$(metric r2dbc.pool.acquired); r2dbc=$(echo "if (${value:-0} > $r2dbc) ${value:-0} else $r2dbc" | bc)
+        value=$(metric jvm.threads.live); threads=$(echo "if (${value:-0} > $threads) ${value:-0} else $threads" | bc)
+        sleep 0.2
+    done
+    printf "  peak JDBC connections %s, R2DBC connections %s, JVM threads %s\n" "$jdbc" "$r2dbc" "$threads"
+}
+
+run() {
+    local label=$1
+    local url=$2
+    local marker
+    marker=$(mktemp)
+    sample "$marker" > "$marker.out" &
+    local sampler=$!
+    local report
+    report=$(hey -n "$REQUESTS" -c "$CONCURRENCY" -H "Authorization: Bearer $TOKEN" "$url")
+    rm -f "$marker"
+    wait "$sampler"
+    echo "$label"
+    echo "$report" | grep -E 'Requests/sec|99% in|Status code|\[[0-9]{3}\]' | sed 's/^ */  /'
+    cat "$marker.out"
+    rm -f "$marker.out"
+}
+
+echo "📊 $REQUESTS requests at concurrency $CONCURRENCY"
+run "blocking list    GET /transactions" "$BASE_URL/transactions"
+run "reactive list    GET /reactive/transactions" "$BASE_URL/reactive/transactions"
+run "blocking search  GET /transactions/search" "$BASE_URL/transactions/search?q=steel"
+run "reactive search  GET /reactive/transactions/search" "$BASE_URL/reactive/transactions/search?q=steel"
@@ -0,0 +1,38 @@
+-- Seed synthetic B2B transactions for partition-pruning benchmarks.
+-- Usage: psql -d b2b_platform -v rows=50000000 -f seed-transactions.sql
+-- Start the backend once first so the partitioned table and the first user exist.
+-- Rows are spread over the last 36 months; partitions for those months are created by
+-- TransactionPartitionService on the next start (rows are moved out of the default partition).
+
+\if :{?rows}
+\else
+  \set rows 1000000
+\endif
+
+INSERT INTO b2b_transactions (transaction_id, user_id, buyer_company, seller_company, product_name,
+                              quantity, unit_price, total_amount, currency, status, payment_terms,
+                              created_at, updated_at)
+SELECT gen_random_uuid()::text,
+       (SELECT min(id) FROM users),
+       'Buyer ' || (g % 500),
+       'Seller ' || (g % 200),
+       'Product ' || (g % 1000),
+       q,
+       p,
+       q * p,
+       'USD',
+       (ARRAY['PENDING','APPROVED','IN_PROGRESS','COMPLETED','CANCELLED','REJECTED'])[1 + g % 6],
+       'Net 30',
+       ts,
+       ts
+FROM generate_series(1, :rows) AS g,
+     LATERAL (SELECT 1 + (g % 100) AS q,
+                     round((10 + (g % 990))::numeric, 2) AS p,
+                     now() - (random() * interval '1095 days') AS ts) v;
+
+ANALYZE b2b_transactions;
+
+-- Compare, e.g.:
+-- EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM b2b_transactions
+--   WHERE user_id = 1 AND created_at BETWEEN now() - interval '30 days' AND now() ORDER BY created_at DESC;
+-- EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM b2b_transactions WHERE user_id = 1 ORDER BY created_at DESC;